@@ -40,6 +40,11 @@ public final class ByteBufUtil {
 
     private static final char[] HEXDUMP_TABLE = new char[256 * 4];
 
+    // Allows to read the memory of heap and direct buffers a long at a time without any bounds checks.
+    private static final boolean UNSAFE_LONG_ACCESS = PlatformDependent.isUnaligned();
+    private static final long BYTE_ARRAY_BASE_OFFSET = PlatformDependent.byteArrayBaseOffset();
+    private static final boolean BIG_ENDIAN_NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
     static final ByteBufAllocator DEFAULT_ALLOCATOR;
 
     static {
@@ -139,12 +144,26 @@ public final class ByteBufUtil {
      * useful when implementing a new buffer type.
      */
     public static int hashCode(ByteBuf buffer) {
-        final int aLen = buffer.readableBytes();
-        final int intCount = aLen >>> 2;
-        final int byteCount = aLen & 3;
-
+        int length = buffer.readableBytes();
         int hashCode = 1;
         int arrayIndex = buffer.readerIndex();
+
+        if (hasUnsafeLongAccess(buffer)) {
+            // Hash the same big endian ints as below, but read two of them at a time.
+            final Object base = unsafeBase(buffer);
+            long offset = unsafeOffset(buffer, arrayIndex);
+            for (int i = length >>> 3; i > 0; i --) {
+                long value = getLongBigEndian(base, offset);
+                hashCode = 31 * (31 * hashCode + (int) (value >>> 32)) + (int) value;
+                offset += 8;
+            }
+            arrayIndex += length & ~7;
+            length &= 7;
+        }
+
+        final int intCount = length >>> 2;
+        final int byteCount = length & 3;
+
         if (buffer.order() == ByteOrder.BIG_ENDIAN) {
             for (int i = intCount; i > 0; i --) {
                 hashCode = 31 * hashCode + buffer.getInt(arrayIndex);
@@ -178,14 +197,43 @@ public final class ByteBufUtil {
         if (aLen != bufferB.readableBytes()) {
             return false;
         }
+        return equals(bufferA, bufferA.readerIndex(), bufferB, bufferB.readerIndex(), aLen);
+    }
 
-        final int longCount = aLen >>> 3;
-        final int byteCount = aLen & 7;
+    /**
+     * Returns {@code true} if and only if the {@code length} bytes of {@code bufferA} starting at {@code aIndex}
+     * are equal to the {@code length} bytes of {@code bufferB} starting at {@code bIndex}. The indexes of the
+     * buffers are not modified.
+     */
+    public static boolean equals(ByteBuf bufferA, int aIndex, ByteBuf bufferB, int bIndex, int length) {
+        if (aIndex < 0 || bIndex < 0 || length < 0) {
+            throw new IllegalArgumentException(
+                    "All indexes and lengths must be non-negative: aIndex: " + aIndex + ", bIndex: " + bIndex +
+                    ", length: " + length);
+        }
+        if (bufferA.writerIndex() - length < aIndex || bufferB.writerIndex() - length < bIndex) {
+            return false;
+        }
 
-        int aIndex = bufferA.readerIndex();
-        int bIndex = bufferB.readerIndex();
+        final int longCount = length >>> 3;
+        final int byteCount = length & 7;
 
-        if (bufferA.order() == bufferB.order()) {
+        if (hasUnsafeLongAccess(bufferA) && hasUnsafeLongAccess(bufferB)) {
+            // The byte order of the buffers does not matter as the bytes are compared in memory order.
+            final Object aBase = unsafeBase(bufferA);
+            final Object bBase = unsafeBase(bufferB);
+            long aOffset = unsafeOffset(bufferA, aIndex);
+            long bOffset = unsafeOffset(bufferB, bIndex);
+            for (int i = longCount; i > 0; i --) {
+                if (PlatformDependent.getLong(aBase, aOffset) != PlatformDependent.getLong(bBase, bOffset)) {
+                    return false;
+                }
+                aOffset += 8;
+                bOffset += 8;
+            }
+            aIndex += longCount << 3;
+            bIndex += longCount << 3;
+        } else if (bufferA.order() == bufferB.order()) {
             for (int i = longCount; i > 0; i --) {
                 if (bufferA.getLong(aIndex) != bufferB.getLong(bIndex)) {
                     return false;
@@ -221,13 +269,36 @@ public final class ByteBufUtil {
     public static int compare(ByteBuf bufferA, ByteBuf bufferB) {
         final int aLen = bufferA.readableBytes();
         final int bLen = bufferB.readableBytes();
-        final int minLength = Math.min(aLen, bLen);
-        final int uintCount = minLength >>> 2;
-        final int byteCount = minLength & 3;
+        int minLength = Math.min(aLen, bLen);
 
         int aIndex = bufferA.readerIndex();
         int bIndex = bufferB.readerIndex();
 
+        if (bufferA.order() == ByteOrder.BIG_ENDIAN && bufferB.order() == ByteOrder.BIG_ENDIAN &&
+            hasUnsafeLongAccess(bufferA) && hasUnsafeLongAccess(bufferB)) {
+            // Compare eight bytes at a time as unsigned big endian longs, which gives the same result as comparing
+            // unsigned big endian ints.
+            final Object aBase = unsafeBase(bufferA);
+            final Object bBase = unsafeBase(bufferB);
+            long aOffset = unsafeOffset(bufferA, aIndex);
+            long bOffset = unsafeOffset(bufferB, bIndex);
+            for (int i = minLength >>> 3; i > 0; i --) {
+                long va = getLongBigEndian(aBase, aOffset);
+                long vb = getLongBigEndian(bBase, bOffset);
+                if (va != vb) {
+                    return (va ^ Long.MIN_VALUE) < (vb ^ Long.MIN_VALUE) ? -1 : 1;
+                }
+                aOffset += 8;
+                bOffset += 8;
+            }
+            aIndex += minLength & ~7;
+            bIndex += minLength & ~7;
+            minLength &= 7;
+        }
+
+        final int uintCount = minLength >>> 2;
+        final int byteCount = minLength & 3;
+
         if (bufferA.order() == bufferB.order()) {
             for (int i = uintCount; i > 0; i --) {
                 long va = bufferA.getUnsignedInt(aIndex);
@@ -284,6 +355,33 @@ public final class ByteBufUtil {
         }
     }
 
+    /**
+     * Returns the absolute index of the first occurrence of the readable bytes of {@code needle} within the readable
+     * bytes of {@code haystack}, or {@code -1} if {@code needle} is not contained in {@code haystack}. The indexes of
+     * the buffers are not modified.
+     */
+    public static int indexOf(ByteBuf haystack, ByteBuf needle) {
+        final int needleLength = needle.readableBytes();
+        final int needleIndex = needle.readerIndex();
+        if (needleLength == 0) {
+            return haystack.readerIndex();
+        }
+
+        // Search for the first byte of the needle, which is fast, and only compare the rest on a match.
+        final byte firstByte = needle.getByte(needleIndex);
+        final int endIndex = haystack.writerIndex() - needleLength + 1;
+        for (int i = haystack.readerIndex(); i < endIndex; i ++) {
+            i = firstIndexOf(haystack, i, endIndex, firstByte);
+            if (i < 0) {
+                break;
+            }
+            if (equals(haystack, i + 1, needle, needleIndex + 1, needleLength - 1)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Toggles the endianness of the specified 16-bit short integer.
      */
@@ -339,7 +437,32 @@ public final class ByteBufUtil {
             return -1;
         }
 
-        for (int i = fromIndex; i < toIndex; i ++) {
+        int i = fromIndex;
+        if (toIndex <= buffer.capacity()) {
+            // Check eight bytes at a time.
+            final long pattern = (value & 0xFFL) * 0x0101010101010101L;
+            final int longEndIndex = toIndex - 7;
+            if (hasUnsafeLongAccess(buffer)) {
+                final Object base = unsafeBase(buffer);
+                final long offset = unsafeOffset(buffer, 0);
+                for (; i < longEndIndex; i += 8) {
+                    long matches = matchingBytes(PlatformDependent.getLong(base, offset + i), pattern);
+                    if (matches != 0) {
+                        return i + firstMatchingByte(matches, BIG_ENDIAN_NATIVE_ORDER);
+                    }
+                }
+            } else {
+                final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+                for (; i < longEndIndex; i += 8) {
+                    long matches = matchingBytes(buffer.getLong(i), pattern);
+                    if (matches != 0) {
+                        return i + firstMatchingByte(matches, bigEndian);
+                    }
+                }
+            }
+        }
+
+        for (; i < toIndex; i ++) {
             if (buffer.getByte(i) == value) {
                 return i;
             }
@@ -348,6 +471,48 @@ public final class ByteBufUtil {
         return -1;
     }
 
+    /**
+     * Returns a {@code long} which has the highest bit of each byte set for which the byte in {@code word} is equal
+     * to the byte in {@code pattern}, while all other bits are cleared.
+     */
+    private static long matchingBytes(long word, long pattern) {
+        long input = word ^ pattern;
+        long tmp = (input & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+        return ~(tmp | input | 0x7F7F7F7F7F7F7F7FL);
+    }
+
+    private static int firstMatchingByte(long matches, boolean bigEndian) {
+        if (bigEndian) {
+            return Long.numberOfLeadingZeros(matches) >>> 3;
+        }
+        return Long.numberOfTrailingZeros(matches) >>> 3;
+    }
+
+    /**
+     * Returns {@code true} if the memory of the given buffer can be read via {@link PlatformDependent} using
+     * {@link #unsafeBase(ByteBuf)} and {@link #unsafeOffset(ByteBuf, int)}. The caller must check the bounds.
+     */
+    private static boolean hasUnsafeLongAccess(ByteBuf buffer) {
+        // Never access the memory of a released buffer, which may be freed already.
+        return UNSAFE_LONG_ACCESS && (buffer.hasArray() || buffer.hasMemoryAddress()) && buffer.refCnt() != 0;
+    }
+
+    private static Object unsafeBase(ByteBuf buffer) {
+        return buffer.hasArray() ? buffer.array() : null;
+    }
+
+    private static long unsafeOffset(ByteBuf buffer, int index) {
+        if (buffer.hasArray()) {
+            return BYTE_ARRAY_BASE_OFFSET + buffer.arrayOffset() + index;
+        }
+        return buffer.memoryAddress() + index;
+    }
+
+    private static long getLongBigEndian(Object base, long offset) {
+        long value = PlatformDependent.getLong(base, offset);
+        return BIG_ENDIAN_NATIVE_ORDER ? value : Long.reverseBytes(value);
+    }
+
     private static int lastIndexOf(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
         fromIndex = Math.min(fromIndex, buffer.capacity());
         if (fromIndex < 0 || buffer.capacity() == 0) {
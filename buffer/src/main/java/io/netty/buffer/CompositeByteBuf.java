@@ -36,6 +36,10 @@ import java.util.ListIterator;
  * A virtual buffer which shows multiple buffers as a single merged buffer.  It is recommended to use
  * {@link ByteBufAllocator#compositeBuffer()} or {@link Unpooled#wrappedBuffer(ByteBuf...)} instead of calling the
  * constructor explicitly.
+ * <p>
+ * Once the number of components exceeds {@link #maxNumComponents()} all components are copied into a single new
+ * buffer. Use a {@code maxNumComponents} of {@link Integer#MAX_VALUE} for large buffers which are made of many
+ * components, like aggregated messages, so the components are never copied.
  */
 public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
@@ -47,6 +51,9 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     private static final ByteBuffer FULL_BYTEBUFFER = (ByteBuffer) ByteBuffer.allocate(1).position(1);
 
     private boolean freed;
+    // the index of the component which was accessed last, as the next access is most likely to the same or to the
+    // next component
+    private int lastAccessedComponentId;
 
     public CompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents) {
         super(Integer.MAX_VALUE);
@@ -571,8 +578,27 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     public int toComponentIndex(int offset) {
         assert !freed;
         checkIndex(offset);
+        return toComponentIndex0(offset);
+    }
+
+    private int toComponentIndex0(int offset) {
+        final int size = components.size();
+        // Check the last accessed component and the one after it first, which makes sequential access O(1).
+        int cIndex = lastAccessedComponentId;
+        if (cIndex < size) {
+            Component c = components.get(cIndex);
+            if (offset >= c.offset) {
+                if (offset < c.endOffset) {
+                    return cIndex;
+                }
+                if (++ cIndex < size && offset < components.get(cIndex).endOffset) {
+                    lastAccessedComponentId = cIndex;
+                    return cIndex;
+                }
+            }
+        }
 
-        for (int low = 0, high = components.size(); low <= high;) {
+        for (int low = 0, high = size - 1; low <= high;) {
             int mid = low + high >>> 1;
             Component c = components.get(mid);
             if (offset >= c.endOffset) {
@@ -580,6 +606,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             } else if (offset < c.offset) {
                 high = mid - 1;
             } else {
+                lastAccessedComponentId = mid;
                 return mid;
             }
         }
@@ -1077,20 +1104,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     private Component findComponent(int offset) {
         assert !freed;
         checkIndex(offset);
-
-        for (int low = 0, high = components.size(); low <= high;) {
-            int mid = low + high >>> 1;
-            Component c = components.get(mid);
-            if (offset >= c.endOffset) {
-                low = mid + 1;
-            } else if (offset < c.offset) {
-                high = mid - 1;
-            } else {
-                return c;
-            }
-        }
-
-        throw new Error("should not reach here");
+        return components.get(toComponentIndex0(offset));
     }
 
     @Override
@@ -1144,8 +1158,23 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             return EmptyArrays.EMPTY_BYTE_BUFFERS;
         }
 
-        List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(components.size());
-        int i = toComponentIndex(index);
+        // Count the buffers first, so the array is created with the right size right away instead of collecting the
+        // buffers in a List and copying them into an array.
+        final int firstComponentId = toComponentIndex0(index);
+        final int endIndex = index + length;
+        int count = 0;
+        int i = firstComponentId;
+        for (;;) {
+            Component c = components.get(i ++);
+            count += c.buf.nioBufferCount();
+            if (endIndex <= c.endOffset) {
+                break;
+            }
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        count = 0;
+        i = firstComponentId;
         while (length > 0) {
             Component c = components.get(i);
             ByteBuf s = c.buf;
@@ -1155,10 +1184,12 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
                 case 0:
                     throw new UnsupportedOperationException();
                 case 1:
-                    buffers.add(s.nioBuffer(index - adjustment, localLength));
+                    buffers[count ++] = s.nioBuffer(index - adjustment, localLength);
                     break;
                 default:
-                    Collections.addAll(buffers, s.nioBuffers(index - adjustment, localLength));
+                    for (ByteBuffer b: s.nioBuffers(index - adjustment, localLength)) {
+                        buffers[count ++] = b;
+                    }
             }
 
             index += localLength;
@@ -1166,7 +1197,13 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             i ++;
         }
 
-        return buffers.toArray(new ByteBuffer[buffers.size()]);
+        if (count != buffers.length) {
+            // A component returned less buffers for the range than nioBufferCount(), so trim the array.
+            ByteBuffer[] trimmed = new ByteBuffer[count];
+            System.arraycopy(buffers, 0, trimmed, 0, count);
+            return trimmed;
+        }
+        return buffers;
     }
 
     /**
@@ -16,15 +16,35 @@
 
 package io.netty.buffer;
 
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-
-abstract class PoolArena<T> {
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+abstract class PoolArena<T> implements PoolArenaMetric {
+
+    enum SizeClass {
+        Tiny,
+        Small,
+        Normal
+    }
 
     static final int numTinySubpagePools = 512 >>> 4;
 
+    // Number of allocations and frees after which the arena checks for idle chunks, must be a power of two.
+    private static final int IDLE_CHUNK_CHECK_INTERVAL = 1024;
+
     final PooledByteBufAllocator parent;
 
     private final int maxOrder;
@@ -33,6 +53,8 @@ abstract class PoolArena<T> {
     final int chunkSize;
     final int subpageOverflowMask;
     final int numSmallSubpagePools;
+    // log2 of the number of size classes between two powers of two for capacities larger than pageSize
+    private final int normalSizeClassShift;
     private final PoolSubpage<T>[] tinySubpagePools;
     private final PoolSubpage<T>[] smallSubpagePools;
 
@@ -43,11 +65,42 @@ abstract class PoolArena<T> {
     private final PoolChunkList<T> q075;
     private final PoolChunkList<T> q100;
 
+    private final List<PoolChunkListMetric> chunkListMetrics;
+
+    private final long maxRetainedBytes;
+    private final long idleChunkTimeoutNanos;
+
+    // Guarded by the lock of the arena.
+    private int numChunks;
+    private int opsSinceIdleChunkCheck;
+
+    // Metrics for allocations and deallocations which are done while holding the lock of the arena.
+    private long allocationsNormal;
+    private long deallocationsTiny;
+    private long deallocationsSmall;
+    private long deallocationsNormal;
+
+    // Tiny and small allocations are mostly served while only holding the lock of the subpage pool, while huge
+    // allocations and the thread cache are not guarded by a lock at all, so use striped counters.
+    private final LongCounter allocationsTiny = PlatformDependent.newLongCounter();
+    private final LongCounter allocationsSmall = PlatformDependent.newLongCounter();
+    private final LongCounter allocationsHuge = PlatformDependent.newLongCounter();
+    private final LongCounter deallocationsHuge = PlatformDependent.newLongCounter();
+    private final LongCounter threadCacheHits = PlatformDependent.newLongCounter();
+    private final LongCounter threadCacheMisses = PlatformDependent.newLongCounter();
+
+    // Number of thread caches backed by this arena.
+    final AtomicInteger numThreadCaches = new AtomicInteger();
+
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
-    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
+    protected PoolArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                        int normalSizeClassShift, long maxRetainedBytes, long idleChunkTimeoutNanos) {
         this.parent = parent;
+        this.normalSizeClassShift = normalSizeClassShift;
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.idleChunkTimeoutNanos = idleChunkTimeoutNanos;
         this.pageSize = pageSize;
         this.maxOrder = maxOrder;
         this.pageShifts = pageShifts;
@@ -77,6 +130,15 @@ abstract class PoolArena<T> {
         q025.prevList = q000;
         q000.prevList = null;
         qInit.prevList = qInit;
+
+        List<PoolChunkListMetric> metrics = new ArrayList<PoolChunkListMetric>(6);
+        metrics.add(qInit);
+        metrics.add(q000);
+        metrics.add(q025);
+        metrics.add(q050);
+        metrics.add(q075);
+        metrics.add(q100);
+        chunkListMetrics = Collections.unmodifiableList(metrics);
     }
 
     private PoolSubpage<T> newSubpagePoolHead(int pageSize) {
@@ -124,13 +186,19 @@ abstract class PoolArena<T> {
     }
 
     private void allocate(PoolThreadCache cache, PooledByteBuf<T> buf, final int reqCapacity) {
+        // Take back the memory which was released by other threads in the meantime, so it can be reused right away.
+        cache.drainRemoteFrees();
+        buf.cache = cache;
+
         final int normCapacity = normalizeCapacity(reqCapacity);
         if (isTinyOrSmall(normCapacity)) { // capacity < pageSize
             int tableIdx;
             PoolSubpage<T>[] table;
-            if (isTiny(normCapacity)) { // < 512
+            boolean tiny = isTiny(normCapacity);
+            if (tiny) { // < 512
                 if (cache.allocateTiny(this, buf, reqCapacity, normCapacity)) {
                     // was able to allocate out of the cache so move on
+                    threadCacheHits.increment();
                     return;
                 }
                 tableIdx = tinyIdx(normCapacity);
@@ -138,37 +206,62 @@ abstract class PoolArena<T> {
             } else {
                 if (cache.allocateSmall(this, buf, reqCapacity, normCapacity)) {
                     // was able to allocate out of the cache so move on
+                    threadCacheHits.increment();
                     return;
                 }
                 tableIdx = smallIdx(normCapacity);
                 table = smallSubpagePools;
             }
+            threadCacheMisses.increment();
 
-            synchronized (this) {
-                final PoolSubpage<T> head = table[tableIdx];
+            // Each subpage pool has its own lock, so allocations of different sizes do not contend with each other
+            // as long as there is a subpage with free elements. The lock of the arena is only needed to allocate a
+            // new subpage out of a chunk.
+            final PoolSubpage<T> head = table[tableIdx];
+            synchronized (head) {
                 final PoolSubpage<T> s = head.next;
                 if (s != head) {
                     assert s.doNotDestroy && s.elemSize == normCapacity;
                     long handle = s.allocate();
                     assert handle >= 0;
                     s.chunk.initBufWithSubpage(buf, handle, reqCapacity);
+                    incTinySmallAllocation(tiny);
                     return;
                 }
             }
+            synchronized (this) {
+                allocateNormal(buf, reqCapacity, normCapacity);
+            }
+            incTinySmallAllocation(tiny);
         } else if (normCapacity <= chunkSize) {
             if (cache.allocateNormal(this, buf, reqCapacity, normCapacity)) {
                 // was able to allocate out of the cache so move on
+                threadCacheHits.increment();
                 return;
             }
+            threadCacheMisses.increment();
+
+            synchronized (this) {
+                allocateNormal(buf, reqCapacity, normCapacity);
+                ++ allocationsNormal;
+            }
         } else {
             // Huge allocations are never served via the cache so just call allocateHuge
             allocateHuge(buf, reqCapacity);
-            return;
         }
-        allocateNormal(buf, reqCapacity, normCapacity);
     }
 
-    private synchronized void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+    private void incTinySmallAllocation(boolean tiny) {
+        if (tiny) {
+            allocationsTiny.increment();
+        } else {
+            allocationsSmall.increment();
+        }
+    }
+
+    // Must be called while holding the lock of the arena.
+    private void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        checkIdleChunks();
         if (q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
             q000.allocate(buf, reqCapacity, normCapacity) || qInit.allocate(buf, reqCapacity, normCapacity) ||
             q075.allocate(buf, reqCapacity, normCapacity) || q100.allocate(buf, reqCapacity, normCapacity)) {
@@ -177,6 +270,7 @@ abstract class PoolArena<T> {
 
         // Add a new chunk.
         PoolChunk<T> c = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
+        numChunks ++;
         long handle = c.allocate(normCapacity);
         assert handle > 0;
         c.initBuf(buf, handle, reqCapacity);
@@ -185,21 +279,115 @@ abstract class PoolArena<T> {
 
     private void allocateHuge(PooledByteBuf<T> buf, int reqCapacity) {
         buf.initUnpooled(newUnpooledChunk(reqCapacity), reqCapacity);
+        allocationsHuge.increment();
     }
 
-    void free(PoolChunk<T> chunk, long handle, int normCapacity) {
+    void free(PoolChunk<T> chunk, long handle, int normCapacity, PoolThreadCache cache) {
         if (chunk.unpooled) {
             destroyChunk(chunk);
+            deallocationsHuge.increment();
         } else {
-            PoolThreadCache cache = parent.threadCache.get();
-            if (cache.add(this, chunk, handle, normCapacity)) {
-                // cached so not free it.
-                return;
+            if (cache != null && cache.thread != Thread.currentThread()) {
+                // Hand the memory back to the thread which allocated it, so it ends up in the cache of the thread
+                // which is most likely to reuse it instead of polluting the cache of the current thread.
+                if (cache.addFromOtherThread(this, chunk, handle, normCapacity)) {
+                    return;
+                }
+            } else {
+                if (cache == null) {
+                    cache = parent.threadCache.get();
+                }
+                if (cache.add(this, chunk, handle, normCapacity)) {
+                    // cached so not free it.
+                    return;
+                }
             }
-            synchronized (this) {
-                chunk.parent.free(chunk, handle);
+            freeChunk(chunk, handle, sizeClass(normCapacity));
+        }
+    }
+
+    /**
+     * Release the memory of the given {@code handle} back to the {@link PoolChunk} it was allocated from.
+     */
+    void freeChunk(PoolChunk<T> chunk, long handle, SizeClass sizeClass) {
+        synchronized (this) {
+            switch (sizeClass) {
+                case Tiny:
+                    ++ deallocationsTiny;
+                    break;
+                case Small:
+                    ++ deallocationsSmall;
+                    break;
+                case Normal:
+                    ++ deallocationsNormal;
+                    break;
+                default:
+                    throw new Error();
             }
+            if (chunk.parent.free(chunk, handle) && chunk.usage() == 0) {
+                chunkUnused(chunk);
+            } else {
+                checkIdleChunks();
+            }
+        }
+    }
+
+    // Must be called while holding the lock of the arena.
+    private void chunkUnused(PoolChunk<T> chunk) {
+        long currentTimeNanos = System.nanoTime();
+        chunk.unusedSinceNanos = currentTimeNanos;
+        if ((long) numChunks * chunkSize > maxRetainedBytes) {
+            // The arena holds more memory than it should retain, so release the chunk right away.
+            chunk.parent.remove(chunk);
+            destroyPooledChunk(chunk);
+        } else if (idleChunkTimeoutNanos > 0) {
+            destroyUnusedChunks(currentTimeNanos, idleChunkTimeoutNanos);
+        }
+    }
+
+    /**
+     * Destroy idle chunks every {@link #IDLE_CHUNK_CHECK_INTERVAL} allocations and frees. This only happens while
+     * the arena is used, so {@link #trim()} needs to be called to release idle chunks once it is not used anymore.
+     * Must be called while holding the lock of the arena.
+     */
+    private void checkIdleChunks() {
+        if (idleChunkTimeoutNanos > 0 && (++ opsSinceIdleChunkCheck & IDLE_CHUNK_CHECK_INTERVAL - 1) == 0) {
+            destroyUnusedChunks(System.nanoTime(), idleChunkTimeoutNanos);
+        }
+    }
+
+    /**
+     * Destroy all chunks which are not used and were not used for at least {@code idleTimeoutNanos}.
+     * Must be called while holding the lock of the arena. Returns the number of released bytes.
+     */
+    private long destroyUnusedChunks(long currentTimeNanos, long idleTimeoutNanos) {
+        // q100 can not contain unused chunks.
+        int destroyed = qInit.destroyUnusedChunks(currentTimeNanos, idleTimeoutNanos) +
+                q000.destroyUnusedChunks(currentTimeNanos, idleTimeoutNanos) +
+                q025.destroyUnusedChunks(currentTimeNanos, idleTimeoutNanos) +
+                q050.destroyUnusedChunks(currentTimeNanos, idleTimeoutNanos) +
+                q075.destroyUnusedChunks(currentTimeNanos, idleTimeoutNanos);
+        return (long) destroyed * chunkSize;
+    }
+
+    // Must be called while holding the lock of the arena.
+    void destroyPooledChunk(PoolChunk<T> chunk) {
+        numChunks --;
+        destroyChunk(chunk);
+    }
+
+    /**
+     * Release all chunks which are not used anymore. Returns the number of released bytes.
+     */
+    synchronized long trim() {
+        return destroyUnusedChunks(System.nanoTime(), 0);
+    }
+
+    SizeClass sizeClass(int normCapacity) {
+        if (!isTinyOrSmall(normCapacity)) {
+            return SizeClass.Normal;
         }
+        return isTiny(normCapacity) ? SizeClass.Tiny : SizeClass.Small;
     }
 
     PoolSubpage<T> findSubpagePoolHead(int elemSize) {
@@ -221,6 +409,47 @@ abstract class PoolArena<T> {
         return table[tableIdx];
     }
 
+    /**
+     * Normalizes a capacity which is larger than {@link #pageSize} to a multiple of {@link #pageSize}. The range
+     * between two powers of two is divided into {@code 1 << normalSizeClassShift} size classes, which bounds the
+     * memory wasted by rounding up to {@code 1 / (1 << normalSizeClassShift)} of the requested capacity instead of
+     * almost half of it.
+     */
+    private int normalizeNormalCapacity(int reqCapacity) {
+        int pages = reqCapacity + pageSize - 1 >>> pageShifts;
+        int step = Math.max(1, Integer.highestOneBit(pages) >>> normalSizeClassShift);
+        pages = pages + step - 1 & ~(step - 1);
+        return pages << pageShifts;
+    }
+
+    /**
+     * Returns the index of the size class of the given normalized capacity, which must be at least
+     * {@link #pageSize} and at most {@link #chunkSize}. The smallest size class has the index {@code 0}.
+     */
+    int normalIdx(int normCapacity) {
+        int pages = normCapacity >>> pageShifts;
+        int classesPerDoubling = 1 << normalSizeClassShift;
+        if (pages <= classesPerDoubling << 1) {
+            // Every number of pages up to here is a size class of its own.
+            return pages - 1;
+        }
+        int log2 = 31 - Integer.numberOfLeadingZeros(pages);
+        return (classesPerDoubling << 1) - 1 + (log2 - normalSizeClassShift - 1) * classesPerDoubling +
+               (pages - (1 << log2) >>> log2 - normalSizeClassShift);
+    }
+
+    /**
+     * Returns the number of size classes which are at least {@link #pageSize} and at most {@code maxCapacity}.
+     */
+    int numNormalSizeClasses(int maxCapacity) {
+        if (maxCapacity < pageSize) {
+            return 0;
+        }
+        int normCapacity = normalizeCapacity(Math.min(maxCapacity, chunkSize));
+        int idx = normalIdx(normCapacity);
+        return normCapacity > maxCapacity ? idx : idx + 1;
+    }
+
     int normalizeCapacity(int reqCapacity) {
         if (reqCapacity < 0) {
             throw new IllegalArgumentException("capacity: " + reqCapacity + " (expected: 0+)");
@@ -245,6 +474,9 @@ abstract class PoolArena<T> {
                 normalizedCapacity >>>= 1;
             }
 
+            if (!isTinyOrSmall(normalizedCapacity) && normalizedCapacity > pageSize) {
+                return normalizeNormalCapacity(reqCapacity);
+            }
             return normalizedCapacity;
         }
 
@@ -267,6 +499,7 @@ abstract class PoolArena<T> {
         }
 
         PoolChunk<T> oldChunk = buf.chunk;
+        PoolThreadCache oldCache = buf.cache;
         long oldHandle = buf.handle;
         T oldMemory = buf.memory;
         int oldOffset = buf.offset;
@@ -295,8 +528,154 @@ abstract class PoolArena<T> {
         buf.setIndex(readerIndex, writerIndex);
 
         if (freeOldMemory) {
-            free(oldChunk, oldHandle, oldMaxLength);
+            free(oldChunk, oldHandle, oldMaxLength, oldCache);
+        }
+    }
+
+    @Override
+    public int numThreadCaches() {
+        return numThreadCaches.get();
+    }
+
+    @Override
+    public int numTinySubpages() {
+        return tinySubpagePools.length;
+    }
+
+    @Override
+    public int numSmallSubpages() {
+        return smallSubpagePools.length;
+    }
+
+    @Override
+    public int numChunkLists() {
+        return chunkListMetrics.size();
+    }
+
+    @Override
+    public List<PoolSubpageMetric> tinySubpages() {
+        return subPageMetricList(tinySubpagePools);
+    }
+
+    @Override
+    public List<PoolSubpageMetric> smallSubpages() {
+        return subPageMetricList(smallSubpagePools);
+    }
+
+    @Override
+    public List<PoolChunkListMetric> chunkLists() {
+        return chunkListMetrics;
+    }
+
+    private List<PoolSubpageMetric> subPageMetricList(PoolSubpage<?>[] pages) {
+        List<PoolSubpageMetric> metrics = new ArrayList<PoolSubpageMetric>();
+        for (PoolSubpage<?> head: pages) {
+            synchronized (head) {
+                for (PoolSubpage<?> s = head.next; s != head; s = s.next) {
+                    metrics.add(s);
+                }
+            }
         }
+        return Collections.unmodifiableList(metrics);
+    }
+
+    @Override
+    public long numAllocations() {
+        final long allocsNormal;
+        synchronized (this) {
+            allocsNormal = allocationsNormal;
+        }
+        return allocationsTiny.value() + allocationsSmall.value() + allocsNormal + allocationsHuge.value();
+    }
+
+    @Override
+    public long numTinyAllocations() {
+        return allocationsTiny.value();
+    }
+
+    @Override
+    public long numSmallAllocations() {
+        return allocationsSmall.value();
+    }
+
+    @Override
+    public synchronized long numNormalAllocations() {
+        return allocationsNormal;
+    }
+
+    @Override
+    public long numHugeAllocations() {
+        return allocationsHuge.value();
+    }
+
+    @Override
+    public long numDeallocations() {
+        long deallocsNormal;
+        synchronized (this) {
+            deallocsNormal = deallocationsTiny + deallocationsSmall + deallocationsNormal;
+        }
+        return deallocsNormal + deallocationsHuge.value();
+    }
+
+    @Override
+    public synchronized long numTinyDeallocations() {
+        return deallocationsTiny;
+    }
+
+    @Override
+    public synchronized long numSmallDeallocations() {
+        return deallocationsSmall;
+    }
+
+    @Override
+    public synchronized long numNormalDeallocations() {
+        return deallocationsNormal;
+    }
+
+    @Override
+    public long numHugeDeallocations() {
+        return deallocationsHuge.value();
+    }
+
+    @Override
+    public long numActiveAllocations() {
+        long active = allocationsTiny.value() + allocationsSmall.value() + allocationsHuge.value()
+                - deallocationsHuge.value();
+        synchronized (this) {
+            active += allocationsNormal - (deallocationsTiny + deallocationsSmall + deallocationsNormal);
+        }
+        return Math.max(active, 0);
+    }
+
+    @Override
+    public long numActiveTinyAllocations() {
+        return Math.max(numTinyAllocations() - numTinyDeallocations(), 0);
+    }
+
+    @Override
+    public long numActiveSmallAllocations() {
+        return Math.max(numSmallAllocations() - numSmallDeallocations(), 0);
+    }
+
+    @Override
+    public synchronized long numActiveNormalAllocations() {
+        return allocationsNormal - deallocationsNormal;
+    }
+
+    @Override
+    public long numActiveHugeAllocations() {
+        // The striped counters are not updated atomically, so never report a negative value.
+        return Math.max(allocationsHuge.value() - deallocationsHuge.value(), 0);
+    }
+
+    @Override
+    public long numThreadCacheHits() {
+        return threadCacheHits.value();
+    }
+
+    @Override
+    public long numThreadCacheMisses() {
+        return threadCacheMisses.value();
     }
 
     protected abstract PoolChunk<T> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize);
@@ -332,53 +711,44 @@ abstract class PoolArena<T> {
         buf.append(q100);
         buf.append(StringUtil.NEWLINE);
         buf.append("tiny subpages:");
-        for (int i = 1; i < tinySubpagePools.length; i ++) {
-            PoolSubpage<T> head = tinySubpagePools[i];
-            if (head.next == head) {
-                continue;
-            }
-
-            buf.append(StringUtil.NEWLINE);
-            buf.append(i);
-            buf.append(": ");
-            PoolSubpage<T> s = head.next;
-            for (;;) {
-                buf.append(s);
-                s = s.next;
-                if (s == head) {
-                    break;
-                }
-            }
-        }
+        appendPoolSubPages(buf, tinySubpagePools);
         buf.append(StringUtil.NEWLINE);
         buf.append("small subpages:");
-        for (int i = 1; i < smallSubpagePools.length; i ++) {
-            PoolSubpage<T> head = smallSubpagePools[i];
-            if (head.next == head) {
-                continue;
-            }
+        appendPoolSubPages(buf, smallSubpagePools);
+        buf.append(StringUtil.NEWLINE);
 
-            buf.append(StringUtil.NEWLINE);
-            buf.append(i);
-            buf.append(": ");
-            PoolSubpage<T> s = head.next;
-            for (;;) {
-                buf.append(s);
-                s = s.next;
-                if (s == head) {
-                    break;
+        return buf.toString();
+    }
+
+    private static void appendPoolSubPages(StringBuilder buf, PoolSubpage<?>[] subpages) {
+        for (int i = 1; i < subpages.length; i ++) {
+            PoolSubpage<?> head = subpages[i];
+            synchronized (head) {
+                if (head.next == head) {
+                    continue;
+                }
+
+                buf.append(StringUtil.NEWLINE);
+                buf.append(i);
+                buf.append(": ");
+                PoolSubpage<?> s = head.next;
+                for (;;) {
+                    buf.append(s);
+                    s = s.next;
+                    if (s == head) {
+                        break;
+                    }
                 }
             }
         }
-        buf.append(StringUtil.NEWLINE);
-
-        return buf.toString();
     }
 
     static final class HeapArena extends PoolArena<byte[]> {
 
-        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                  int normalSizeClassShift, long maxRetainedBytes, long idleChunkTimeoutNanos) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize,
+                  normalSizeClassShift, maxRetainedBytes, idleChunkTimeoutNanos);
         }
 
         @Override
@@ -418,10 +788,19 @@ abstract class PoolArena<T> {
 
     static final class DirectArena extends PoolArena<ByteBuffer> {
 
+        private static final InternalLogger logger = InternalLoggerFactory.getInstance(DirectArena.class);
+
         private static final boolean HAS_UNSAFE = PlatformDependent.hasUnsafe();
 
-        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize) {
-            super(parent, pageSize, maxOrder, pageShifts, chunkSize);
+        // the directory in which the memory of the chunks is mapped, or null to use ByteBuffer.allocateDirect(...)
+        private final File chunkMappingDir;
+
+        DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder, int pageShifts, int chunkSize,
+                    int normalSizeClassShift, long maxRetainedBytes, long idleChunkTimeoutNanos,
+                    File chunkMappingDir) {
+            super(parent, pageSize, maxOrder, pageShifts, chunkSize,
+                  normalSizeClassShift, maxRetainedBytes, idleChunkTimeoutNanos);
+            this.chunkMappingDir = chunkMappingDir;
         }
 
         @Override
@@ -432,7 +811,45 @@ abstract class PoolArena<T> {
         @Override
         protected PoolChunk<ByteBuffer> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize) {
             return new PoolChunk<ByteBuffer>(
-                    this, ByteBuffer.allocateDirect(chunkSize), pageSize, maxOrder, pageShifts, chunkSize);
+                    this, allocateChunkMemory(chunkSize), pageSize, maxOrder, pageShifts, chunkSize);
+        }
+
+        private ByteBuffer allocateChunkMemory(int chunkSize) {
+            if (chunkMappingDir != null) {
+                try {
+                    return mapChunkMemory(chunkMappingDir, chunkSize);
+                } catch (IOException e) {
+                    logger.warn("Failed to map a chunk in {}, falling back to ByteBuffer.allocateDirect(...)",
+                            chunkMappingDir, e);
+                }
+            }
+            return ByteBuffer.allocateDirect(chunkSize);
+        }
+
+        /**
+         * Map the memory of a chunk from a file in the given directory. If the directory is on a {@code hugetlbfs}
+         * mount, the memory is backed by huge pages, and in contrast to {@link ByteBuffer#allocateDirect(int)} it is
+         * never zeroed upfront. The file is deleted right away, so the memory is given back to the OS once the
+         * mapping is released via {@link #destroyChunk(PoolChunk)}.
+         */
+        private static ByteBuffer mapChunkMemory(File dir, int chunkSize) throws IOException {
+            File file = File.createTempFile("netty-chunk-", ".tmp", dir);
+            try {
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(chunkSize);
+                    return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, chunkSize);
+                } finally {
+                    // The mapping stays valid after the channel is closed.
+                    raf.close();
+                }
+            } finally {
+                if (!file.delete()) {
+                    // Make sure the file does not outlive the JVM at least.
+                    file.deleteOnExit();
+                    logger.warn("Failed to delete the chunk file: {}", file);
+                }
+            }
         }
 
         @Override
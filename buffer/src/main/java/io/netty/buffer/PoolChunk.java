@@ -16,12 +16,15 @@
 
 package io.netty.buffer;
 
-final class PoolChunk<T> {
+final class PoolChunk<T> implements PoolChunkMetric {
     private static final int ST_UNUSED = 0;
     private static final int ST_BRANCH = 1;
     private static final int ST_ALLOCATED = 2;
     private static final int ST_ALLOCATED_SUBPAGE = 3;
 
+    // Set in the upper 32 bits of the handle of an allocation within a subpage, see PoolSubpage.toHandle(int).
+    private static final int SUBPAGE_HANDLE_FLAG = 0x40000000;
+
     final PoolArena<T> arena;
     final T memory;
     final boolean unpooled;
@@ -41,6 +44,8 @@ final class PoolChunk<T> {
     PoolChunkList<T> parent;
     PoolChunk<T> prev;
     PoolChunk<T> next;
+    // the time at which the chunk was not used anymore, guarded by the lock of the arena
+    long unusedSinceNanos;
 
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
@@ -54,6 +59,7 @@ final class PoolChunk<T> {
         this.chunkSize = chunkSize;
         subpageOverflowMask = ~(pageSize - 1);
         freeBytes = chunkSize;
+        unusedSinceNanos = System.nanoTime();
 
         int chunkSizeInPages = chunkSize >>> pageShifts;
         maxSubpageAllocs = 1 << maxOrder;
@@ -91,7 +97,16 @@ final class PoolChunk<T> {
         return new PoolSubpage[size];
     }
 
-    int usage() {
+    @Override
+    public int usage() {
+        final int freeBytes;
+        synchronized (arena) {
+            freeBytes = this.freeBytes;
+        }
+        return usage(freeBytes);
+    }
+
+    private int usage(int freeBytes) {
         if (freeBytes == 0) {
             return 100;
         }
@@ -106,12 +121,65 @@ final class PoolChunk<T> {
     long allocate(int normCapacity) {
         int firstVal = memoryMap[1];
         if ((normCapacity & subpageOverflowMask) != 0) { // >= pageSize
-            return allocateRun(normCapacity, 1, firstVal);
+            return allocateRun(normCapacity, firstVal);
         } else {
             return allocateSubpage(normCapacity, 1, firstVal);
         }
     }
 
+    /**
+     * Allocates a run of {@code normCapacity} bytes. The buddy tree only knows about runs whose size is a power of
+     * two, so if {@code normCapacity} is not a power of two the run of the next power of two is allocated and the
+     * pages at its end which are not needed are handed back to the tree right away. The number of pages of such a
+     * trimmed run is stored in the upper 32 bits of the handle, so it can be released again later.
+     */
+    private long allocateRun(int normCapacity, int firstVal) {
+        int runSize = Integer.highestOneBit(normCapacity);
+        if (runSize == normCapacity) {
+            return allocateRun(normCapacity, 1, firstVal);
+        }
+
+        runSize <<= 1;
+        long handle = allocateRun(runSize, 1, firstVal);
+        if (handle < 0) {
+            return handle;
+        }
+
+        int memoryMapIdx = (int) handle;
+        trimRun(memoryMapIdx, runSize, normCapacity);
+        freeBytes += runSize - normCapacity;
+        return (long) (normCapacity >>> pageShifts) << 32 | memoryMapIdx;
+    }
+
+    /**
+     * Splits the allocated run at {@code memoryMapIdx} so only its first {@code length} bytes stay allocated.
+     * The run is decomposed into the largest possible runs from left to right, which are marked as
+     * {@link #ST_ALLOCATED}, while the remaining right siblings become {@link #ST_UNUSED}.
+     */
+    private void trimRun(int memoryMapIdx, int runLength, int length) {
+        for (;;) {
+            int leftIdx = memoryMapIdx << 1;
+            int rightIdx = leftIdx ^ 1;
+
+            memoryMap[memoryMapIdx] = memoryMap[memoryMapIdx] & ~3 | ST_BRANCH;
+            runLength >>>= 1;
+            if (length < runLength) {
+                //noinspection PointlessBitwiseExpression
+                memoryMap[rightIdx] = memoryMap[rightIdx] & ~3 | ST_UNUSED;
+                memoryMapIdx = leftIdx;
+            } else {
+                memoryMap[leftIdx] = memoryMap[leftIdx] & ~3 | ST_ALLOCATED;
+                length -= runLength;
+                if (length == 0) {
+                    //noinspection PointlessBitwiseExpression
+                    memoryMap[rightIdx] = memoryMap[rightIdx] & ~3 | ST_UNUSED;
+                    return;
+                }
+                memoryMapIdx = rightIdx;
+            }
+        }
+    }
+
     private long allocateRun(int normCapacity, int curIdx, int val) {
         switch (val & 3) {
             case ST_UNUSED:
@@ -227,7 +295,9 @@ final class PoolChunk<T> {
                     return -1;
                 }
 
-                return subpage.allocate();
+                synchronized (arena.findSubpagePoolHead(elemSize)) {
+                    return subpage.allocate();
+                }
         }
 
         return -1;
@@ -242,13 +312,16 @@ final class PoolChunk<T> {
 
                 int subpageIdx = subpageIdx(curIdx);
                 PoolSubpage<T> subpage = subpages[subpageIdx];
-                if (subpage == null) {
-                    subpage = new PoolSubpage<T>(this, curIdx, runOffset(val), pageSize, normCapacity);
-                    subpages[subpageIdx] = subpage;
-                } else {
-                    subpage.init(normCapacity);
+                // The subpage is added to the pool, so it must be guarded by the lock of the pool.
+                synchronized (arena.findSubpagePoolHead(normCapacity)) {
+                    if (subpage == null) {
+                        subpage = new PoolSubpage<T>(this, curIdx, runOffset(val), pageSize, normCapacity);
+                        subpages[subpageIdx] = subpage;
+                    } else {
+                        subpage.init(normCapacity);
+                    }
+                    return subpage.allocate();
                 }
-                return subpage.allocate();
             }
 
             int nextIdx = curIdx << 1;
@@ -279,17 +352,53 @@ final class PoolChunk<T> {
         int val = memoryMap[memoryMapIdx];
         int state = val & 3;
         if (state == ST_ALLOCATED_SUBPAGE) {
-            assert bitmapIdx != 0;
+            assert (bitmapIdx & SUBPAGE_HANDLE_FLAG) != 0;
             PoolSubpage<T> subpage = subpages[subpageIdx(memoryMapIdx)];
             assert subpage != null && subpage.doNotDestroy;
-            if (subpage.free(bitmapIdx & 0x3FFFFFFF)) {
-                return;
+
+            // Obtain the lock of the pool as the subpage may be allocated from or added to / removed from the pool
+            // concurrently. The lock of the arena is held already, so the order of acquiring the locks is the same
+            // as on the allocation path.
+            synchronized (arena.findSubpagePoolHead(subpage.elemSize)) {
+                if (subpage.free(bitmapIdx & 0x3FFFFFFF)) {
+                    return;
+                }
             }
+        } else if (bitmapIdx != 0) {
+            // A trimmed run, see allocateRun(int, int).
+            assert state == ST_BRANCH : "state: " + state;
+            freeTrimmedRun(memoryMapIdx, runLength(val), bitmapIdx << pageShifts);
+            return;
         } else {
             assert state == ST_ALLOCATED : "state: " + state;
-            assert bitmapIdx == 0;
         }
 
+        freeRun(memoryMapIdx);
+    }
+
+    /**
+     * Releases the runs a trimmed run was decomposed into by {@link #trimRun(int, int, int)}. The runs are released
+     * from left to right, so the last one merges all of them back into the tree.
+     */
+    private void freeTrimmedRun(int memoryMapIdx, int runLength, int length) {
+        for (;;) {
+            int leftIdx = memoryMapIdx << 1;
+            runLength >>>= 1;
+            if (length < runLength) {
+                memoryMapIdx = leftIdx;
+            } else {
+                freeRun(leftIdx);
+                length -= runLength;
+                if (length == 0) {
+                    return;
+                }
+                memoryMapIdx = leftIdx ^ 1;
+            }
+        }
+    }
+
+    private void freeRun(int memoryMapIdx) {
+        int val = memoryMap[memoryMapIdx];
         freeBytes += runLength(val);
 
         for (;;) {
@@ -312,10 +421,18 @@ final class PoolChunk<T> {
     void initBuf(PooledByteBuf<T> buf, long handle, int reqCapacity) {
         int memoryMapIdx = (int) handle;
         int bitmapIdx = (int) (handle >>> 32);
-        if (bitmapIdx == 0) {
+        if ((bitmapIdx & SUBPAGE_HANDLE_FLAG) == 0) {
             int val = memoryMap[memoryMapIdx];
-            assert (val & 3) == ST_ALLOCATED : String.valueOf(val & 3);
-            buf.init(this, handle, runOffset(val), reqCapacity, runLength(val));
+            final int runLength;
+            if (bitmapIdx == 0) {
+                assert (val & 3) == ST_ALLOCATED : String.valueOf(val & 3);
+                runLength = runLength(val);
+            } else {
+                // A trimmed run which only covers the first pages of the node.
+                assert (val & 3) == ST_BRANCH : String.valueOf(val & 3);
+                runLength = bitmapIdx << pageShifts;
+            }
+            buf.init(this, handle, runOffset(val), reqCapacity, runLength);
         } else {
             initBufWithSubpage(buf, handle, bitmapIdx, reqCapacity);
         }
@@ -361,12 +478,30 @@ final class PoolChunk<T> {
         return memoryMapIdx - maxSubpageAllocs;
     }
 
+    @Override
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public int freeBytes() {
+        synchronized (arena) {
+            return freeBytes;
+        }
+    }
+
+    @Override
     public String toString() {
+        final int freeBytes;
+        synchronized (arena) {
+            freeBytes = this.freeBytes;
+        }
+
         StringBuilder buf = new StringBuilder();
         buf.append("Chunk(");
         buf.append(Integer.toHexString(System.identityHashCode(this)));
         buf.append(": ");
-        buf.append(usage());
+        buf.append(usage(freeBytes));
         buf.append("%, ");
         buf.append(chunkSize - freeBytes);
         buf.append('/');
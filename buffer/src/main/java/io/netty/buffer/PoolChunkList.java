@@ -18,7 +18,12 @@ package io.netty.buffer;
 
 import io.netty.util.internal.StringUtil;
 
-final class PoolChunkList<T> {
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+final class PoolChunkList<T> implements PoolChunkListMetric {
     private final PoolArena<T> arena;
     private final PoolChunkList<T> nextList;
     PoolChunkList<T> prevList;
@@ -61,17 +66,41 @@ final class PoolChunkList<T> {
         }
     }
 
-    void free(PoolChunk<T> chunk, long handle) {
+    /**
+     * Free the given {@code handle} of the {@link PoolChunk}. Returns {@code false} if the chunk was destroyed as
+     * a result, {@code true} otherwise.
+     */
+    boolean free(PoolChunk<T> chunk, long handle) {
         chunk.free(handle);
         if (chunk.usage() < minUsage) {
             remove(chunk);
             if (prevList == null) {
                 assert chunk.usage() == 0;
-                arena.destroyChunk(chunk);
+                arena.destroyPooledChunk(chunk);
+                return false;
             } else {
                 prevList.add(chunk);
             }
         }
+        return true;
+    }
+
+    /**
+     * Destroy all chunks of this list which are not used and were not used for at least {@code idleTimeoutNanos}.
+     * Returns the number of destroyed chunks.
+     */
+    int destroyUnusedChunks(long currentTimeNanos, long idleTimeoutNanos) {
+        int destroyed = 0;
+        for (PoolChunk<T> cur = head; cur != null;) {
+            PoolChunk<T> next = cur.next;
+            if (cur.usage() == 0 && currentTimeNanos - cur.unusedSinceNanos >= idleTimeoutNanos) {
+                remove(cur);
+                arena.destroyPooledChunk(cur);
+                destroyed ++;
+            }
+            cur = next;
+        }
+        return destroyed;
     }
 
     void add(PoolChunk<T> chunk) {
@@ -93,7 +122,7 @@ final class PoolChunkList<T> {
         }
     }
 
-    private void remove(PoolChunk<T> cur) {
+    void remove(PoolChunk<T> cur) {
         if (cur == head) {
             head = cur.next;
             if (head != null) {
@@ -108,6 +137,28 @@ final class PoolChunkList<T> {
         }
     }
 
+    @Override
+    public int minUsage() {
+        return Math.max(0, minUsage);
+    }
+
+    @Override
+    public int maxUsage() {
+        return Math.min(100, maxUsage);
+    }
+
+    @Override
+    public Iterator<PoolChunkMetric> iterator() {
+        // Take a snapshot of the chunks as they may be moved between the lists while iterating.
+        List<PoolChunkMetric> metrics = new ArrayList<PoolChunkMetric>();
+        synchronized (arena) {
+            for (PoolChunk<T> cur = head; cur != null; cur = cur.next) {
+                metrics.add(cur);
+            }
+        }
+        return Collections.unmodifiableList(metrics).iterator();
+    }
+
     @Override
     public String toString() {
         if (head == null) {
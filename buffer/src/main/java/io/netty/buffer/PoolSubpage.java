@@ -16,7 +16,7 @@
 
 package io.netty.buffer;
 
-final class PoolSubpage<T> {
+final class PoolSubpage<T> implements PoolSubpageMetric {
 
     final PoolChunk<T> chunk;
     private final int memoryMapIdx;
@@ -210,4 +210,34 @@ final class PoolSubpage<T> {
         return String.valueOf('(') + memoryMapIdx + ": " + (maxNumElems - numAvail) + '/' + maxNumElems +
                ", offset: " + runOffset + ", length: " + pageSize + ", elemSize: " + elemSize + ')';
     }
+
+    @Override
+    public int maxNumElements() {
+        synchronized (poolHead()) {
+            return maxNumElems;
+        }
+    }
+
+    @Override
+    public int numAvailable() {
+        synchronized (poolHead()) {
+            return numAvail;
+        }
+    }
+
+    @Override
+    public int elementSize() {
+        synchronized (poolHead()) {
+            return elemSize;
+        }
+    }
+
+    @Override
+    public int pageSize() {
+        return pageSize;
+    }
+
+    private PoolSubpage<T> poolHead() {
+        return chunk.arena.findSubpagePoolHead(elemSize);
+    }
 }
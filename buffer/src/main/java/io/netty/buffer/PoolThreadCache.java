@@ -17,15 +17,26 @@
 package io.netty.buffer;
 
 
+import io.netty.buffer.PoolArena.SizeClass;
+import io.netty.util.Recycler;
+import io.netty.util.Recycler.Handle;
+import io.netty.util.internal.PlatformDependent;
+
 import java.nio.ByteBuffer;
+import java.util.Queue;
 
 /**
  * Acts a Thread cache for allocations. This implementation is moduled after
  * <a href="http://people.freebsd.org/~jasone/jemalloc/bsdcan2006/jemalloc.pdf">jemalloc</a> and the descripted
  * technics of <a href="https://www.facebook.com/notes/facebook-engineering/scalable-memory-allocation-using-jemalloc/
  * 480222803919">Scalable memory allocation using jemalloc</a>.
+ * <p>
+ * Memory which is released by another thread than the one which allocated it is handed back to the cache of the
+ * allocating thread via a lock-free queue, which is drained by the allocating thread on its next allocation.
  */
 final class PoolThreadCache {
+    // the thread which owns this cache
+    final Thread thread = Thread.currentThread();
     final PoolArena<byte[]> heapArena;
     final PoolArena<ByteBuffer> directArena;
 
@@ -37,19 +48,21 @@ final class PoolThreadCache {
     private final MemoryRegionCache<byte[]>[] normalHeapCaches;
     private final MemoryRegionCache<ByteBuffer>[] normalDirectCaches;
 
-    // Used for bitshifting when calculate the index of normal caches later
-    private final int numShiftsNormalDirect;
-    private final int numShiftsNormalHeap;
     private final int freeSweepAllocationThreshold;
 
     private int allocations;
 
+    // Memory released by other threads, null if disabled.
+    private final Queue<RemoteFree> remoteFrees;
+    // Set once the owning thread is dead and so will not drain the remoteFrees anymore.
+    private volatile boolean freed;
+
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
     PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
                     int tinyCacheSize, int smallCacheSize, int normalCacheSize,
-                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold) {
+                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold, int remoteFreeQueueSize) {
         if (maxCachedBufferCapacity < 0) {
             throw new IllegalArgumentException("maxCachedBufferCapacity: "
                     + maxCachedBufferCapacity + " (expected: >= 0)");
@@ -58,47 +71,58 @@ final class PoolThreadCache {
             throw new IllegalArgumentException("freeSweepAllocationThreshold: "
                     + maxCachedBufferCapacity + " (expected: > 0)");
         }
+        if (remoteFreeQueueSize < 0) {
+            throw new IllegalArgumentException("remoteFreeQueueSize: "
+                    + remoteFreeQueueSize + " (expected: >= 0)");
+        }
         this.freeSweepAllocationThreshold = freeSweepAllocationThreshold;
+        remoteFrees = remoteFreeQueueSize > 0 ? PlatformDependent.<RemoteFree>newFixedMpscQueue(remoteFreeQueueSize)
+                                              : null;
         this.heapArena = heapArena;
         this.directArena = directArena;
         if (directArena != null) {
-            tinySubPageDirectCaches = createSubPageCaches(tinyCacheSize, PoolArena.numTinySubpagePools);
-            smallSubPageDirectCaches = createSubPageCaches(smallCacheSize, directArena.numSmallSubpagePools);
+            tinySubPageDirectCaches = createSubPageCaches(
+                    tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
+            smallSubPageDirectCaches = createSubPageCaches(
+                    smallCacheSize, directArena.numSmallSubpagePools, SizeClass.Small);
 
-            numShiftsNormalDirect = log2(directArena.pageSize);
             normalDirectCaches = createNormalCaches(
                     normalCacheSize, maxCachedBufferCapacity, directArena);
+
+            directArena.numThreadCaches.getAndIncrement();
         } else {
             // No directArea is configured so just null out all caches
             tinySubPageDirectCaches = null;
             smallSubPageDirectCaches = null;
             normalDirectCaches = null;
-            numShiftsNormalDirect = -1;
         }
         if (heapArena != null) {
             // Create the caches for the heap allocations
-            tinySubPageHeapCaches = createSubPageCaches(tinyCacheSize, PoolArena.numTinySubpagePools);
-            smallSubPageHeapCaches = createSubPageCaches(smallCacheSize, heapArena.numSmallSubpagePools);
+            tinySubPageHeapCaches = createSubPageCaches(
+                    tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
+            smallSubPageHeapCaches = createSubPageCaches(
+                    smallCacheSize, heapArena.numSmallSubpagePools, SizeClass.Small);
 
-            numShiftsNormalHeap = log2(heapArena.pageSize);
             normalHeapCaches = createNormalCaches(
                     normalCacheSize, maxCachedBufferCapacity, heapArena);
+
+            heapArena.numThreadCaches.getAndIncrement();
         } else {
             // No heapArea is configured so just null out all caches
             tinySubPageHeapCaches = null;
             smallSubPageHeapCaches = null;
             normalHeapCaches = null;
-            numShiftsNormalHeap = -1;
         }
     }
 
-    private static <T> SubPageMemoryRegionCache<T>[] createSubPageCaches(int cacheSize, int numCaches) {
+    private static <T> SubPageMemoryRegionCache<T>[] createSubPageCaches(
+            int cacheSize, int numCaches, SizeClass sizeClass) {
         if (cacheSize > 0) {
             @SuppressWarnings("unchecked")
             SubPageMemoryRegionCache<T>[] cache = new SubPageMemoryRegionCache[numCaches];
             for (int i = 0; i < cache.length; i++) {
                 // TODO: maybe use cacheSize / cache.length
-                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize);
+                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize, sizeClass);
             }
             return cache;
         } else {
@@ -109,8 +133,7 @@ final class PoolThreadCache {
     private static <T> NormalMemoryRegionCache<T>[] createNormalCaches(
             int cacheSize, int maxCachedBufferCapacity, PoolArena<T> area) {
         if (cacheSize > 0) {
-            int max = Math.min(area.chunkSize, maxCachedBufferCapacity);
-            int arraySize = Math.max(1, max / area.pageSize);
+            int arraySize = Math.max(1, area.numNormalSizeClasses(maxCachedBufferCapacity));
 
             @SuppressWarnings("unchecked")
             NormalMemoryRegionCache<T>[] cache = new NormalMemoryRegionCache[arraySize];
@@ -123,15 +146,6 @@ final class PoolThreadCache {
         }
     }
 
-    private static int log2(int val) {
-        int res = 0;
-        while (val > 1) {
-            val >>= 1;
-            res++;
-        }
-        return res;
-    }
-
     /**
      * Try to allocate a tiny buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
@@ -173,32 +187,106 @@ final class PoolThreadCache {
      */
     @SuppressWarnings({ "unchecked", "rawtypes" })
     boolean add(PoolArena<?> area, PoolChunk chunk, long handle, int normCapacity) {
-        MemoryRegionCache<?> cache;
+        MemoryRegionCache<?> cache = cacheFor(area, normCapacity);
+        if (cache == null) {
+            return false;
+        }
+        return cache.add(chunk, handle);
+    }
+
+    private MemoryRegionCache<?> cacheFor(PoolArena<?> area, int normCapacity) {
         if (area.isTinyOrSmall(normCapacity)) {
             if (PoolArena.isTiny(normCapacity)) {
-                cache = cacheForTiny(area, normCapacity);
-            } else {
-                cache = cacheForSmall(area, normCapacity);
+                return cacheForTiny(area, normCapacity);
             }
-        } else {
-            cache = cacheForNormal(area, normCapacity);
+            return cacheForSmall(area, normCapacity);
         }
-        if (cache == null) {
+        return cacheForNormal(area, normCapacity);
+    }
+
+    /**
+     * Add {@link PoolChunk} and {@code handle} which were released by another thread than the owner of this cache.
+     * They are queued until the owner drains them via {@link #drainRemoteFrees()}. Returns {@code true} if queued,
+     * {@code false} otherwise, in which case the caller needs to release the memory to the arena itself.
+     * <p>
+     * Sizes which the owner would never cache are not queued, as this would only pin the memory until the owner
+     * allocates again.
+     */
+    @SuppressWarnings("rawtypes")
+    boolean addFromOtherThread(PoolArena<?> area, PoolChunk chunk, long handle, int normCapacity) {
+        if (remoteFrees == null || freed || cacheFor(area, normCapacity) == null) {
             return false;
         }
-        return cache.add(chunk, handle);
+        RemoteFree entry = RemoteFree.newInstance(area, chunk, handle, normCapacity);
+        if (!remoteFrees.offer(entry)) {
+            // queue is full
+            entry.recycle();
+            return false;
+        }
+        // The owning thread may have died after we checked, so make sure the entry is not lost. Either we remove
+        // it here or it was already drained by free().
+        if (freed && remoteFrees.remove(entry)) {
+            entry.recycle();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Take back the memory which was released by other threads. Must only be called by the owning thread.
+     */
+    void drainRemoteFrees() {
+        if (remoteFrees == null) {
+            return;
+        }
+        for (;;) {
+            RemoteFree entry = remoteFrees.poll();
+            if (entry == null) {
+                return;
+            }
+            if (!add(entry.arena, entry.chunk, entry.handle, entry.normCapacity)) {
+                entry.release();
+            }
+            entry.recycle();
+        }
     }
 
     /**
      *  Should be called if the Thread that uses this cache is about to exist to release resources out of the cache
      */
     int free() {
-        return free(tinySubPageDirectCaches) +
+        freed = true;
+        int numFreed = freeRemoteFrees() +
+                free(tinySubPageDirectCaches) +
                 free(smallSubPageDirectCaches) +
                 free(normalDirectCaches) +
                 free(tinySubPageHeapCaches) +
                 free(smallSubPageHeapCaches) +
                 free(normalHeapCaches);
+
+        if (directArena != null) {
+            directArena.numThreadCaches.getAndDecrement();
+        }
+        if (heapArena != null) {
+            heapArena.numThreadCaches.getAndDecrement();
+        }
+        return numFreed;
+    }
+
+    private int freeRemoteFrees() {
+        if (remoteFrees == null) {
+            return 0;
+        }
+        int numFreed = 0;
+        for (;;) {
+            RemoteFree entry = remoteFrees.poll();
+            if (entry == null) {
+                return numFreed;
+            }
+            entry.release();
+            entry.recycle();
+            numFreed ++;
+        }
     }
 
     private static int free(MemoryRegionCache<?>[] caches) {
@@ -262,11 +350,10 @@ final class PoolThreadCache {
     }
 
     private MemoryRegionCache<?> cacheForNormal(PoolArena<?> area, int normCapacity) {
+        int idx = area.normalIdx(normCapacity);
         if (area.isDirect()) {
-            int idx = log2(normCapacity >> numShiftsNormalDirect);
             return cache(normalDirectCaches, idx);
         }
-        int idx = log2(normCapacity >> numShiftsNormalHeap);
         return cache(normalHeapCaches, idx);
     }
 
@@ -281,8 +368,8 @@ final class PoolThreadCache {
      * Cache used for buffers which are backed by TINY or SMALL size.
      */
     private static final class SubPageMemoryRegionCache<T> extends MemoryRegionCache<T> {
-        SubPageMemoryRegionCache(int size) {
-            super(size);
+        SubPageMemoryRegionCache(int size, SizeClass sizeClass) {
+            super(size, sizeClass);
         }
 
         @Override
@@ -297,7 +384,7 @@ final class PoolThreadCache {
      */
     private static final class NormalMemoryRegionCache<T> extends MemoryRegionCache<T> {
         NormalMemoryRegionCache(int size) {
-            super(size);
+            super(size, SizeClass.Normal);
         }
 
         @Override
@@ -313,18 +400,20 @@ final class PoolThreadCache {
     private abstract static class MemoryRegionCache<T> {
         private final Entry<T>[] entries;
         private final int maxUnusedCached;
+        private final SizeClass sizeClass;
         private int head;
         private int tail;
         private int maxEntriesInUse;
         private int entriesInUse;
 
         @SuppressWarnings("unchecked")
-        MemoryRegionCache(int size) {
+        MemoryRegionCache(int size, SizeClass sizeClass) {
             entries = new Entry[powerOfTwo(size)];
             for (int i = 0; i < entries.length; i++) {
                 entries[i] = new Entry<T>();
             }
             maxUnusedCached = size / 2;
+            this.sizeClass = sizeClass;
         }
 
         private static int powerOfTwo(int res) {
@@ -423,16 +512,13 @@ final class PoolThreadCache {
             }
         }
 
-        @SuppressWarnings({ "unchecked", "rawtypes" })
-        private static boolean freeEntry(Entry entry) {
-            PoolChunk chunk = entry.chunk;
+        private boolean freeEntry(Entry<T> entry) {
+            PoolChunk<T> chunk = entry.chunk;
             if (chunk == null) {
                 return false;
             }
-            // need to synchronize on the area from which it was allocated before.
-            synchronized (chunk.arena) {
-                chunk.parent.free(chunk, entry.handle);
-            }
+            // need to free it via the area from which it was allocated before.
+            chunk.arena.freeChunk(chunk, entry.handle, sizeClass);
             entry.chunk = null;
             return true;
         }
@@ -454,4 +540,48 @@ final class PoolThreadCache {
             long handle;
         }
     }
+
+    /**
+     * Memory released by another thread than the owner of the cache. Instances are recycled once the owner took
+     * them out of the queue again.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static final class RemoteFree {
+        private static final Recycler<RemoteFree> RECYCLER = new Recycler<RemoteFree>() {
+            @Override
+            protected RemoteFree newObject(Handle<RemoteFree> handle) {
+                return new RemoteFree(handle);
+            }
+        };
+
+        static RemoteFree newInstance(PoolArena<?> arena, PoolChunk chunk, long handle, int normCapacity) {
+            RemoteFree entry = RECYCLER.get();
+            entry.arena = arena;
+            entry.chunk = chunk;
+            entry.handle = handle;
+            entry.normCapacity = normCapacity;
+            return entry;
+        }
+
+        private final Handle<RemoteFree> recyclerHandle;
+        PoolArena arena;
+        PoolChunk chunk;
+        long handle;
+        int normCapacity;
+
+        private RemoteFree(Handle<RemoteFree> recyclerHandle) {
+            this.recyclerHandle = recyclerHandle;
+        }
+
+        void release() {
+            arena.freeChunk(chunk, handle, arena.sizeClass(normCapacity));
+        }
+
+        void recycle() {
+            arena = null;
+            chunk = null;
+            handle = -1;
+            recyclerHandle.recycle(this);
+        }
+    }
 }
@@ -32,6 +32,8 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
     protected int offset;
     protected int length;
     int maxLength;
+    // the cache of the thread which allocated this buffer
+    PoolThreadCache cache;
 
     private ByteBuffer tmpNioBuf;
 
@@ -81,6 +83,13 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
             if (newCapacity == length) {
                 return this;
             }
+            // Huge buffers do not belong to any size class, so shrink in place while at least half of the memory
+            // is still used instead of allocating and copying a new huge chunk.
+            if (newCapacity <= maxLength && newCapacity > maxLength >>> 1) {
+                length = newCapacity;
+                setIndex(Math.min(readerIndex(), newCapacity), Math.min(writerIndex(), newCapacity));
+                return this;
+            }
         } else {
             if (newCapacity > length) {
                 if (newCapacity <= maxLength) {
@@ -88,18 +97,12 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
                     return this;
                 }
             } else if (newCapacity < length) {
-                if (newCapacity > maxLength >>> 1) {
-                    if (maxLength <= 512) {
-                        if (newCapacity > maxLength - 16) {
-                            length = newCapacity;
-                            setIndex(Math.min(readerIndex(), newCapacity), Math.min(writerIndex(), newCapacity));
-                            return this;
-                        }
-                    } else { // > 512 (i.e. >= 1024)
-                        length = newCapacity;
-                        setIndex(Math.min(readerIndex(), newCapacity), Math.min(writerIndex(), newCapacity));
-                        return this;
-                    }
+                // Only shrink in place if the new capacity still belongs to the same size class, otherwise the
+                // memory is better handed over to a smaller one.
+                if (chunk.arena.normalizeCapacity(newCapacity) == maxLength) {
+                    length = newCapacity;
+                    setIndex(Math.min(readerIndex(), newCapacity), Math.min(writerIndex(), newCapacity));
+                    return this;
                 }
             } else {
                 return this;
@@ -142,7 +145,8 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
             final long handle = this.handle;
             this.handle = -1;
             memory = null;
-            chunk.arena.free(chunk, handle, maxLength);
+            chunk.arena.free(chunk, handle, maxLength, cache);
+            cache = null;
             recycle();
         }
     }
@@ -22,7 +22,12 @@ import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.io.File;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class PooledByteBufAllocator extends AbstractByteBufAllocator {
@@ -34,11 +39,16 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     private static final int DEFAULT_PAGE_SIZE;
     private static final int DEFAULT_MAX_ORDER; // 8192 << 11 = 16 MiB per chunk
+    private static final int DEFAULT_NORMAL_SIZE_CLASSES_PER_DOUBLING;
     private static final int DEFAULT_TINY_CACHE_SIZE;
     private static final int DEFAULT_SMALL_CACHE_SIZE;
     private static final int DEFAULT_NORMAL_CACHE_SIZE;
     private static final int DEFAULT_MAX_CACHED_BUFFER_CAPACITY;
     private static final int DEFAULT_CACHE_TRIM_INTERVAL;
+    private static final int DEFAULT_REMOTE_FREE_QUEUE_SIZE;
+    private static final long DEFAULT_MAX_RETAINED_BYTES_PER_ARENA;
+    private static final long DEFAULT_IDLE_CHUNK_TIMEOUT_MILLIS;
+    private static final File DEFAULT_DIRECT_CHUNK_MAPPING_DIR;
 
     private static final int MIN_PAGE_SIZE = 4096;
     private static final int MAX_CHUNK_SIZE = (int) (((long) Integer.MAX_VALUE + 1) / 2);
@@ -64,6 +74,19 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         }
         DEFAULT_MAX_ORDER = defaultMaxOrder;
 
+        // the number of size classes between two powers of two for capacities larger than the page size,
+        // 1 rounds such capacities up to the next power of two
+        int defaultNormalSizeClassesPerDoubling =
+                SystemPropertyUtil.getInt("io.netty.allocator.normalSizeClassesPerDoubling", 4);
+        Throwable normalSizeClassesPerDoublingFallbackCause = null;
+        try {
+            validateAndCalculateNormalSizeClassShift(defaultNormalSizeClassesPerDoubling);
+        } catch (Throwable t) {
+            normalSizeClassesPerDoublingFallbackCause = t;
+            defaultNormalSizeClassesPerDoubling = 4;
+        }
+        DEFAULT_NORMAL_SIZE_CLASSES_PER_DOUBLING = defaultNormalSizeClassesPerDoubling;
+
         // Determine reasonable default for nHeapArena and nDirectArena.
         // Assuming each arena has 3 chunks, the pool should not consume more than 50% of max memory.
         final Runtime runtime = Runtime.getRuntime();
@@ -95,6 +118,26 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         DEFAULT_CACHE_TRIM_INTERVAL = SystemPropertyUtil.getInt(
                 "io.netty.allocator.cacheTrimInterval", 8192);
 
+        // the number of buffers released by other threads which are queued until the allocating thread takes them
+        // back into its cache, 0 releases them to the arena right away
+        DEFAULT_REMOTE_FREE_QUEUE_SIZE = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.allocator.remoteFreeQueueSize", 1024));
+
+        // the number of bytes of chunks an arena may hold before it releases chunks as soon as they are not used
+        // anymore, by default there is no limit
+        DEFAULT_MAX_RETAINED_BYTES_PER_ARENA = Math.max(0, SystemPropertyUtil.getLong(
+                "io.netty.allocator.maxRetainedBytesPerArena", Long.MAX_VALUE));
+
+        // the time after which chunks that are not used anymore are released, 0 disables the release of idle chunks
+        DEFAULT_IDLE_CHUNK_TIMEOUT_MILLIS = Math.max(0, SystemPropertyUtil.getLong(
+                "io.netty.allocator.idleChunkTimeoutMillis", 0));
+
+        // the directory in which the memory of the chunks of the direct arenas is mapped instead of using
+        // ByteBuffer.allocateDirect(...), like a hugetlbfs mount to back the chunks by huge pages or /dev/shm.
+        // Be aware that mapped memory is not limited by -XX:MaxDirectMemorySize.
+        String directChunkMappingDir = SystemPropertyUtil.get("io.netty.allocator.directChunkMappingDir");
+        DEFAULT_DIRECT_CHUNK_MAPPING_DIR = directChunkMappingDir == null ? null : new File(directChunkMappingDir);
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.allocator.numHeapArenas: {}", DEFAULT_NUM_HEAP_ARENA);
             logger.debug("-Dio.netty.allocator.numDirectArenas: {}", DEFAULT_NUM_DIRECT_ARENA);
@@ -109,11 +152,22 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
                 logger.debug("-Dio.netty.allocator.maxOrder: {}", DEFAULT_MAX_ORDER, maxOrderFallbackCause);
             }
             logger.debug("-Dio.netty.allocator.chunkSize: {}", DEFAULT_PAGE_SIZE << DEFAULT_MAX_ORDER);
+            if (normalSizeClassesPerDoublingFallbackCause == null) {
+                logger.debug("-Dio.netty.allocator.normalSizeClassesPerDoubling: {}",
+                        DEFAULT_NORMAL_SIZE_CLASSES_PER_DOUBLING);
+            } else {
+                logger.debug("-Dio.netty.allocator.normalSizeClassesPerDoubling: {}",
+                        DEFAULT_NORMAL_SIZE_CLASSES_PER_DOUBLING, normalSizeClassesPerDoublingFallbackCause);
+            }
             logger.debug("-Dio.netty.allocator.tinyCacheSize: {}", DEFAULT_TINY_CACHE_SIZE);
             logger.debug("-Dio.netty.allocator.smallCacheSize: {}", DEFAULT_SMALL_CACHE_SIZE);
             logger.debug("-Dio.netty.allocator.normalCacheSize: {}", DEFAULT_NORMAL_CACHE_SIZE);
             logger.debug("-Dio.netty.allocator.maxCachedBufferCapacity: {}", DEFAULT_MAX_CACHED_BUFFER_CAPACITY);
             logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
+            logger.debug("-Dio.netty.allocator.remoteFreeQueueSize: {}", DEFAULT_REMOTE_FREE_QUEUE_SIZE);
+            logger.debug("-Dio.netty.allocator.maxRetainedBytesPerArena: {}", DEFAULT_MAX_RETAINED_BYTES_PER_ARENA);
+            logger.debug("-Dio.netty.allocator.idleChunkTimeoutMillis: {}", DEFAULT_IDLE_CHUNK_TIMEOUT_MILLIS);
+            logger.debug("-Dio.netty.allocator.directChunkMappingDir: {}", DEFAULT_DIRECT_CHUNK_MAPPING_DIR);
         }
     }
 
@@ -125,6 +179,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private final int tinyCacheSize;
     private final int smallCacheSize;
     private final int normalCacheSize;
+    private final int chunkSize;
+    private final List<PoolArenaMetric> heapArenaMetrics;
+    private final List<PoolArenaMetric> directArenaMetrics;
 
     final PoolThreadLocalCache threadCache;
 
@@ -147,12 +204,63 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
                                   int tinyCacheSize, int smallCacheSize, int normalCacheSize) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize, normalCacheSize,
+                DEFAULT_MAX_RETAINED_BYTES_PER_ARENA, DEFAULT_IDLE_CHUNK_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxRetainedBytesPerArena  the number of bytes of chunks an arena may hold before chunks which are not
+     *                                  used anymore are released right away instead of being kept for later use
+     * @param idleChunkTimeoutMillis    the time in milliseconds after which a chunk which is not used anymore is
+     *                                  released, or {@code 0} to keep such chunks until {@link #trim()} is called.
+     *                                  Idle chunks are only looked for while an arena allocates and frees memory,
+     *                                  so {@link #trim()} still needs to be called to release them once the
+     *                                  allocator is not used at all anymore.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long maxRetainedBytesPerArena, long idleChunkTimeoutMillis) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize, normalCacheSize,
+                maxRetainedBytesPerArena, idleChunkTimeoutMillis, DEFAULT_NORMAL_SIZE_CLASSES_PER_DOUBLING);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param normalSizeClassesPerDoubling  the number of size classes between two powers of two for capacities
+     *                                      larger than {@code pageSize}, which must be a power of two. Capacities
+     *                                      are rounded up to the next size class, so more size classes waste less
+     *                                      memory. {@code 1} rounds up to the next power of two.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long maxRetainedBytesPerArena, long idleChunkTimeoutMillis,
+                                  int normalSizeClassesPerDoubling) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize, smallCacheSize, normalCacheSize,
+                maxRetainedBytesPerArena, idleChunkTimeoutMillis, normalSizeClassesPerDoubling,
+                DEFAULT_DIRECT_CHUNK_MAPPING_DIR);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directChunkMappingDir  the directory in which the memory of the chunks of the direct arenas is mapped,
+     *                               like a {@code hugetlbfs} mount to back the chunks by huge pages, or {@code null}
+     *                               to use {@link ByteBuffer#allocateDirect(int)}. Be aware that mapped memory is
+     *                               not limited by {@code -XX:MaxDirectMemorySize}.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  long maxRetainedBytesPerArena, long idleChunkTimeoutMillis,
+                                  int normalSizeClassesPerDoubling, File directChunkMappingDir) {
         super(preferDirect);
         threadCache = new PoolThreadLocalCache();
         this.tinyCacheSize = tinyCacheSize;
         this.smallCacheSize = smallCacheSize;
         this.normalCacheSize = normalCacheSize;
-        final int chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
+        chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
 
         if (nHeapArena < 0) {
             throw new IllegalArgumentException("nHeapArena: " + nHeapArena + " (expected: >= 0)");
@@ -161,24 +269,42 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             throw new IllegalArgumentException("nDirectArea: " + nDirectArena + " (expected: >= 0)");
         }
 
+        if (maxRetainedBytesPerArena < 0) {
+            throw new IllegalArgumentException(
+                    "maxRetainedBytesPerArena: " + maxRetainedBytesPerArena + " (expected: >= 0)");
+        }
+        if (idleChunkTimeoutMillis < 0) {
+            throw new IllegalArgumentException(
+                    "idleChunkTimeoutMillis: " + idleChunkTimeoutMillis + " (expected: >= 0)");
+        }
+
         int pageShifts = validateAndCalculatePageShifts(pageSize);
+        int normalSizeClassShift = validateAndCalculateNormalSizeClassShift(normalSizeClassesPerDoubling);
+        long idleChunkTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleChunkTimeoutMillis);
 
         if (nHeapArena > 0) {
             heapArenas = newArenaArray(nHeapArena);
             for (int i = 0; i < heapArenas.length; i ++) {
-                heapArenas[i] = new PoolArena.HeapArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                heapArenas[i] = new PoolArena.HeapArena(this, pageSize, maxOrder, pageShifts, chunkSize,
+                        normalSizeClassShift, maxRetainedBytesPerArena, idleChunkTimeoutNanos);
             }
+            heapArenaMetrics = Collections.unmodifiableList(Arrays.<PoolArenaMetric>asList(heapArenas));
         } else {
             heapArenas = null;
+            heapArenaMetrics = Collections.emptyList();
         }
 
         if (nDirectArena > 0) {
             directArenas = newArenaArray(nDirectArena);
             for (int i = 0; i < directArenas.length; i ++) {
-                directArenas[i] = new PoolArena.DirectArena(this, pageSize, maxOrder, pageShifts, chunkSize);
+                directArenas[i] = new PoolArena.DirectArena(this, pageSize, maxOrder, pageShifts, chunkSize,
+                        normalSizeClassShift, maxRetainedBytesPerArena, idleChunkTimeoutNanos,
+                        directChunkMappingDir);
             }
+            directArenaMetrics = Collections.unmodifiableList(Arrays.<PoolArenaMetric>asList(directArenas));
         } else {
             directArenas = null;
+            directArenaMetrics = Collections.emptyList();
         }
     }
 
@@ -200,6 +326,16 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(pageSize);
     }
 
+    private static int validateAndCalculateNormalSizeClassShift(int normalSizeClassesPerDoubling) {
+        if (normalSizeClassesPerDoubling <= 0 ||
+            (normalSizeClassesPerDoubling & normalSizeClassesPerDoubling - 1) != 0) {
+            throw new IllegalArgumentException("normalSizeClassesPerDoubling: " + normalSizeClassesPerDoubling +
+                    " (expected: power of 2)");
+        }
+
+        return Integer.numberOfTrailingZeros(normalSizeClassesPerDoubling);
+    }
+
     private static int validateAndCalculateChunkSize(int pageSize, int maxOrder) {
         if (maxOrder > 14) {
             throw new IllegalArgumentException("maxOrder: " + maxOrder + " (expected: 0-14)");
@@ -256,6 +392,85 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return directArenas != null;
     }
 
+    /**
+     * Return the number of heap arenas.
+     */
+    public int numHeapArenas() {
+        return heapArenaMetrics.size();
+    }
+
+    /**
+     * Return the number of direct arenas.
+     */
+    public int numDirectArenas() {
+        return directArenaMetrics.size();
+    }
+
+    /**
+     * Return an unmodifiable {@link List} of {@link PoolArenaMetric}s which provide metrics for the heap arenas.
+     */
+    public List<PoolArenaMetric> heapArenas() {
+        return heapArenaMetrics;
+    }
+
+    /**
+     * Return an unmodifiable {@link List} of {@link PoolArenaMetric}s which provide metrics for the direct arenas.
+     */
+    public List<PoolArenaMetric> directArenas() {
+        return directArenaMetrics;
+    }
+
+    /**
+     * Return the size of the tiny cache.
+     */
+    public int tinyCacheSize() {
+        return tinyCacheSize;
+    }
+
+    /**
+     * Return the size of the small cache.
+     */
+    public int smallCacheSize() {
+        return smallCacheSize;
+    }
+
+    /**
+     * Return the size of the normal cache.
+     */
+    public int normalCacheSize() {
+        return normalCacheSize;
+    }
+
+    /**
+     * Return the chunk size of the arenas.
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Release all chunks of all arenas which are not used anymore, regardless of the configured retention policy.
+     * Memory which is held by the thread-local caches is not affected, as it is still considered to be in use until
+     * the caches give it back to the arenas. Returns the number of bytes which were released.
+     * <p>
+     * This may be called periodically, for example via a scheduled task, to release idle chunks of an allocator
+     * which is not used anymore and so never hits the idle chunk timeout by itself.
+     */
+    public long trim() {
+        long released = 0;
+        if (heapArenas != null) {
+            for (PoolArena<byte[]> a: heapArenas) {
+                released += a.trim();
+            }
+        }
+        if (directArenas != null) {
+            for (PoolArena<ByteBuffer> a: directArenas) {
+                released += a.trim();
+            }
+        }
+        return released;
+    }
+
     final class PoolThreadLocalCache extends ThreadLocal<PoolThreadCache> {
         private final AtomicInteger index = new AtomicInteger();
 
@@ -279,7 +494,7 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
             final PoolThreadCache cache = new PoolThreadCache(
                     heapArena, directArena, tinyCacheSize, smallCacheSize, normalCacheSize,
-                    DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL);
+                    DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL, DEFAULT_REMOTE_FREE_QUEUE_SIZE);
 
             // The thread-local cache will keep a list of pooled buffers which must be returned to
             // the pool when the thread is not alive anymore.
@@ -813,4 +813,28 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
 
         cbuf.discardSomeReadBytes();
     }
+
+    @Test
+    public void testNoConsolidationWithMaxNumComponents() {
+        CompositeByteBuf cbuf = releaseLater(compositeBuffer(Integer.MAX_VALUE));
+        for (int i = 0; i < 4096; i ++) {
+            cbuf.addComponent(buffer(4).writeInt(i)).writerIndex(cbuf.writerIndex() + 4);
+        }
+        assertEquals(4096, cbuf.numComponents());
+
+        // Sequential and random access must both find the right component.
+        for (int i = 0; i < 4096; i ++) {
+            assertEquals(i, cbuf.readInt());
+        }
+        for (int i = 4095; i >= 0; i -= 7) {
+            assertEquals(i, cbuf.getInt(i * 4));
+            assertEquals(i, cbuf.toComponentIndex(i * 4 + 3));
+        }
+
+        ByteBuffer[] nioBuffers = cbuf.nioBuffers(2, 4096 * 4 - 4);
+        assertEquals(4096, nioBuffers.length);
+        assertEquals(2, nioBuffers[0].remaining());
+        assertEquals(2, nioBuffers[4095].remaining());
+        assertEquals(4096, cbuf.numComponents());
+    }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ByteBufUtilTest {
+
+    private final Random random = new Random(42);
+
+    private List<ByteBuf> newBuffers(byte[] data) {
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        buffers.add(Unpooled.wrappedBuffer(data));
+        buffers.add(Unpooled.wrappedBuffer(data).order(ByteOrder.LITTLE_ENDIAN));
+        buffers.add(Unpooled.directBuffer(data.length).writeBytes(data));
+        buffers.add(Unpooled.directBuffer(data.length).writeBytes(data).order(ByteOrder.LITTLE_ENDIAN));
+        // A slice at an odd offset, so the memory is not accessed at aligned addresses.
+        byte[] padded = new byte[data.length + 3];
+        System.arraycopy(data, 0, padded, 3, data.length);
+        buffers.add(Unpooled.wrappedBuffer(padded).slice(3, data.length));
+        int half = data.length / 2;
+        buffers.add(Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(data, 0, half),
+                Unpooled.directBuffer().writeBytes(data, half, data.length - half)));
+        return buffers;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < data.length; i ++) {
+            // Use a small alphabet, so there are matches.
+            data[i] = (byte) (random.nextInt(16) - 8);
+        }
+        return data;
+    }
+
+    @Test
+    public void testIndexOf() {
+        for (int length = 0; length < 70; length ++) {
+            byte[] data = randomBytes(length);
+            for (ByteBuf buffer: newBuffers(data)) {
+                for (int from = 0; from <= length; from ++) {
+                    for (int value = -9; value < 9; value ++) {
+                        assertEquals(naiveIndexOf(data, from, length, (byte) value),
+                                buffer.indexOf(from, length, (byte) value));
+                    }
+                }
+                buffer.release();
+            }
+        }
+    }
+
+    private static int naiveIndexOf(byte[] data, int fromIndex, int toIndex, byte value) {
+        for (int i = fromIndex; i < toIndex; i ++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testIndexOfNeedle() {
+        for (int i = 0; i < 1000; i ++) {
+            byte[] data = randomBytes(random.nextInt(100));
+            byte[] needle = randomBytes(1 + random.nextInt(3));
+            int expected = naiveIndexOf(data, needle);
+            for (ByteBuf haystack: newBuffers(data)) {
+                assertEquals(expected, ByteBufUtil.indexOf(haystack, Unpooled.wrappedBuffer(needle)));
+                haystack.release();
+            }
+        }
+
+        ByteBuf haystack = Unpooled.copiedBuffer(new byte[] { 1, 2, 3, 1, 2, 3, 4 });
+        haystack.readerIndex(1);
+        assertEquals(3, ByteBufUtil.indexOf(haystack, Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4 })));
+        assertEquals(1, ByteBufUtil.indexOf(haystack, Unpooled.EMPTY_BUFFER));
+        assertEquals(-1, ByteBufUtil.indexOf(haystack, Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4, 5 })));
+        // The indexes are not modified.
+        assertEquals(1, haystack.readerIndex());
+    }
+
+    private static int naiveIndexOf(byte[] haystack, byte[] needle) {
+        outer: for (int i = 0; i <= haystack.length - needle.length; i ++) {
+            for (int j = 0; j < needle.length; j ++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        for (int length = 0; length < 70; length ++) {
+            byte[] data = randomBytes(length);
+            int expectedHashCode = naiveHashCode(data);
+            List<ByteBuf> buffers = newBuffers(data);
+            for (ByteBuf a: buffers) {
+                assertEquals(expectedHashCode, ByteBufUtil.hashCode(a));
+                for (ByteBuf b: buffers) {
+                    assertTrue(ByteBufUtil.equals(a, b));
+                }
+            }
+
+            if (length > 0) {
+                byte[] other = data.clone();
+                other[random.nextInt(length)] ^= 1;
+                for (ByteBuf a: buffers) {
+                    for (ByteBuf b: newBuffers(other)) {
+                        assertFalse(ByteBufUtil.equals(a, b));
+                        b.release();
+                    }
+                }
+            }
+
+            for (ByteBuf a: buffers) {
+                a.release();
+            }
+        }
+    }
+
+    // The hash code as calculated before ByteBufUtil.hashCode(ByteBuf) read the buffer a long at a time.
+    private static int naiveHashCode(byte[] data) {
+        int hashCode = 1;
+        int i = 0;
+        for (; i + 4 <= data.length; i += 4) {
+            hashCode = 31 * hashCode + (data[i] << 24 | (data[i + 1] & 0xFF) << 16 |
+                                        (data[i + 2] & 0xFF) << 8 | data[i + 3] & 0xFF);
+        }
+        for (; i < data.length; i ++) {
+            hashCode = 31 * hashCode + data[i];
+        }
+        return hashCode == 0 ? 1 : hashCode;
+    }
+
+    @Test
+    public void testEqualsWithIndexes() {
+        ByteBuf a = Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+        ByteBuf b = Unpooled.wrappedBuffer(new byte[] { 0, 3, 4, 5, 6, 7, 8, 9, 10 });
+        assertTrue(ByteBufUtil.equals(a, 2, b, 1, 8));
+        assertFalse(ByteBufUtil.equals(a, 1, b, 1, 8));
+        // Out of the readable range.
+        assertFalse(ByteBufUtil.equals(a, 2, b, 1, 9));
+    }
+
+    @Test
+    public void testCompare() {
+        for (int i = 0; i < 1000; i ++) {
+            byte[] data = randomBytes(random.nextInt(40));
+            byte[] other = data.clone();
+            if (other.length > 0 && random.nextBoolean()) {
+                other[random.nextInt(other.length)] = (byte) random.nextInt();
+            }
+            if (random.nextBoolean()) {
+                other = randomBytes(random.nextInt(40));
+            }
+
+            ByteBuf a = Unpooled.wrappedBuffer(data);
+            ByteBuf b = Unpooled.directBuffer().writeBytes(other);
+            assertEquals(Integer.signum(naiveCompare(data, other)), Integer.signum(ByteBufUtil.compare(a, b)));
+            assertEquals(Integer.signum(naiveCompare(other, data)), Integer.signum(ByteBufUtil.compare(b, a)));
+            b.release();
+        }
+    }
+
+    private static int naiveCompare(byte[] a, byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i ++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+}
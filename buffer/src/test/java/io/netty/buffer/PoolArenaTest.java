@@ -19,17 +19,81 @@ package io.netty.buffer;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 
 public class PoolArenaTest {
 
     @Test
     public void testNormalizeCapacity() throws Exception {
-        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999);
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999, 2, Long.MAX_VALUE, 0, null);
         int[] reqCapacities = {0, 15, 510, 1024, 1023, 1025};
         int[] expectedResult = {0, 16, 512, 1024, 1024, 2048};
         for (int i = 0; i < reqCapacities.length; i ++) {
             Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
         }
     }
+
+    @Test
+    public void testNormalizeNormalCapacity() throws Exception {
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(
+                null, 8192, 11, 13, 8192 << 11, 2, Long.MAX_VALUE, 0, null);
+        int[] reqCapacities = {4097, 8192, 8193, 16385, 40000, 40961, 65537, 8192 << 11};
+        int[] expectedResult = {8192, 8192, 16384, 24576, 40960, 49152, 81920, 8192 << 11};
+        for (int i = 0; i < reqCapacities.length; i ++) {
+            Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
+        }
+
+        // With one size class per doubling capacities are rounded up to the next power of two.
+        arena = new PoolArena.DirectArena(null, 8192, 11, 13, 8192 << 11, 0, Long.MAX_VALUE, 0, null);
+        for (int reqCapacity: reqCapacities) {
+            int normCapacity = arena.normalizeCapacity(reqCapacity);
+            Assert.assertEquals(0, normCapacity & normCapacity - 1);
+            Assert.assertTrue(normCapacity >= reqCapacity);
+        }
+    }
+
+    @Test
+    public void testNormalIdx() throws Exception {
+        for (int shift = 0; shift <= 3; shift ++) {
+            int chunkSize = 8192 << 11;
+            PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(
+                    null, 8192, 11, 13, chunkSize, shift, Long.MAX_VALUE, 0, null);
+            // Every size class must get the next index.
+            int expectedIdx = 0;
+            int lastNormCapacity = 0;
+            for (int reqCapacity = 8192; reqCapacity <= chunkSize; reqCapacity += 8192) {
+                int normCapacity = arena.normalizeCapacity(reqCapacity);
+                if (normCapacity != lastNormCapacity) {
+                    Assert.assertEquals(expectedIdx ++, arena.normalIdx(normCapacity));
+                    lastNormCapacity = normCapacity;
+                }
+            }
+            Assert.assertEquals(expectedIdx, arena.numNormalSizeClasses(chunkSize));
+            Assert.assertEquals(expectedIdx - 1, arena.numNormalSizeClasses(chunkSize - 1));
+        }
+    }
+
+    @Test
+    public void testMappedDirectChunk() throws Exception {
+        File dir = File.createTempFile("netty-", "-chunks");
+        Assert.assertTrue(dir.delete());
+        Assert.assertTrue(dir.mkdir());
+        try {
+            int chunkSize = 8192 << 11;
+            PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(
+                    null, 8192, 11, 13, chunkSize, 2, Long.MAX_VALUE, 0, dir);
+            PoolChunk<ByteBuffer> chunk = arena.newChunk(8192, 11, 13, chunkSize);
+            Assert.assertTrue(chunk.memory.isDirect());
+            Assert.assertEquals(chunkSize, chunk.memory.capacity());
+            // The file is deleted once the chunk is mapped.
+            Assert.assertEquals(0, dir.list().length);
+
+            chunk.memory.putLong(chunkSize - 8, 42);
+            Assert.assertEquals(42, chunk.memory.getLong(chunkSize - 8));
+            arena.destroyChunk(chunk);
+        } finally {
+            dir.delete();
+        }
+    }
 }
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class PooledByteBufAllocatorTest {
+
+    private static final int PAGE_SIZE = 8192;
+    private static final int MAX_ORDER = 11;
+
+    @Test
+    public void testArenaMetricsNoCache() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0);
+        assertEquals(1, allocator.numHeapArenas());
+        assertEquals(0, allocator.numDirectArenas());
+        assertTrue(allocator.directArenas().isEmpty());
+
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        ByteBuf tiny = allocator.heapBuffer(16);
+        ByteBuf small = allocator.heapBuffer(1024);
+        ByteBuf normal = allocator.heapBuffer(PAGE_SIZE * 2);
+        ByteBuf huge = allocator.heapBuffer(allocator.chunkSize() + 1);
+
+        assertEquals(4, metric.numAllocations());
+        assertEquals(1, metric.numTinyAllocations());
+        assertEquals(1, metric.numSmallAllocations());
+        assertEquals(1, metric.numNormalAllocations());
+        assertEquals(1, metric.numHugeAllocations());
+        assertEquals(4, metric.numActiveAllocations());
+        assertEquals(0, metric.numDeallocations());
+        assertEquals(0, metric.numThreadCacheHits());
+        assertEquals(3, metric.numThreadCacheMisses());
+
+        assertTrue(tiny.release());
+        assertTrue(small.release());
+        assertTrue(normal.release());
+        assertTrue(huge.release());
+
+        assertEquals(4, metric.numDeallocations());
+        assertEquals(1, metric.numTinyDeallocations());
+        assertEquals(1, metric.numSmallDeallocations());
+        assertEquals(1, metric.numNormalDeallocations());
+        assertEquals(1, metric.numHugeDeallocations());
+        assertEquals(0, metric.numActiveAllocations());
+        assertEquals(0, metric.numActiveTinyAllocations());
+        assertEquals(0, metric.numActiveSmallAllocations());
+        assertEquals(0, metric.numActiveNormalAllocations());
+        assertEquals(0, metric.numActiveHugeAllocations());
+    }
+
+    @Test
+    public void testArenaMetricsCache() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, PAGE_SIZE, MAX_ORDER, 32, 32, 32);
+        PoolArenaMetric metric = allocator.directArenas().get(0);
+
+        assertTrue(allocator.directBuffer(PAGE_SIZE).release());
+        // Served out of the thread cache, so the arena is not touched at all.
+        ByteBuf buffer = allocator.directBuffer(PAGE_SIZE);
+
+        assertEquals(1, metric.numThreadCaches());
+        assertEquals(1, metric.numThreadCacheHits());
+        assertEquals(1, metric.numThreadCacheMisses());
+        assertEquals(1, metric.numNormalAllocations());
+        assertEquals(0, metric.numNormalDeallocations());
+        assertEquals(1, metric.numActiveNormalAllocations());
+
+        assertTrue(buffer.release());
+        assertEquals(1, metric.numActiveNormalAllocations());
+    }
+
+    @Test
+    public void testFreeFromOtherThreadReturnsToOwnerCache() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, PAGE_SIZE, MAX_ORDER, 32, 32, 32);
+        PoolArenaMetric metric = allocator.directArenas().get(0);
+
+        final ByteBuf buffer = allocator.directBuffer(PAGE_SIZE);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buffer.release();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // The memory was handed back to the allocating thread, so neither the arena nor a cache of the releasing
+        // thread was involved.
+        assertEquals(0, buffer.refCnt());
+        assertEquals(1, metric.numThreadCaches());
+        assertEquals(0, metric.numNormalDeallocations());
+
+        // The next allocation of the owning thread takes it back into its cache and reuses it.
+        ByteBuf buffer2 = allocator.directBuffer(PAGE_SIZE);
+        assertEquals(1, metric.numThreadCacheHits());
+        assertEquals(1, metric.numNormalAllocations());
+        assertTrue(buffer2.release());
+    }
+
+    @Test
+    public void testFreeFromOtherThreadOfUncachedSizeReturnsToArena() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, PAGE_SIZE, MAX_ORDER, 32, 32, 32);
+        PoolArenaMetric metric = allocator.directArenas().get(0);
+
+        // Larger than maxCachedBufferCapacity, so the owning thread would never cache it.
+        final ByteBuf buffer = allocator.directBuffer(allocator.chunkSize() / 2);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buffer.release();
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertEquals(0, buffer.refCnt());
+        assertEquals(1, metric.numNormalDeallocations());
+        assertEquals(0, metric.numActiveNormalAllocations());
+    }
+
+    @Test(timeout = 60000)
+    public void testConcurrentSubpageAllocation() throws Exception {
+        // Disable the caches so all threads contend for the subpage pools and the chunks of the arena.
+        final PooledByteBufAllocator allocator =
+                new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0);
+        final int[] sizes = { 16, 32, 496, 512, 1024, 4096, PAGE_SIZE };
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i ++) {
+            final byte value = (byte) i;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        ByteBuf[] buffers = new ByteBuf[64];
+                        for (int n = 0; n < 20000; n ++) {
+                            int idx = n & buffers.length - 1;
+                            ByteBuf buf = buffers[idx];
+                            if (buf != null) {
+                                // Make sure no other thread was handed out the same memory in the meantime.
+                                for (int j = 0; j < buf.capacity(); j ++) {
+                                    assertEquals(value, buf.getByte(j));
+                                }
+                                assertTrue(buf.release());
+                            }
+                            buf = allocator.heapBuffer(sizes[n % sizes.length]);
+                            buf.writerIndex(buf.capacity());
+                            for (int j = 0; j < buf.capacity(); j ++) {
+                                buf.setByte(j, value);
+                            }
+                            buffers[idx] = buf;
+                        }
+                        for (ByteBuf buf: buffers) {
+                            assertTrue(buf.release());
+                        }
+                    } catch (Throwable t) {
+                        cause.compareAndSet(null, t);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        if (cause.get() != null) {
+            throw new AssertionError(cause.get());
+        }
+
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        assertEquals(0, metric.numActiveAllocations());
+        assertEquals(metric.numAllocations(), metric.numDeallocations());
+    }
+
+    @Test
+    public void testTrim() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        assertTrue(allocator.heapBuffer(PAGE_SIZE).release());
+        // The chunk is kept for later use by default.
+        assertEquals(1, numChunks(metric));
+
+        assertEquals(allocator.chunkSize(), allocator.trim());
+        assertEquals(0, numChunks(metric));
+        assertEquals(0, allocator.trim());
+
+        // The arena is still usable after all its chunks were released.
+        assertTrue(allocator.heapBuffer(PAGE_SIZE).release());
+        assertEquals(1, numChunks(metric));
+    }
+
+    @Test
+    public void testTrimKeepsUsedChunks() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        ByteBuf buffer = allocator.heapBuffer(PAGE_SIZE);
+        assertEquals(0, allocator.trim());
+        assertEquals(1, numChunks(metric));
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testMaxRetainedBytesPerArena() {
+        int chunkSize = PAGE_SIZE << MAX_ORDER;
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, chunkSize, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        ByteBuf buffer = allocator.heapBuffer(chunkSize);
+        ByteBuf buffer2 = allocator.heapBuffer(chunkSize);
+        assertEquals(2, numChunks(metric));
+
+        // The arena holds more than the maximum, so the chunk is released right away.
+        assertTrue(buffer.release());
+        assertEquals(1, numChunks(metric));
+
+        // The last chunk is within the limit and so is retained.
+        assertTrue(buffer2.release());
+        assertEquals(1, numChunks(metric));
+    }
+
+    @Test
+    public void testIdleChunkTimeout() throws Exception {
+        int chunkSize = PAGE_SIZE << MAX_ORDER;
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, Long.MAX_VALUE, 1);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        ByteBuf buffer = allocator.heapBuffer(chunkSize);
+        ByteBuf buffer2 = allocator.heapBuffer(chunkSize);
+        assertTrue(buffer.release());
+        assertEquals(2, numChunks(metric));
+
+        Thread.sleep(10);
+
+        // The first chunk is idle for longer than the timeout now and so is released once the arena is used again,
+        // while the chunk which just became unused is retained.
+        assertTrue(buffer2.release());
+        assertEquals(1, numChunks(metric));
+    }
+
+    @Test
+    public void testDirectChunkMappingDir() throws Exception {
+        File dir = File.createTempFile("netty-", "-chunks");
+        assertTrue(dir.delete());
+        assertTrue(dir.mkdir());
+        try {
+            PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                    true, 0, 1, PAGE_SIZE, MAX_ORDER, 0, 0, 0, Long.MAX_VALUE, 0, 4, dir);
+            ByteBuf buffer = allocator.directBuffer(PAGE_SIZE);
+            buffer.writeLong(42);
+            assertEquals(42, buffer.readLong());
+            // The chunk file is unlinked as soon as it is mapped.
+            assertEquals(0, dir.list().length);
+            assertTrue(buffer.release());
+            assertEquals(allocator.chunkSize(), allocator.trim());
+        } finally {
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testNormalSizeClasses() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, Long.MAX_VALUE, 0, 4);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        // 5 pages instead of 8 pages when rounding up to the next power of two.
+        ByteBuf buffer = allocator.heapBuffer(PAGE_SIZE * 4 + 1);
+        assertEquals(PAGE_SIZE * 5, usedBytes(metric));
+        ByteBuf buffer2 = allocator.heapBuffer(PAGE_SIZE * 9);
+        assertEquals(PAGE_SIZE * 15, usedBytes(metric));
+
+        // The pages which were trimmed from the runs are merged again once the buffers are released.
+        assertTrue(buffer.release());
+        assertTrue(buffer2.release());
+        assertEquals(0, usedBytes(metric));
+        assertEquals(allocator.chunkSize(), allocator.heapBuffer(allocator.chunkSize()).capacity());
+    }
+
+    @Test
+    public void testShrinkToSmallerNormalSizeClass() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, Long.MAX_VALUE, 0, 4);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+
+        ByteBuf buffer = allocator.heapBuffer(PAGE_SIZE * 8);
+        assertEquals(PAGE_SIZE * 8, usedBytes(metric));
+
+        // 5 pages is a smaller size class, so the memory is reallocated.
+        buffer.capacity(PAGE_SIZE * 5);
+        assertEquals(PAGE_SIZE * 5, buffer.capacity());
+        assertEquals(PAGE_SIZE * 5, usedBytes(metric));
+
+        // Still within the same size class, so shrunk in place.
+        buffer.capacity(PAGE_SIZE * 4 + 1);
+        assertEquals(PAGE_SIZE * 4 + 1, buffer.capacity());
+        assertEquals(PAGE_SIZE * 5, usedBytes(metric));
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testShrinkHugeBufferInPlace() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, Long.MAX_VALUE, 0, 4);
+        int chunkSize = PAGE_SIZE << MAX_ORDER;
+        ByteBuf buffer = allocator.heapBuffer(chunkSize * 2);
+        byte[] array = buffer.array();
+
+        buffer.capacity(chunkSize * 2 - 1);
+        assertEquals(chunkSize * 2 - 1, buffer.capacity());
+        assertSame(array, buffer.array());
+
+        buffer.capacity(chunkSize + 1);
+        assertEquals(chunkSize + 1, buffer.capacity());
+        assertSame(array, buffer.array());
+
+        // Less than half of the memory would be used anymore, so the memory is reallocated.
+        buffer.capacity(chunkSize);
+        assertEquals(chunkSize, buffer.capacity());
+        assertNotSame(array, buffer.array());
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testNormalSizeClassesRandomAllocation() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, Long.MAX_VALUE, 0, 4);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        Random random = new Random(42);
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 10000; i ++) {
+            if (!buffers.isEmpty() && random.nextBoolean()) {
+                ByteBuf buffer = buffers.remove(random.nextInt(buffers.size()));
+                // Any overlapping allocation would have overwritten the content.
+                byte value = (byte) buffer.capacity();
+                for (int j = 0; j < buffer.capacity(); j += PAGE_SIZE) {
+                    assertEquals(value, buffer.getByte(j));
+                }
+                assertTrue(buffer.release());
+            } else {
+                ByteBuf buffer = allocator.heapBuffer(PAGE_SIZE + random.nextInt(PAGE_SIZE * 64));
+                byte value = (byte) buffer.capacity();
+                for (int j = 0; j < buffer.capacity(); j += PAGE_SIZE) {
+                    buffer.setByte(j, value);
+                }
+                buffers.add(buffer);
+            }
+        }
+        for (ByteBuf buffer: buffers) {
+            assertTrue(buffer.release());
+        }
+        assertEquals(0, usedBytes(metric));
+    }
+
+    @Test
+    public void testNormalSizeClassesReduceFootprint() {
+        // Sizes as used for HTTP/2 frames and TLS records, which are mostly not powers of two.
+        int[] sizes = { 9 * 1024, 16 * 1024 + 13, 17 * 1024, 24 * 1024, 40 * 1024, 65 * 1024 };
+        long powerOfTwoBytes = allocatedBytes(1, sizes);
+        long sizeClassBytes = allocatedBytes(4, sizes);
+        assertTrue(powerOfTwoBytes + " <= " + sizeClassBytes, sizeClassBytes < powerOfTwoBytes);
+    }
+
+    private static long allocatedBytes(int normalSizeClassesPerDoubling, int[] sizes) {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(
+                false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0, Long.MAX_VALUE, 0, normalSizeClassesPerDoubling);
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 100; i ++) {
+            for (int size: sizes) {
+                buffers.add(allocator.heapBuffer(size));
+            }
+        }
+        long usedBytes = usedBytes(allocator.heapArenas().get(0));
+        for (ByteBuf buffer: buffers) {
+            assertTrue(buffer.release());
+        }
+        return usedBytes;
+    }
+
+    private static long usedBytes(PoolArenaMetric metric) {
+        long usedBytes = 0;
+        for (PoolChunkListMetric list: metric.chunkLists()) {
+            for (PoolChunkMetric chunk: list) {
+                usedBytes += chunk.chunkSize() - chunk.freeBytes();
+            }
+        }
+        return usedBytes;
+    }
+
+    private static int numChunks(PoolArenaMetric metric) {
+        int chunks = 0;
+        for (PoolChunkListMetric list: metric.chunkLists()) {
+            for (PoolChunkMetric chunk: list) {
+                chunks ++;
+            }
+        }
+        return chunks;
+    }
+
+    @Test
+    public void testChunkAndSubpageMetrics() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, MAX_ORDER, 0, 0, 0);
+        PoolArenaMetric metric = allocator.heapArenas().get(0);
+        assertEquals(6, metric.numChunkLists());
+        assertEquals(metric.numChunkLists(), metric.chunkLists().size());
+        assertTrue(metric.tinySubpages().isEmpty());
+        assertTrue(metric.smallSubpages().isEmpty());
+
+        ByteBuf buffer = allocator.heapBuffer(32);
+
+        List<PoolSubpageMetric> subpages = metric.tinySubpages();
+        assertEquals(1, subpages.size());
+        PoolSubpageMetric subpage = subpages.get(0);
+        assertEquals(32, subpage.elementSize());
+        assertEquals(PAGE_SIZE, subpage.pageSize());
+        assertEquals(PAGE_SIZE / 32, subpage.maxNumElements());
+        assertEquals(PAGE_SIZE / 32 - 1, subpage.numAvailable());
+        assertTrue(metric.smallSubpages().isEmpty());
+
+        int chunks = 0;
+        for (PoolChunkListMetric list: metric.chunkLists()) {
+            assertTrue(list.minUsage() <= list.maxUsage());
+            for (PoolChunkMetric chunk: list) {
+                assertEquals(allocator.chunkSize(), chunk.chunkSize());
+                assertEquals(chunk.chunkSize() - PAGE_SIZE, chunk.freeBytes());
+                assertTrue(chunk.usage() >= list.minUsage());
+                assertTrue(chunk.usage() < list.maxUsage());
+                chunks ++;
+            }
+        }
+        assertEquals(1, chunks);
+        assertTrue(buffer.release());
+    }
+}
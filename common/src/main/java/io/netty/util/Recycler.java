@@ -20,11 +20,20 @@ import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.util.IdentityHashMap;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Light-weight object pool based on a thread-local stack.
+ * <p>
+ * An object may be recycled by any thread. If it is recycled by another thread than the one which created it, it is
+ * put into a queue which is only written by the recycling thread and belongs to the stack of the creating thread.
+ * The creating thread takes the objects out of these queues once its stack is empty. The number of objects which
+ * may be queued by each recycling thread is limited, so one thread can not make another thread retain an unbounded
+ * number of objects.
  *
  * @param <T> the type of the pooled object
  */
@@ -32,7 +41,12 @@ public abstract class Recycler<T> {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(Recycler.class);
 
+    private static final AtomicInteger ID_GENERATOR = new AtomicInteger(Integer.MIN_VALUE);
+    // the id used to mark objects which were recycled by the thread which created them
+    private static final int OWN_THREAD_ID = ID_GENERATOR.getAndIncrement();
+
     private static final int DEFAULT_MAX_CAPACITY;
+    private static final int DEFAULT_MAX_CAPACITY_PER_FOREIGN_THREAD;
     private static final int INITIAL_CAPACITY;
 
     static {
@@ -46,14 +60,33 @@ public abstract class Recycler<T> {
         }
 
         DEFAULT_MAX_CAPACITY = maxCapacity;
+
+        // the number of objects another thread may recycle into the stack of a thread until the thread takes them,
+        // 0 drops all objects which are recycled by another thread
+        DEFAULT_MAX_CAPACITY_PER_FOREIGN_THREAD = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.recycler.maxCapacityPerForeignThread", Math.min(DEFAULT_MAX_CAPACITY, 4096)));
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.recycler.maxCapacity: {}", DEFAULT_MAX_CAPACITY);
+            logger.debug("-Dio.netty.recycler.maxCapacityPerForeignThread: {}",
+                    DEFAULT_MAX_CAPACITY_PER_FOREIGN_THREAD);
         }
 
         INITIAL_CAPACITY = Math.min(DEFAULT_MAX_CAPACITY, 256);
     }
 
+    // The queues of the current thread for the stacks of other threads. The stacks are only weakly referenced,
+    // so the queues are collected once the thread which owns the stack is dead.
+    private static final ThreadLocal<Map<Stack<?>, WeakOrderQueue>> DELAYED_RECYCLED =
+            new ThreadLocal<Map<Stack<?>, WeakOrderQueue>>() {
+        @Override
+        protected Map<Stack<?>, WeakOrderQueue> initialValue() {
+            return new WeakHashMap<Stack<?>, WeakOrderQueue>();
+        }
+    };
+
     private final int maxCapacity;
+    private final int maxCapacityPerForeignThread;
 
     private final ThreadLocal<Stack<T>> threadLocal = new ThreadLocal<Stack<T>>() {
         @Override
@@ -67,112 +100,374 @@ public abstract class Recycler<T> {
     }
 
     protected Recycler(int maxCapacity) {
+        this(maxCapacity, Math.min(maxCapacity, DEFAULT_MAX_CAPACITY_PER_FOREIGN_THREAD));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxCapacity                  the maximum number of objects held by the stack of each thread
+     * @param maxCapacityPerForeignThread  the maximum number of objects each thread may recycle into the stack of
+     *                                     another thread until that thread takes them, or {@code 0} to drop objects
+     *                                     which are recycled by another thread than the one which created them
+     */
+    protected Recycler(int maxCapacity, int maxCapacityPerForeignThread) {
         if (maxCapacity <= 0) {
             maxCapacity = 0;
         }
+        if (maxCapacityPerForeignThread <= 0) {
+            maxCapacityPerForeignThread = 0;
+        }
         this.maxCapacity = maxCapacity;
+        this.maxCapacityPerForeignThread = maxCapacityPerForeignThread;
     }
 
     public final T get() {
         Stack<T> stack = threadLocal.get();
-        T o = stack.pop();
-        if (o == null) {
-            o = newObject(stack);
+        DefaultHandle<T> handle = stack.pop();
+        if (handle == null) {
+            handle = new DefaultHandle<T>(stack);
+            handle.value = newObject(handle);
         }
-        return o;
+        return handle.value;
     }
 
     public final boolean recycle(T o, Handle<T> handle) {
-        @SuppressWarnings("unchecked")
-        Stack<T> stack = (Stack<T>) handle;
-        if (stack.parent != this) {
+        DefaultHandle<T> h = (DefaultHandle<T>) handle;
+        Stack<T> stack = h.stack;
+        if (stack != null && stack.parent != this) {
             return false;
         }
 
-        if (Thread.currentThread() != stack.thread) {
-            return false;
-        }
-
-        stack.push(o);
+        h.recycle(o);
         return true;
     }
 
     protected abstract T newObject(Handle<T> handle);
 
+    final int threadLocalCapacity() {
+        return threadLocal.get().elements.length;
+    }
+
+    final int threadLocalSize() {
+        return threadLocal.get().size;
+    }
+
     public interface Handle<T> {
         void recycle(T object);
     }
 
-    static final class Stack<T> implements Handle<T> {
+    static final class DefaultHandle<T> implements Handle<T> {
+        // the id of the thread which recycled the object last, written by the recycling thread
+        int lastRecycledId;
+        // the id of the thread which recycled the object as seen by the owning thread
+        int recycleId;
+
+        // null while the object is queued by another thread than the one which owns the stack
+        Stack<T> stack;
+        T value;
+
+        DefaultHandle(Stack<T> stack) {
+            this.stack = stack;
+        }
+
+        @Override
+        public void recycle(T object) {
+            if (object != value) {
+                throw new IllegalArgumentException("object does not belong to handle");
+            }
+            Stack<T> stack = this.stack;
+            if (stack == null) {
+                throw new IllegalStateException("recycled already");
+            }
+            stack.push(this);
+        }
+    }
+
+    /**
+     * A queue of objects which were recycled by one thread into the stack of another thread. It is only written by
+     * the recycling thread and only read by the thread which owns the stack, so it is made of arrays which are
+     * published one element at a time instead of using a concurrent queue.
+     */
+    private static final class WeakOrderQueue {
+        private static final int LINK_CAPACITY = 16;
+
+        // The writeIndex of a link is only written by the recycling thread and published via lazySet(...).
+        @SuppressWarnings("serial")
+        private static final class Link extends AtomicInteger {
+            private final DefaultHandle<?>[] elements;
+
+            // only accessed by the thread which owns the stack
+            private int readIndex;
+            private Link next;
+
+            Link(int capacity) {
+                elements = new DefaultHandle[capacity];
+            }
+        }
+
+        // the link to read from, only accessed by the thread which owns the stack
+        private Link head;
+        // the link to write to, only accessed by the recycling thread
+        private Link tail;
+        // the next queue of the same stack
+        private WeakOrderQueue next;
+        private final WeakReference<Thread> owner;
+        private final int id = ID_GENERATOR.getAndIncrement();
+        // the capacity of each link, never more than the maximum capacity of the queue
+        private final int linkCapacity;
+        // the number of elements which may be queued in addition to the links allocated so far
+        private final AtomicInteger availableCapacity;
+
+        WeakOrderQueue(Stack<?> stack, Thread thread, int maxCapacity) {
+            linkCapacity = Math.min(LINK_CAPACITY, maxCapacity);
+            head = tail = new Link(linkCapacity);
+            availableCapacity = new AtomicInteger(maxCapacity - linkCapacity);
+            owner = new WeakReference<Thread>(thread);
+            synchronized (stack) {
+                next = stack.head;
+                stack.head = this;
+            }
+        }
+
+        void add(DefaultHandle<?> handle) {
+            Link tail = this.tail;
+            int writeIndex = tail.get();
+            if (writeIndex == linkCapacity) {
+                if (!reserveLink()) {
+                    // The stack holds as many objects of this thread as allowed already, so drop the object.
+                    return;
+                }
+                this.tail = tail = tail.next = new Link(linkCapacity);
+                writeIndex = tail.get();
+            }
+
+            handle.lastRecycledId = id;
+            // Do not reference the stack while the object is queued, so the stack can be collected if the thread
+            // which owns it is dead.
+            handle.stack = null;
+            tail.elements[writeIndex] = handle;
+            tail.lazySet(writeIndex + 1);
+        }
+
+        private boolean reserveLink() {
+            for (;;) {
+                int available = availableCapacity.get();
+                if (available < linkCapacity) {
+                    return false;
+                }
+                if (availableCapacity.compareAndSet(available, available - linkCapacity)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean hasFinalData() {
+            return tail.readIndex != tail.get();
+        }
+
+        /**
+         * Transfers as many objects of this queue as possible to the given stack. Returns {@code true} if at least
+         * one object was transferred.
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        boolean transfer(Stack<?> dst) {
+            Link head = this.head;
+            if (head.readIndex == linkCapacity) {
+                if (head.next == null) {
+                    return false;
+                }
+                this.head = head = head.next;
+                availableCapacity.addAndGet(linkCapacity);
+            }
 
-        private T[] elements;
+            final int srcStart = head.readIndex;
+            int srcEnd = head.get();
+            final int srcSize = srcEnd - srcStart;
+            if (srcSize == 0) {
+                return false;
+            }
+
+            final int dstSize = dst.size;
+            final int expectedCapacity = dstSize + srcSize;
+            if (expectedCapacity > dst.elements.length) {
+                final int actualCapacity = dst.increaseCapacity(expectedCapacity);
+                srcEnd = Math.min(srcStart + actualCapacity - dstSize, srcEnd);
+            }
+
+            if (srcStart == srcEnd) {
+                // The stack is full.
+                return false;
+            }
+
+            final DefaultHandle[] srcElems = head.elements;
+            final DefaultHandle[] dstElems = dst.elements;
+            int newDstSize = dstSize;
+            for (int i = srcStart; i < srcEnd; i ++) {
+                DefaultHandle element = srcElems[i];
+                if (element.recycleId == 0) {
+                    element.recycleId = element.lastRecycledId;
+                } else if (element.recycleId != element.lastRecycledId) {
+                    throw new IllegalStateException("recycled already");
+                }
+                element.stack = dst;
+                dstElems[newDstSize ++] = element;
+                srcElems[i] = null;
+            }
+            head.readIndex = srcEnd;
+            dst.size = newDstSize;
+            return true;
+        }
+    }
+
+    static final class Stack<T> {
+
+        // The queues of other threads are linked via WeakOrderQueue.next. New queues are added to the head while
+        // holding the lock of the stack.
+        private volatile WeakOrderQueue head;
+        private WeakOrderQueue cursor;
+        private WeakOrderQueue prev;
+
+        private DefaultHandle<?>[] elements;
         private int size;
         private final int maxCapacity;
 
-        private final Map<T, Boolean> map;
-
         final Recycler<T> parent;
         final Thread thread;
 
-        @SuppressWarnings("AssertWithSideEffects")
         Stack(Recycler<T> parent, Thread thread, int maxCapacity) {
             this.parent = parent;
             this.thread = thread;
             this.maxCapacity = maxCapacity;
-            elements = newArray(INITIAL_CAPACITY);
+            elements = new DefaultHandle[Math.min(INITIAL_CAPACITY, maxCapacity)];
+        }
 
-            // *assigns* true if assertions are on.
-            @SuppressWarnings("UnusedAssignment")
-            boolean assertionEnabled = false;
-            assert assertionEnabled = true;
+        int increaseCapacity(int expectedCapacity) {
+            int newCapacity = elements.length;
+            do {
+                newCapacity <<= 1;
+            } while (newCapacity < expectedCapacity && newCapacity < maxCapacity);
 
-            if (assertionEnabled) {
-                map = new IdentityHashMap<T, Boolean>(INITIAL_CAPACITY);
-            } else {
-                map = null;
+            newCapacity = Math.min(newCapacity, maxCapacity);
+            if (newCapacity != elements.length) {
+                elements = Arrays.copyOf(elements, newCapacity);
             }
+            return newCapacity;
         }
 
-        @Override
-        public void recycle(T object) {
-            parent.recycle(object, this);
-        }
-
-        T pop() {
+        @SuppressWarnings("unchecked")
+        DefaultHandle<T> pop() {
             int size = this.size;
             if (size == 0) {
-                return null;
+                if (!scavenge()) {
+                    return null;
+                }
+                size = this.size;
             }
             size --;
-            T ret = elements[size];
+            DefaultHandle<T> ret = (DefaultHandle<T>) elements[size];
             elements[size] = null;
-            assert map == null || map.remove(ret) != null;
+            if (ret.lastRecycledId != ret.recycleId) {
+                throw new IllegalStateException("recycled multiple times");
+            }
+            ret.recycleId = 0;
+            ret.lastRecycledId = 0;
             this.size = size;
             return ret;
         }
 
-        void push(T o) {
-            assert map == null || map.put(o, Boolean.TRUE) == null: "recycled already";
+        private boolean scavenge() {
+            if (scavengeSome()) {
+                return true;
+            }
 
-            int size = this.size;
-            if (size == elements.length) {
-                if (size == maxCapacity) {
-                    // Hit the maximum capacity - drop the possibly youngest object.
-                    return;
+            // Start from the head again next time.
+            prev = null;
+            cursor = head;
+            return false;
+        }
+
+        private boolean scavengeSome() {
+            WeakOrderQueue cursor = this.cursor;
+            WeakOrderQueue prev = this.prev;
+            if (cursor == null) {
+                cursor = head;
+                prev = null;
+                if (cursor == null) {
+                    return false;
+                }
+            }
+
+            boolean success = false;
+            do {
+                if (cursor.transfer(this)) {
+                    success = true;
+                    break;
+                }
+
+                WeakOrderQueue next = cursor.next;
+                if (cursor.owner.get() == null) {
+                    // The thread which recycled into the queue is dead, so take all remaining objects and unlink
+                    // the queue. The head is never unlinked, as other threads may add a new queue before it.
+                    if (cursor.hasFinalData()) {
+                        while (cursor.transfer(this)) {
+                            success = true;
+                        }
+                    }
+                    if (prev != null) {
+                        prev.next = next;
+                    }
+                } else {
+                    prev = cursor;
                 }
+                cursor = next;
+            } while (cursor != null && !success);
+
+            this.prev = prev;
+            this.cursor = cursor;
+            return success;
+        }
 
-                T[] newElements = newArray(Math.min(maxCapacity, size << 1));
-                System.arraycopy(elements, 0, newElements, 0, size);
-                elements = newElements;
+        void push(DefaultHandle<?> item) {
+            if (thread == Thread.currentThread()) {
+                pushNow(item);
+            } else {
+                pushLater(item);
+            }
+        }
+
+        private void pushNow(DefaultHandle<?> item) {
+            if ((item.recycleId | item.lastRecycledId) != 0) {
+                throw new IllegalStateException("recycled already");
+            }
+            item.recycleId = item.lastRecycledId = OWN_THREAD_ID;
+
+            int size = this.size;
+            if (size >= maxCapacity) {
+                // Hit the maximum capacity - drop the possibly youngest object.
+                return;
+            }
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, Math.min(maxCapacity, size << 1));
             }
 
-            elements[size] = o;
+            elements[size] = item;
             this.size = size + 1;
         }
 
-        @SuppressWarnings({ "unchecked", "SuspiciousArrayCast" })
-        private static <T> T[] newArray(int length) {
-            return (T[]) new Object[length];
+        private void pushLater(DefaultHandle<?> item) {
+            int maxCapacityPerForeignThread = parent.maxCapacityPerForeignThread;
+            if (maxCapacityPerForeignThread == 0) {
+                return;
+            }
+
+            Map<Stack<?>, WeakOrderQueue> delayedRecycled = DELAYED_RECYCLED.get();
+            WeakOrderQueue queue = delayedRecycled.get(this);
+            if (queue == null) {
+                queue = new WeakOrderQueue(this, Thread.currentThread(), maxCapacityPerForeignThread);
+                delayedRecycled.put(this, queue);
+            }
+            queue.add(item);
         }
     }
 }
@@ -18,16 +18,22 @@ package io.netty.util;
 
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.ThreadLocalRandom;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.netty.util.internal.StringUtil.*;
 
@@ -36,6 +42,12 @@ public final class ResourceLeakDetector<T> {
     private static final String PROP_LEVEL = "io.netty.leakDetectionLevel";
     private static final Level DEFAULT_LEVEL = Level.SIMPLE;
 
+    private static final String PROP_SAMPLING_INTERVAL = "io.netty.leakDetection.samplingInterval";
+    private static final int DEFAULT_SAMPLING_INTERVAL_VALUE = 113;
+
+    private static final String PROP_MAX_RECORDS = "io.netty.leakDetection.maxRecords";
+    private static final int DEFAULT_MAX_RECORDS = 4;
+
     /**
      * Represents the level of resource leak detection.
      */
@@ -51,7 +63,9 @@ public final class ResourceLeakDetector<T> {
         SIMPLE,
         /**
          * Enables advanced sampling resource leak detection which reports where the leaked object was accessed
-         * recently at the cost of high overhead.
+         * recently at the cost of high overhead. Once the maximum number of access records of an object is reached,
+         * further accesses are recorded with an exponentially decreasing probability, so frequently accessed objects
+         * do not capture a stack trace on every access.
          */
         ADVANCED,
         /**
@@ -62,6 +76,9 @@ public final class ResourceLeakDetector<T> {
     }
 
     private static Level level;
+    private static final int DEFAULT_SAMPLING_INTERVAL;
+    // the maximum number of access records kept per object, in addition to the creation record
+    private static final int MAX_RECORDS;
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ResourceLeakDetector.class);
 
@@ -75,13 +92,21 @@ public final class ResourceLeakDetector<T> {
         }
 
         ResourceLeakDetector.level = level;
+
+        int samplingInterval = SystemPropertyUtil.getInt(PROP_SAMPLING_INTERVAL, DEFAULT_SAMPLING_INTERVAL_VALUE);
+        if (samplingInterval <= 0) {
+            samplingInterval = DEFAULT_SAMPLING_INTERVAL_VALUE;
+        }
+        DEFAULT_SAMPLING_INTERVAL = samplingInterval;
+        MAX_RECORDS = Math.max(0, SystemPropertyUtil.getInt(PROP_MAX_RECORDS, DEFAULT_MAX_RECORDS));
+
         if (logger.isDebugEnabled()) {
             logger.debug("-D{}: {}", PROP_LEVEL, level.name().toLowerCase());
+            logger.debug("-D{}: {}", PROP_SAMPLING_INTERVAL, DEFAULT_SAMPLING_INTERVAL);
+            logger.debug("-D{}: {}", PROP_MAX_RECORDS, MAX_RECORDS);
         }
     }
 
-    private static final int DEFAULT_SAMPLING_INTERVAL = 113;
-
     /**
      * Sets the resource leak detection level.
      */
@@ -104,7 +129,8 @@ public final class ResourceLeakDetector<T> {
     private final DefaultResourceLeak tail = new DefaultResourceLeak(null);
 
     private final ReferenceQueue<Object> refQueue = new ReferenceQueue<Object>();
-    private final ConcurrentMap<String, Boolean> reportedLeaks = PlatformDependent.newConcurrentHashMap();
+    private final ConcurrentMap<String, AtomicLong> reportedLeaks = PlatformDependent.newConcurrentHashMap();
+    private final AtomicLong leakCount = new AtomicLong();
 
     private final String resourceType;
     private final int samplingInterval;
@@ -112,8 +138,6 @@ public final class ResourceLeakDetector<T> {
     private long active;
     private final AtomicBoolean loggedTooManyActive = new AtomicBoolean();
 
-    private long leakCheckCnt;
-
     public ResourceLeakDetector(Class<?> resourceType) {
         this(simpleClassName(resourceType));
     }
@@ -158,7 +182,9 @@ public final class ResourceLeakDetector<T> {
         }
 
         if (level.ordinal() < Level.PARANOID.ordinal()) {
-            if (leakCheckCnt ++ % samplingInterval == 0) {
+            // Use a thread-local random instead of a shared counter, so the threads which allocate resources do not
+            // contend on it.
+            if (ThreadLocalRandom.current().nextInt(samplingInterval) == 0) {
                 reportLeak(level);
                 return new DefaultResourceLeak(obj);
             } else {
@@ -170,22 +196,33 @@ public final class ResourceLeakDetector<T> {
         }
     }
 
-    private void reportLeak(Level level) {
-        if (!logger.isErrorEnabled()) {
-            for (;;) {
-                @SuppressWarnings("unchecked")
-                DefaultResourceLeak ref = (DefaultResourceLeak) refQueue.poll();
-                if (ref == null) {
-                    break;
-                }
-                ref.close();
-            }
-            return;
+    /**
+     * Returns the number of leaked resources which were detected so far.
+     */
+    public long leakCount() {
+        reportLeak(level);
+        return leakCount.get();
+    }
+
+    /**
+     * Returns the distinct leaks which were detected so far, each mapped to the number of times it was detected.
+     * The key is the report of the leak as it is logged, which contains the recent access records of the leaked
+     * resource if {@link Level#ADVANCED} or higher is used, or is empty otherwise.
+     */
+    public Map<String, Long> leaks() {
+        reportLeak(level);
+        Map<String, Long> leaks = new HashMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> e: reportedLeaks.entrySet()) {
+            leaks.put(e.getKey(), e.getValue().get());
         }
+        return Collections.unmodifiableMap(leaks);
+    }
 
+    private void reportLeak(Level level) {
         // Report too many instances.
         int samplingInterval = level == Level.PARANOID? 1 : this.samplingInterval;
-        if (active * samplingInterval > maxActive && loggedTooManyActive.compareAndSet(false, true)) {
+        if (active * samplingInterval > maxActive && logger.isErrorEnabled() &&
+                loggedTooManyActive.compareAndSet(false, true)) {
             logger.error("LEAK: You are creating too many " + resourceType + " instances.  " +
                     resourceType + " is a shared resource that must be reused across the JVM," +
                     "so that only a few instances are created.");
@@ -205,8 +242,19 @@ public final class ResourceLeakDetector<T> {
                 continue;
             }
 
+            leakCount.incrementAndGet();
+
             String records = ref.toString();
-            if (reportedLeaks.putIfAbsent(records, Boolean.TRUE) == null) {
+            AtomicLong count = reportedLeaks.get(records);
+            if (count == null) {
+                count = new AtomicLong();
+                AtomicLong oldCount = reportedLeaks.putIfAbsent(records, count);
+                if (oldCount != null) {
+                    count = oldCount;
+                }
+            }
+
+            if (count.getAndIncrement() == 0 && logger.isErrorEnabled()) {
                 if (records.isEmpty()) {
                     logger.error("LEAK: {}.release() was not called before it's garbage-collected. " +
                             "Enable advanced leak reporting to find out where the leak occurred. " +
@@ -224,10 +272,10 @@ public final class ResourceLeakDetector<T> {
 
     private final class DefaultResourceLeak extends PhantomReference<Object> implements ResourceLeak {
 
-        private static final int MAX_RECORDS = 4;
-
-        private final String creationRecord;
-        private final Deque<String> lastRecords = new ArrayDeque<String>();
+        private final Record creationRecord;
+        private final Deque<Record> lastRecords = new ArrayDeque<Record>();
+        // the number of records since the maximum number of records was reached, guarded by lastRecords
+        private int overflowedRecords;
         private final AtomicBoolean freed;
         private DefaultResourceLeak prev;
         private DefaultResourceLeak next;
@@ -238,7 +286,7 @@ public final class ResourceLeakDetector<T> {
             if (referent != null) {
                 Level level = getLevel();
                 if (level.ordinal() >= Level.ADVANCED.ordinal()) {
-                    creationRecord = newRecord(null, 3);
+                    creationRecord = new Record(null);
                 } else {
                     creationRecord = null;
                 }
@@ -260,27 +308,31 @@ public final class ResourceLeakDetector<T> {
 
         @Override
         public void record() {
-            record0(null, 3);
+            record0(null);
         }
 
         @Override
         public void record(Object hint) {
-            record0(hint, 3);
+            record0(hint);
         }
 
-        private void record0(Object hint, int recordsToSkip) {
-            if (creationRecord != null) {
-                String value = newRecord(hint, recordsToSkip);
+        private void record0(Object hint) {
+            if (creationRecord == null || MAX_RECORDS == 0) {
+                return;
+            }
 
-                synchronized (lastRecords) {
-                    int size = lastRecords.size();
-                    if (size == 0 || !lastRecords.getLast().equals(value)) {
-                        lastRecords.add(value);
-                    }
-                    if (size > MAX_RECORDS) {
-                        lastRecords.removeFirst();
+            synchronized (lastRecords) {
+                if (lastRecords.size() >= MAX_RECORDS) {
+                    // Replace the oldest record with a probability of 1 / 2^n for the n-th record after the maximum
+                    // was reached, so an object which is accessed very often does not capture a stack trace on
+                    // every access.
+                    int backOff = Math.min(++ overflowedRecords, 30);
+                    if (ThreadLocalRandom.current().nextInt(1 << backOff) != 0) {
+                        return;
                     }
+                    lastRecords.removeFirst();
                 }
+                lastRecords.add(new Record(hint));
             }
         }
 
@@ -304,30 +356,36 @@ public final class ResourceLeakDetector<T> {
                 return "";
             }
 
-            Object[] array;
+            Record[] array;
             synchronized (lastRecords) {
-                array = lastRecords.toArray();
+                array = lastRecords.toArray(new Record[lastRecords.size()]);
+            }
+
+            // Omit records which are the same as the record before them.
+            int length = 0;
+            for (Record r: array) {
+                if (length == 0 || !r.isSameAs(array[length - 1])) {
+                    array[length ++] = r;
+                }
             }
 
             StringBuilder buf = new StringBuilder(16384);
             buf.append(NEWLINE);
             buf.append("Recent access records: ");
-            buf.append(array.length);
+            buf.append(length);
             buf.append(NEWLINE);
 
-            if (array.length > 0) {
-                for (int i = array.length - 1; i >= 0; i --) {
-                    buf.append('#');
-                    buf.append(i + 1);
-                    buf.append(':');
-                    buf.append(NEWLINE);
-                    buf.append(array[i]);
-                }
+            for (int i = length - 1; i >= 0; i --) {
+                buf.append('#');
+                buf.append(i + 1);
+                buf.append(':');
+                buf.append(NEWLINE);
+                array[i].appendTo(buf);
             }
 
             buf.append("Created at:");
             buf.append(NEWLINE);
-            buf.append(creationRecord);
+            creationRecord.appendTo(buf);
             buf.setLength(buf.length() - NEWLINE.length());
 
             return buf.toString();
@@ -340,28 +398,71 @@ public final class ResourceLeakDetector<T> {
             "io.netty.buffer.AbstractByteBufAllocator.toLeakAwareBuffer(",
     };
 
-    static String newRecord(Object hint, int recordsToSkip) {
-        StringBuilder buf = new StringBuilder(4096);
+    /**
+     * A stack trace and hint of a resource access. Only the stack is captured when the record is created, while it is
+     * converted into a {@link String} only if a leak is reported.
+     */
+    private static final class Record {
+        // the frames of the Record constructor, record0(...) and record(...) or open(...) and DefaultResourceLeak
+        private static final int RECORDS_TO_SKIP = 3;
+
+        private final String hintString;
+        private final Throwable trace = new Throwable();
+        private StackTraceElement[] stackTrace;
+        private int hash;
 
-        // Append the hint first if available.
-        if (hint != null) {
-            buf.append("\tHint: ");
+        Record(Object hint) {
             // Prefer a hint string to a simple string form.
             if (hint instanceof ResourceLeakHint) {
-                buf.append(((ResourceLeakHint) hint).toHintString());
+                hintString = ((ResourceLeakHint) hint).toHintString();
+            } else if (hint != null) {
+                hintString = hint.toString();
             } else {
-                buf.append(hint);
+                hintString = null;
             }
-            buf.append(NEWLINE);
         }
 
-        // Append the stack trace.
-        StackTraceElement[] array = new Throwable().getStackTrace();
-        for (StackTraceElement e: array) {
-            if (recordsToSkip > 0) {
-                recordsToSkip --;
-            } else {
-                String estr = e.toString();
+        private StackTraceElement[] stackTrace() {
+            StackTraceElement[] stackTrace = this.stackTrace;
+            if (stackTrace == null) {
+                this.stackTrace = stackTrace = trace.getStackTrace();
+            }
+            return stackTrace;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = this.hash;
+            if (hash == 0) {
+                hash = Arrays.hashCode(stackTrace());
+                if (hintString != null) {
+                    hash = hash * 31 + hintString.hashCode();
+                }
+                this.hash = hash;
+            }
+            return hash;
+        }
+
+        boolean isSameAs(Record r) {
+            if (hashCode() != r.hashCode()) {
+                return false;
+            }
+            return (hintString == null? r.hintString == null : hintString.equals(r.hintString)) &&
+                    Arrays.equals(stackTrace(), r.stackTrace());
+        }
+
+        void appendTo(StringBuilder buf) {
+            // Append the hint first if available.
+            if (hintString != null) {
+                buf.append("\tHint: ");
+                buf.append(hintString);
+                buf.append(NEWLINE);
+            }
+
+            // Append the stack trace.
+            StackTraceElement[] array = stackTrace();
+            for (int i = RECORDS_TO_SKIP; i < array.length; i ++) {
+                String estr = array[i].toString();
 
                 // Strip the noisy stack trace elements.
                 boolean excluded = false;
@@ -379,7 +480,5 @@ public final class ResourceLeakDetector<T> {
                 }
             }
         }
-
-        return buf.toString();
     }
 }
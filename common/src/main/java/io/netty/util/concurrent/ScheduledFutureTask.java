@@ -16,9 +16,9 @@
 
 package io.netty.util.concurrent;
 
-import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -27,6 +27,8 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     private static final AtomicLong nextTaskId = new AtomicLong();
     private static final long START_TIME = System.nanoTime();
 
+    static final int NOT_IN_QUEUE = -1;
+
     static long nanoTime() {
         return System.nanoTime() - START_TIME;
     }
@@ -36,20 +38,22 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     }
 
     private final long id = nextTaskId.getAndIncrement();
-    private final Queue<ScheduledFutureTask<?>> delayedTaskQueue;
+    private final ScheduledFutureTaskQueue delayedTaskQueue;
     private long deadlineNanos;
     /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
     private final long periodNanos;
+    /* the index in the delayedTaskQueue, only accessed by the ScheduledFutureTaskQueue */
+    int queueIndex = NOT_IN_QUEUE;
 
     ScheduledFutureTask(
-            EventExecutor executor, Queue<ScheduledFutureTask<?>> delayedTaskQueue,
+            EventExecutor executor, ScheduledFutureTaskQueue delayedTaskQueue,
             Runnable runnable, V result, long nanoTime) {
 
         this(executor, delayedTaskQueue, toCallable(runnable, result), nanoTime);
     }
 
     ScheduledFutureTask(
-            EventExecutor executor, Queue<ScheduledFutureTask<?>> delayedTaskQueue,
+            EventExecutor executor, ScheduledFutureTaskQueue delayedTaskQueue,
             Callable<V> callable, long nanoTime, long period) {
 
         super(executor, callable);
@@ -62,7 +66,7 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     }
 
     ScheduledFutureTask(
-            EventExecutor executor, Queue<ScheduledFutureTask<?>> delayedTaskQueue,
+            EventExecutor executor, ScheduledFutureTaskQueue delayedTaskQueue,
             Callable<V> callable, long nanoTime) {
 
         super(executor, callable);
@@ -88,6 +92,30 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
         return Math.max(0, deadlineNanos() - (currentTimeNanos - START_TIME));
     }
 
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            // Remove the task right away so cancelled timeouts do not pile up in the queue.
+            EventExecutor executor = executor();
+            if (executor.inEventLoop()) {
+                delayedTaskQueue.remove(this);
+            } else {
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            delayedTaskQueue.remove(ScheduledFutureTask.this);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // The executor was shut down and so the queue is cleared anyway.
+                }
+            }
+        }
+        return cancelled;
+    }
+
     @Override
     public long getDelay(TimeUnit unit) {
         return unit.convert(delayNanos(), TimeUnit.NANOSECONDS);
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary heap of {@link ScheduledFutureTask}s ordered by their deadline. Each task remembers its index in the heap,
+ * which allows to find a task in {@code O(1)} and so remove it in {@code O(log n)}, compared to the {@code O(n)}
+ * of {@link java.util.PriorityQueue#remove(Object)}. This allows to remove cancelled tasks right away instead of
+ * keeping them in the queue until their deadline is reached.
+ * <p>
+ * This class is not thread-safe and must only be accessed by the thread of the owning {@link EventExecutor}.
+ * A task can only be contained in one queue at a time.
+ */
+final class ScheduledFutureTaskQueue extends AbstractQueue<ScheduledFutureTask<?>> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private ScheduledFutureTask<?>[] queue = new ScheduledFutureTask<?>[DEFAULT_INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public boolean offer(ScheduledFutureTask<?> task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (task.queueIndex != ScheduledFutureTask.NOT_IN_QUEUE) {
+            throw new IllegalArgumentException("task is already contained in a queue: " + task);
+        }
+        if (size == queue.length) {
+            queue = Arrays.copyOf(queue, size << 1);
+        }
+        siftUp(size ++, task);
+        return true;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> poll() {
+        if (size == 0) {
+            return null;
+        }
+        ScheduledFutureTask<?> result = queue[0];
+        result.queueIndex = ScheduledFutureTask.NOT_IN_QUEUE;
+
+        ScheduledFutureTask<?> last = queue[-- size];
+        queue[size] = null;
+        if (size != 0) {
+            siftDown(0, last);
+        }
+        return result;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> peek() {
+        return size == 0 ? null : queue[0];
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        ScheduledFutureTask<?> task = (ScheduledFutureTask<?>) o;
+        int i = task.queueIndex;
+        task.queueIndex = ScheduledFutureTask.NOT_IN_QUEUE;
+
+        ScheduledFutureTask<?> last = queue[-- size];
+        queue[size] = null;
+        if (i != size) {
+            // Move the last task into the hole and restore the heap property, which may need to move it either way.
+            siftDown(i, last);
+            if (queue[i] == last) {
+                siftUp(i, last);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof ScheduledFutureTask)) {
+            return false;
+        }
+        int i = ((ScheduledFutureTask<?>) o).queueIndex;
+        return i >= 0 && i < size && queue[i] == o;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i ++) {
+            queue[i].queueIndex = ScheduledFutureTask.NOT_IN_QUEUE;
+            queue[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOf(queue, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T[] toArray(T[] a) {
+        if (a.length < size) {
+            return (T[]) Arrays.copyOf(queue, size, a.getClass());
+        }
+        System.arraycopy(queue, 0, a, 0, size);
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    /**
+     * Returns an {@link Iterator} over the tasks in no particular order. The returned {@link Iterator} does not
+     * support {@link Iterator#remove()}, use {@link #remove(Object)} instead.
+     */
+    @Override
+    public Iterator<ScheduledFutureTask<?>> iterator() {
+        return new Iterator<ScheduledFutureTask<?>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public ScheduledFutureTask<?> next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return queue[index ++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+
+    private void siftUp(int i, ScheduledFutureTask<?> task) {
+        while (i > 0) {
+            int parentIndex = (i - 1) >>> 1;
+            ScheduledFutureTask<?> parent = queue[parentIndex];
+            if (task.compareTo(parent) >= 0) {
+                break;
+            }
+            queue[i] = parent;
+            parent.queueIndex = i;
+            i = parentIndex;
+        }
+        queue[i] = task;
+        task.queueIndex = i;
+    }
+
+    private void siftDown(int i, ScheduledFutureTask<?> task) {
+        int half = size >>> 1;
+        while (i < half) {
+            int childIndex = (i << 1) + 1;
+            ScheduledFutureTask<?> child = queue[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && child.compareTo(queue[rightIndex]) > 0) {
+                child = queue[childIndex = rightIndex];
+            }
+            if (task.compareTo(child) <= 0) {
+                break;
+            }
+            queue[i] = child;
+            child.queueIndex = i;
+            i = childIndex;
+        }
+        queue[i] = task;
+        task.queueIndex = i;
+    }
+}
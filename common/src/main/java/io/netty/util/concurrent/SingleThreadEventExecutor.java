@@ -16,32 +16,29 @@
 package io.netty.util.concurrent;
 
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Abstract base class for {@link EventExecutor}'s that execute all its submitted tasks in a single thread.
  *
  */
-public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
+public abstract class SingleThreadEventExecutor extends AbstractScheduledEventExecutor {
 
     private static final InternalLogger logger =
             InternalLoggerFactory.getInstance(SingleThreadEventExecutor.class);
@@ -52,6 +49,9 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     private static final int ST_SHUTDOWN = 4;
     private static final int ST_TERMINATED = 5;
 
+    static final int DEFAULT_MAX_PENDING_TASKS = Math.max(16,
+            SystemPropertyUtil.getInt("io.netty.eventexecutor.maxPendingTasks", Integer.MAX_VALUE));
+
     private static final Runnable WAKEUP_TASK = new Runnable() {
         @Override
         public void run() {
@@ -60,18 +60,28 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     };
 
     private static final AtomicIntegerFieldUpdater<SingleThreadEventExecutor> STATE_UPDATER;
+    private static final AtomicIntegerFieldUpdater<SingleThreadEventExecutor> PARKED_UPDATER;
 
     static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.eventexecutor.maxPendingTasks: {}", DEFAULT_MAX_PENDING_TASKS);
+        }
+
         AtomicIntegerFieldUpdater<SingleThreadEventExecutor> updater =
                 PlatformDependent.newAtomicIntegerFieldUpdater(SingleThreadEventExecutor.class, "state");
         if (updater == null) {
             updater = AtomicIntegerFieldUpdater.newUpdater(SingleThreadEventExecutor.class, "state");
         }
         STATE_UPDATER = updater;
+
+        updater = PlatformDependent.newAtomicIntegerFieldUpdater(SingleThreadEventExecutor.class, "parked");
+        if (updater == null) {
+            updater = AtomicIntegerFieldUpdater.newUpdater(SingleThreadEventExecutor.class, "parked");
+        }
+        PARKED_UPDATER = updater;
     }
 
     private final Queue<Runnable> taskQueue;
-    final Queue<ScheduledFutureTask<?>> delayedTaskQueue = new PriorityQueue<ScheduledFutureTask<?>>();
 
     private volatile Thread thread;
     private final Executor executor;
@@ -85,6 +95,10 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     @SuppressWarnings({ "FieldMayBeFinal", "unused" })
     private volatile int state = ST_NOT_STARTED;
 
+    // 1 if the executor thread is parked in takeTask() and so needs to be unparked once a task is added
+    @SuppressWarnings({ "FieldMayBeFinal", "unused" })
+    private volatile int parked;
+
     private volatile long gracefulShutdownQuietPeriod;
     private volatile long gracefulShutdownTimeout;
     private long gracefulShutdownStartTime;
@@ -126,12 +140,15 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
     /**
      * Create a new {@link Queue} which will holds the tasks to execute. This default implementation will return a
-     * {@link LinkedBlockingQueue} but if your sub-class of {@link SingleThreadEventExecutor} will not do any blocking
-     * calls on the this {@link Queue} it may make sense to {@code @Override} this and return some more performant
-     * implementation that does not support blocking operations at all.
+     * lock-free multi-producer single-consumer {@link Queue}, which is bounded if
+     * {@code -Dio.netty.eventexecutor.maxPendingTasks} is set. {@link #takeTask()} parks the executor thread if this
+     * {@link Queue} is not a {@link BlockingQueue}, so there is no need to return a {@link BlockingQueue} here.
      */
     protected Queue<Runnable> newTaskQueue() {
-        return new LinkedBlockingQueue<Runnable>();
+        if (DEFAULT_MAX_PENDING_TASKS == Integer.MAX_VALUE) {
+            return PlatformDependent.newMpscQueue();
+        }
+        return PlatformDependent.newFixedMpscQueue(DEFAULT_MAX_PENDING_TASKS);
     }
 
     /**
@@ -163,8 +180,8 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     /**
      * Take the next {@link Runnable} from the task queue and so will block if no task is currently present.
      * <p>
-     * Be aware that this method will throw an {@link UnsupportedOperationException} if the task queue, which was
-     * created via {@link #newTaskQueue()}, does not implement {@link BlockingQueue}.
+     * If the task queue, which was created via {@link #newTaskQueue()}, does not implement {@link BlockingQueue} the
+     * executor thread is parked until a task is added.
      * </p>
      *
      * @return {@code null} if the executor thread has been interrupted or waken up.
@@ -172,7 +189,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
     protected Runnable takeTask() {
         assert inEventLoop();
         if (!(taskQueue instanceof BlockingQueue)) {
-            throw new UnsupportedOperationException();
+            return parkAndTakeTask();
         }
 
         BlockingQueue<Runnable> taskQueue = (BlockingQueue<Runnable>) this.taskQueue;
@@ -216,6 +233,66 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         }
     }
 
+    private Runnable parkAndTakeTask() {
+        for (;;) {
+            ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
+            if (delayedTask == null) {
+                park(0);
+            } else {
+                long delayNanos = delayedTask.delayNanos();
+                if (delayNanos > 0) {
+                    park(delayNanos);
+                }
+                // We need to fetch the delayed tasks now as otherwise there may be a chance that
+                // delayed tasks are never executed if there is always one task in the taskQueue.
+                fetchFromDelayedQueue();
+            }
+
+            Runnable task = taskQueue.poll();
+            if (task == WAKEUP_TASK) {
+                return null;
+            }
+            if (task != null) {
+                return task;
+            }
+            if (Thread.interrupted()) {
+                // Waken up.
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Parks the executor thread until a task is added, it is interrupted or the timeout is reached. Returns
+     * immediately if there is a task in the queue already. A {@code timeoutNanos} of {@code 0} means no timeout.
+     */
+    private void park(long timeoutNanos) {
+        PARKED_UPDATER.set(this, 1);
+        try {
+            // Check again as a task may have been added before we announced that we park, in which case no one
+            // would unpark us.
+            if (taskQueue.isEmpty()) {
+                if (timeoutNanos > 0) {
+                    LockSupport.parkNanos(this, timeoutNanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            PARKED_UPDATER.set(this, 0);
+        }
+    }
+
+    /**
+     * Unparks the executor thread if it is parked in {@link #takeTask()}. Only the first caller unparks the thread,
+     * so wakeups are coalesced when many tasks are added at once.
+     */
+    private void unparkIfParked() {
+        if (parked == 1 && PARKED_UPDATER.compareAndSet(this, 1, 0)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
     private void fetchFromDelayedQueue() {
         long nanoTime = 0L;
         for (;;) {
@@ -274,7 +351,10 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         if (isShutdown()) {
             reject();
         }
-        taskQueue.add(task);
+        if (!taskQueue.offer(task)) {
+            throw new RejectedExecutionException("event executor task queue is full");
+        }
+        unparkIfParked();
     }
 
     /**
@@ -369,6 +449,19 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         return delayedTask.delayNanos(currentTimeNanos);
     }
 
+    /**
+     * Returns the deadline of the scheduled task with the closest dead line or {@link Long#MAX_VALUE} if no task is
+     * scheduled. The returned value is only meaningful when compared to other values returned by this method, use
+     * {@link #delayNanos(long)} to get the time left until the deadline.
+     */
+    protected long nextScheduledTaskDeadlineNanos() {
+        ScheduledFutureTask<?> delayedTask = delayedTaskQueue.peek();
+        if (delayedTask == null) {
+            return Long.MAX_VALUE;
+        }
+        return delayedTask.deadlineNanos();
+    }
+
     /**
      * Updates the internal timestamp that tells when a submitted task was executed most recently.
      * {@link #runAllTasks()} and {@link #runAllTasks(long)} updates this timestamp automatically, and thus there's
@@ -394,7 +487,9 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
 
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop || STATE_UPDATER.get(this) == ST_SHUTTING_DOWN) {
-            taskQueue.add(WAKEUP_TASK);
+            // If the queue is full there is a task anyway, so the executor thread will not block.
+            taskQueue.offer(WAKEUP_TASK);
+            unparkIfParked();
         }
     }
 
@@ -594,7 +689,7 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
             throw new IllegalStateException("must be invoked from an event loop");
         }
 
-        cancelDelayedTasks();
+        cancelScheduledTasks();
 
         if (gracefulShutdownStartTime == 0) {
             gracefulShutdownStartTime = ScheduledFutureTask.nanoTime();
@@ -635,21 +730,6 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         return true;
     }
 
-    private void cancelDelayedTasks() {
-        if (delayedTaskQueue.isEmpty()) {
-            return;
-        }
-
-        final ScheduledFutureTask<?>[] delayedTasks =
-                delayedTaskQueue.toArray(new ScheduledFutureTask<?>[delayedTaskQueue.size()]);
-
-        for (ScheduledFutureTask<?> task: delayedTasks) {
-            task.cancel(false);
-        }
-
-        delayedTaskQueue.clear();
-    }
-
     @Override
     public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
         if (unit == null) {
@@ -698,111 +778,11 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
         throw new RejectedExecutionException("event executor terminated");
     }
 
-    // ScheduledExecutorService implementation
-
     private static final long SCHEDULE_PURGE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
 
-    @Override
-    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-        if (command == null) {
-            throw new NullPointerException("command");
-        }
-        if (unit == null) {
-            throw new NullPointerException("unit");
-        }
-        if (delay < 0) {
-            throw new IllegalArgumentException(
-                    String.format("delay: %d (expected: >= 0)", delay));
-        }
-        return schedule(new ScheduledFutureTask<Void>(
-                this, delayedTaskQueue, command, null, ScheduledFutureTask.deadlineNanos(unit.toNanos(delay))));
-    }
-
-    @Override
-    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-        if (callable == null) {
-            throw new NullPointerException("callable");
-        }
-        if (unit == null) {
-            throw new NullPointerException("unit");
-        }
-        if (delay < 0) {
-            throw new IllegalArgumentException(
-                    String.format("delay: %d (expected: >= 0)", delay));
-        }
-        return schedule(new ScheduledFutureTask<V>(
-                this, delayedTaskQueue, callable, ScheduledFutureTask.deadlineNanos(unit.toNanos(delay))));
-    }
-
-    @Override
-    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-        if (command == null) {
-            throw new NullPointerException("command");
-        }
-        if (unit == null) {
-            throw new NullPointerException("unit");
-        }
-        if (initialDelay < 0) {
-            throw new IllegalArgumentException(
-                    String.format("initialDelay: %d (expected: >= 0)", initialDelay));
-        }
-        if (period <= 0) {
-            throw new IllegalArgumentException(
-                    String.format("period: %d (expected: > 0)", period));
-        }
-
-        return schedule(new ScheduledFutureTask<Void>(
-                this, delayedTaskQueue, Executors.<Void>callable(command, null),
-                ScheduledFutureTask.deadlineNanos(unit.toNanos(initialDelay)), unit.toNanos(period)));
-    }
-
-    @Override
-    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-        if (command == null) {
-            throw new NullPointerException("command");
-        }
-        if (unit == null) {
-            throw new NullPointerException("unit");
-        }
-        if (initialDelay < 0) {
-            throw new IllegalArgumentException(
-                    String.format("initialDelay: %d (expected: >= 0)", initialDelay));
-        }
-        if (delay <= 0) {
-            throw new IllegalArgumentException(
-                    String.format("delay: %d (expected: > 0)", delay));
-        }
-
-        return schedule(new ScheduledFutureTask<Void>(
-                this, delayedTaskQueue, Executors.<Void>callable(command, null),
-                ScheduledFutureTask.deadlineNanos(unit.toNanos(initialDelay)), -unit.toNanos(delay)));
-    }
-
-    private <V> ScheduledFuture<V> schedule(final ScheduledFutureTask<V> task) {
-        if (task == null) {
-            throw new NullPointerException("task");
-        }
-
-        if (inEventLoop()) {
-            delayedTaskQueue.add(task);
-        } else {
-            execute(new Runnable() {
-                @Override
-                public void run() {
-                    delayedTaskQueue.add(task);
-                }
-            });
-        }
-
-        return task;
-    }
-
     private void startThread() {
         if (STATE_UPDATER.get(this) == ST_NOT_STARTED) {
             if (STATE_UPDATER.compareAndSet(this, ST_NOT_STARTED, ST_STARTED)) {
-                delayedTaskQueue.add(new ScheduledFutureTask<Void>(
-                        this, delayedTaskQueue, Executors.<Void>callable(new PurgeTask(), null),
-                        ScheduledFutureTask.deadlineNanos(SCHEDULE_PURGE_INTERVAL), -SCHEDULE_PURGE_INTERVAL));
                 doStartThread();
             }
         }
@@ -867,17 +847,4 @@ public abstract class SingleThreadEventExecutor extends AbstractEventExecutor {
             }
         });
     }
-
-    private final class PurgeTask implements Runnable {
-        @Override
-        public void run() {
-            Iterator<ScheduledFutureTask<?>> i = delayedTaskQueue.iterator();
-            while (i.hasNext()) {
-                ScheduledFutureTask<?> task = i.next();
-                if (task.isCancelled()) {
-                    i.remove();
-                }
-            }
-        }
-    }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free multi-producer single-consumer {@link Queue} which is backed by an array.
+ * <p>
+ * Producers claim a slot by incrementing the tail index via CAS and then publish the element into the slot, so an
+ * {@link #offer(Object)} does not allocate and never blocks. If the queue is full {@link #offer(Object)} returns
+ * {@code false}. The head and tail indexes are padded to live on their own cache lines, so producers and the
+ * consumer do not invalidate each others cache line on every operation.
+ * <p>
+ * Only one consumer thread is allowed to call {@link #poll()}, {@link #peek()}, {@link #remove()} and
+ * {@link #clear()}. {@link #remove(Object)} can be called by any thread, as the consumer and the removing thread
+ * race for the slot via CAS.
+ * <p>
+ * Based on the {@code MpscArrayQueue} of <a href="https://github.com/JCTools/JCTools">JCTools</a>.
+ */
+final class MpscArrayQueue<E> extends MpscArrayQueueHeadField<E> {
+
+    // Marks a slot of an element which was removed via remove(Object) and so must be skipped by the consumer.
+    private static final Object REMOVED = new Object();
+
+    // cache line padding (must be public)
+    public long p20, p21, p22, p23, p24, p25, p26, p27;
+
+    private final AtomicReferenceArray<Object> buffer;
+    private final int mask;
+
+    MpscArrayQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity: " + capacity + " (expected: > 0)");
+        }
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity: " + capacity + " (expected: <= " + (1 << 30) + ')');
+        }
+        int actualCapacity = 1;
+        while (actualCapacity < capacity) {
+            actualCapacity <<= 1;
+        }
+        buffer = new AtomicReferenceArray<Object>(actualCapacity);
+        mask = actualCapacity - 1;
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the given capacity rounded up to the next power of two.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException("e");
+        }
+        final int capacity = mask + 1;
+        for (;;) {
+            long currentTail = tail;
+            if (currentTail - capacity >= head) {
+                // The queue is full, the consumer did not release the slot yet.
+                return false;
+            }
+            if (casTail(currentTail, currentTail + 1)) {
+                // The slot is ours now, the consumer will spin until the element is visible.
+                buffer.lazySet(index(currentTail), e);
+                return true;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E poll() {
+        for (;;) {
+            long currentHead = head;
+            int index = index(currentHead);
+            Object e = buffer.get(index);
+            if (e == null) {
+                if (currentHead == tail) {
+                    return null;
+                }
+                // A producer claimed the slot but did not publish the element yet.
+                do {
+                    e = buffer.get(index);
+                } while (e == null);
+            }
+            // Use getAndSet(...) as we race with remove(Object) for the slot.
+            e = buffer.getAndSet(index, null);
+            lazySetHead(currentHead + 1);
+            if (e != REMOVED) {
+                return (E) e;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E peek() {
+        for (;;) {
+            long currentHead = head;
+            int index = index(currentHead);
+            Object e = buffer.get(index);
+            if (e == null) {
+                if (currentHead == tail) {
+                    return null;
+                }
+                do {
+                    e = buffer.get(index);
+                } while (e == null);
+            }
+            if (e != REMOVED) {
+                return (E) e;
+            }
+            // Skip the removed element.
+            buffer.lazySet(index, null);
+            lazySetHead(currentHead + 1);
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+        for (long i = head, currentTail = tail; i < currentTail; i ++) {
+            int index = index(i);
+            if (buffer.get(index) == o && buffer.compareAndSet(index, o, REMOVED)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of elements in this queue. The returned value may include elements which were removed via
+     * {@link #remove(Object)} but not skipped by the consumer yet.
+     */
+    @Override
+    public int size() {
+        // Read the head first so the tail is never behind it.
+        long currentHead = head;
+        long currentTail = tail;
+        return (int) Math.min(currentTail - currentHead, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * Returns a weakly consistent {@link Iterator} which does not support {@link Iterator#remove()}.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final long end = tail;
+            private long next = head;
+            private E nextElement = advance();
+
+            @SuppressWarnings("unchecked")
+            private E advance() {
+                while (next < end) {
+                    Object e = buffer.get(index(next ++));
+                    if (e != null && e != REMOVED) {
+                        return (E) e;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextElement != null;
+            }
+
+            @Override
+            public E next() {
+                E e = nextElement;
+                if (e == null) {
+                    throw new NoSuchElementException();
+                }
+                nextElement = advance();
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("remove");
+            }
+        };
+    }
+}
+
+abstract class MpscArrayQueuePadding<E> extends AbstractQueue<E> {
+    // cache line padding (must be public)
+    public long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class MpscArrayQueueTailField<E> extends MpscArrayQueuePadding<E> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<MpscArrayQueueTailField> TAIL_UPDATER;
+
+    static {
+        @SuppressWarnings("rawtypes")
+        AtomicLongFieldUpdater<MpscArrayQueueTailField> updater =
+                PlatformDependent.newAtomicLongFieldUpdater(MpscArrayQueueTailField.class, "tail");
+        if (updater == null) {
+            updater = AtomicLongFieldUpdater.newUpdater(MpscArrayQueueTailField.class, "tail");
+        }
+        TAIL_UPDATER = updater;
+    }
+
+    // the next slot to be claimed by a producer
+    volatile long tail;
+
+    final boolean casTail(long expect, long update) {
+        return TAIL_UPDATER.compareAndSet(this, expect, update);
+    }
+}
+
+abstract class MpscArrayQueueMidPadding<E> extends MpscArrayQueueTailField<E> {
+    // cache line padding (must be public)
+    public long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class MpscArrayQueueHeadField<E> extends MpscArrayQueueMidPadding<E> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<MpscArrayQueueHeadField> HEAD_UPDATER;
+
+    static {
+        @SuppressWarnings("rawtypes")
+        AtomicLongFieldUpdater<MpscArrayQueueHeadField> updater =
+                PlatformDependent.newAtomicLongFieldUpdater(MpscArrayQueueHeadField.class, "head");
+        if (updater == null) {
+            updater = AtomicLongFieldUpdater.newUpdater(MpscArrayQueueHeadField.class, "head");
+        }
+        HEAD_UPDATER = updater;
+    }
+
+    // the next slot to be consumed, only written by the consumer
+    volatile long head;
+
+    final void lazySetHead(long head) {
+        HEAD_UPDATER.lazySet(this, head);
+    }
+}
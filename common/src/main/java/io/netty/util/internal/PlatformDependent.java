@@ -17,6 +17,7 @@ package io.netty.util.internal;
 
 import io.netty.util.CharsetUtil;
 import io.netty.util.internal.chmv8.ConcurrentHashMapV8;
+import io.netty.util.internal.chmv8.LongAdder;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -36,6 +37,7 @@ import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -137,6 +139,14 @@ public final class PlatformDependent {
         return HAS_UNSAFE;
     }
 
+    /**
+     * Return {@code true} if {@code sun.misc.Unsafe} can be used to access memory at addresses which are not
+     * aligned to the size of the accessed type.
+     */
+    public static boolean isUnaligned() {
+        return HAS_UNSAFE && PlatformDependent0.isUnaligned();
+    }
+
     /**
      * Returns {@code true} if the platform has reliable low-level direct buffer access API and a user specified
      * {@code -Dio.netty.preferDirect} option.
@@ -245,6 +255,18 @@ public final class PlatformDependent {
         }
     }
 
+    /**
+     * Creates a new fastest {@link LongCounter} implementation for the current platform, which stripes the value
+     * across multiple cells if there is contention between threads.
+     */
+    public static LongCounter newLongCounter() {
+        if (HAS_UNSAFE) {
+            return new LongAdderCounter();
+        } else {
+            return new AtomicLongCounter();
+        }
+    }
+
     /**
      * Try to deallocate the specified direct {@link ByteBuffer}.  Please note this method does nothing if
      * the current platform does not support this operation or the specified buffer is not a direct buffer.
@@ -271,6 +293,19 @@ public final class PlatformDependent {
         return PlatformDependent0.getInt(object, fieldOffset);
     }
 
+    public static long getLong(Object object, long fieldOffset) {
+        return PlatformDependent0.getLong(object, fieldOffset);
+    }
+
+    /**
+     * Returns the offset of the first element of a {@code byte[]}, which can be passed to
+     * {@link #getLong(Object, long)} together with the array, or {@code -1} if {@code sun.misc.Unsafe} is not
+     * available.
+     */
+    public static long byteArrayBaseOffset() {
+        return ARRAY_BASE_OFFSET;
+    }
+
     public static long objectFieldOffset(Field field) {
         return PlatformDependent0.objectFieldOffset(field);
     }
@@ -382,6 +417,15 @@ public final class PlatformDependent {
         return new MpscLinkedQueue<T>();
     }
 
+    /**
+     * Create a new bounded {@link Queue} which is safe to use for multiple producers (different threads) and a single
+     * consumer (one thread!). The capacity is rounded up to the next power of two and {@link Queue#offer(Object)}
+     * returns {@code false} once the queue is full.
+     */
+    public static <T> Queue<T> newFixedMpscQueue(int capacity) {
+        return new MpscArrayQueue<T>(capacity);
+    }
+
     /**
      * Return the {@link ClassLoader} for the given {@link Class}.
      */
@@ -818,4 +862,37 @@ public final class PlatformDependent {
     private PlatformDependent() {
         // only static method supported
     }
+
+    private static final class LongAdderCounter extends LongAdder implements LongCounter {
+        private static final long serialVersionUID = -2470049402898937089L;
+
+        @Override
+        public long value() {
+            return longValue();
+        }
+    }
+
+    private static final class AtomicLongCounter extends AtomicLong implements LongCounter {
+        private static final long serialVersionUID = 5349513493427462961L;
+
+        @Override
+        public void add(long delta) {
+            addAndGet(delta);
+        }
+
+        @Override
+        public void increment() {
+            incrementAndGet();
+        }
+
+        @Override
+        public void decrement() {
+            decrementAndGet();
+        }
+
+        @Override
+        public long value() {
+            return get();
+        }
+    }
 }
@@ -173,6 +173,10 @@ final class PlatformDependent0 {
         return getLong(buffer, ADDRESS_FIELD_OFFSET);
     }
 
+    static boolean isUnaligned() {
+        return UNALIGNED;
+    }
+
     static long arrayBaseOffset() {
         return UNSAFE.arrayBaseOffset(byte[].class);
     }
@@ -189,7 +193,7 @@ final class PlatformDependent0 {
         return UNSAFE.getInt(object, fieldOffset);
     }
 
-    private static long getLong(Object object, long fieldOffset) {
+    static long getLong(Object object, long fieldOffset) {
         return UNSAFE.getLong(object, fieldOffset);
     }
 
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RecyclerTest {
+
+    private static final class RecyclableObject {
+        private final Recycler.Handle<RecyclableObject> handle;
+
+        RecyclableObject(Recycler.Handle<RecyclableObject> handle) {
+            this.handle = handle;
+        }
+
+        void recycle() {
+            handle.recycle(this);
+        }
+    }
+
+    private static final class TestRecycler extends Recycler<RecyclableObject> {
+        TestRecycler(int maxCapacity, int maxCapacityPerForeignThread) {
+            super(maxCapacity, maxCapacityPerForeignThread);
+        }
+
+        @Override
+        protected RecyclableObject newObject(Handle<RecyclableObject> handle) {
+            return new RecyclableObject(handle);
+        }
+    }
+
+    @Test
+    public void testRecycleInOwnThread() {
+        TestRecycler recycler = new TestRecycler(256, 256);
+        RecyclableObject object = recycler.get();
+        assertTrue(recycler.recycle(object, object.handle));
+        assertSame(object, recycler.get());
+        assertNotSame(object, recycler.get());
+    }
+
+    @Test
+    public void testRecycleWithOtherRecycler() {
+        TestRecycler recycler = new TestRecycler(256, 256);
+        TestRecycler otherRecycler = new TestRecycler(256, 256);
+        RecyclableObject object = recycler.get();
+        assertFalse(otherRecycler.recycle(object, object.handle));
+        assertNotSame(object, otherRecycler.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMultipleRecycle() {
+        TestRecycler recycler = new TestRecycler(256, 256);
+        RecyclableObject object = recycler.get();
+        object.recycle();
+        object.recycle();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMultipleRecycleInOtherThread() throws Throwable {
+        TestRecycler recycler = new TestRecycler(256, 256);
+        final RecyclableObject object = recycler.get();
+        recycleInOtherThread(object);
+        object.recycle();
+    }
+
+    @Test
+    public void testRecycleInOtherThread() throws Throwable {
+        TestRecycler recycler = new TestRecycler(256, 256);
+        RecyclableObject object = recycler.get();
+        recycleInOtherThread(object);
+        assertSame(object, recycler.get());
+        assertNotSame(object, recycler.get());
+    }
+
+    @Test
+    public void testRecycleInOtherThreadDisabled() throws Throwable {
+        TestRecycler recycler = new TestRecycler(256, 0);
+        RecyclableObject object = recycler.get();
+        recycleInOtherThread(object);
+        assertNotSame(object, recycler.get());
+    }
+
+    @Test
+    public void testMaxCapacityPerForeignThread() throws Throwable {
+        testMaxCapacityPerForeignThread(32);
+    }
+
+    @Test
+    public void testMaxCapacityPerForeignThreadSmallerThanLink() throws Throwable {
+        testMaxCapacityPerForeignThread(4);
+    }
+
+    private static void testMaxCapacityPerForeignThread(int maxCapacityPerForeignThread) throws Throwable {
+        TestRecycler recycler = new TestRecycler(256, maxCapacityPerForeignThread);
+        List<RecyclableObject> objects = new ArrayList<RecyclableObject>();
+        for (int i = 0; i < maxCapacityPerForeignThread * 4; i ++) {
+            objects.add(recycler.get());
+        }
+        recycleInOtherThread(objects.toArray(new RecyclableObject[objects.size()]));
+
+        int reused = 0;
+        for (int i = 0; i < objects.size(); i ++) {
+            if (objects.contains(recycler.get())) {
+                reused ++;
+            }
+        }
+        assertEquals(maxCapacityPerForeignThread, reused);
+    }
+
+    @Test
+    public void testMaxCapacity() {
+        final int maxCapacity = 300;
+        TestRecycler recycler = new TestRecycler(maxCapacity, maxCapacity);
+        List<RecyclableObject> objects = new ArrayList<RecyclableObject>();
+        for (int i = 0; i < maxCapacity * 3; i ++) {
+            objects.add(recycler.get());
+        }
+        for (RecyclableObject object: objects) {
+            object.recycle();
+        }
+        assertEquals(maxCapacity, recycler.threadLocalCapacity());
+        assertEquals(maxCapacity, recycler.threadLocalSize());
+    }
+
+    private static void recycleInOtherThread(final RecyclableObject... objects) throws Throwable {
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (RecyclableObject object: objects) {
+                        object.recycle();
+                    }
+                } catch (Throwable t) {
+                    cause.set(t);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        if (cause.get() != null) {
+            throw cause.get();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.util.ResourceLeakDetector.Level;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ResourceLeakDetectorTest {
+
+    private Level oldLevel;
+
+    @Before
+    public void setUp() {
+        oldLevel = ResourceLeakDetector.getLevel();
+    }
+
+    @After
+    public void tearDown() {
+        ResourceLeakDetector.setLevel(oldLevel);
+    }
+
+    @Test
+    public void testRecordsAreDeduplicated() {
+        ResourceLeakDetector.setLevel(Level.PARANOID);
+        ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>("test");
+        Object resource = new Object();
+        ResourceLeak leak = detector.open(resource);
+        for (int i = 0; i < 100; i ++) {
+            leak.record();
+        }
+        assertTrue(leak.toString().contains("Recent access records: 1" + System.getProperty("line.separator")));
+        assertTrue(leak.toString().contains("testRecordsAreDeduplicated"));
+        assertTrue(leak.close());
+    }
+
+    @Test
+    public void testRecordsAreBounded() {
+        ResourceLeakDetector.setLevel(Level.PARANOID);
+        ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>("test");
+        Object resource = new Object();
+        ResourceLeak leak = detector.open(resource);
+        for (int i = 0; i < 100; i ++) {
+            leak.record("hint" + i);
+        }
+        String records = leak.toString();
+        assertFalse(records.contains("Recent access records: 0"));
+        assertFalse(records.contains("#5:"));
+        assertTrue(records.contains("Hint: hint"));
+        assertTrue(leak.close());
+    }
+
+    @Test
+    public void testDisabled() {
+        ResourceLeakDetector.setLevel(Level.DISABLED);
+        ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>("test");
+        assertNull(detector.open(new Object()));
+    }
+
+    @Test(timeout = 30000)
+    public void testLeaksAreAggregated() throws Exception {
+        ResourceLeakDetector.setLevel(Level.PARANOID);
+        ResourceLeakDetector<Object> detector = new ResourceLeakDetector<Object>("test");
+        for (int i = 0; i < 10; i ++) {
+            leak(detector);
+        }
+
+        // The leaks are only detected after the resources were garbage-collected.
+        while (detector.leakCount() < 10) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(10, detector.leakCount());
+        Map<String, Long> leaks = detector.leaks();
+        assertEquals(1, leaks.size());
+        Map.Entry<String, Long> e = leaks.entrySet().iterator().next();
+        assertEquals(10, e.getValue().longValue());
+        assertTrue(e.getKey().contains("leak("));
+    }
+
+    private static void leak(ResourceLeakDetector<Object> detector) {
+        ResourceLeak leak = detector.open(new Object());
+        leak.record();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.collection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class IntObjectHashMapTest {
+
+    private static class Value {
+        private final String name;
+
+        Value(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Value && name.equals(((Value) obj).name);
+        }
+    }
+
+    private IntObjectHashMap<Value> map;
+
+    @Before
+    public void setup() {
+        map = new IntObjectHashMap<Value>();
+    }
+
+    @Test
+    public void putNewMappingShouldSucceed() {
+        Value v = new Value("v");
+        assertNull(map.put(1, v));
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey(1));
+        assertTrue(map.containsValue(v));
+        assertEquals(v, map.get(1));
+    }
+
+    @Test
+    public void putShouldReplaceValue() {
+        Value v1 = new Value("v1");
+        assertNull(map.put(1, v1));
+
+        Value v2 = new Value("v2");
+        assertSame(v1, map.put(1, v2));
+        assertEquals(1, map.size());
+        assertTrue(map.containsValue(v2));
+        assertFalse(map.containsValue(v1));
+        assertSame(v2, map.get(1));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void putNullValueShouldFail() {
+        map.put(1, null);
+    }
+
+    @Test
+    public void putShouldGrowMap() {
+        for (int key = 0; key < 255; ++key) {
+            Value v = new Value(Integer.toString(key));
+            assertNull(map.put(key, v));
+            assertEquals(key + 1, map.size());
+            assertTrue(map.containsKey(key));
+            assertTrue(map.containsValue(v));
+            assertEquals(v, map.get(key));
+        }
+    }
+
+    @Test
+    public void negativeKeyShouldSucceed() {
+        Value v = new Value("v");
+        map.put(-3, v);
+        assertEquals(1, map.size());
+        assertEquals(v, map.get(-3));
+    }
+
+    @Test
+    public void removeMissingValueShouldReturnNull() {
+        assertNull(map.remove(1));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void removeShouldReturnPreviousValue() {
+        Value v = new Value("v");
+        map.put(1, v);
+        assertSame(v, map.remove(1));
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test
+    public void removeShouldKeepCollidingKeysReachable() {
+        // Use a fixed seed so the result is reproducible.
+        Random rnd = new Random(0);
+        Map<Integer, Value> expected = new HashMap<Integer, Value>();
+        IntObjectHashMap<Value> map = new IntObjectHashMap<Value>(4);
+        for (int i = 0; i < 100000; ++i) {
+            int key = rnd.nextInt(1024);
+            if (rnd.nextBoolean()) {
+                Value v = new Value(Integer.toString(i));
+                assertSame(expected.put(key, v), map.put(key, v));
+            } else {
+                assertSame(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Integer, Value> e : expected.entrySet()) {
+            assertSame(e.getValue(), map.get(e.getKey()));
+        }
+    }
+
+    @Test
+    public void putAllShouldSucceed() {
+        Value v1 = new Value("v1");
+        Value v2 = new Value("v2");
+        Value v3 = new Value("v3");
+        map.put(1, v1);
+        map.put(2, v2);
+        map.put(3, v3);
+
+        IntObjectHashMap<Value> map2 = new IntObjectHashMap<Value>();
+        map2.putAll(map);
+        assertEquals(3, map2.size());
+        assertSame(v1, map2.get(1));
+        assertSame(v2, map2.get(2));
+        assertSame(v3, map2.get(3));
+    }
+
+    @Test
+    public void clearShouldSucceed() {
+        map.put(1, new Value("v1"));
+        map.put(2, new Value("v2"));
+        map.clear();
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertNull(map.get(2));
+    }
+
+    @Test
+    public void iteratorShouldTraverseAllEntries() {
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < 32; ++i) {
+            map.put(i, new Value(Integer.toString(i)));
+            expected.add(i);
+        }
+
+        Set<Integer> found = new HashSet<Integer>();
+        for (IntObjectMap.Entry<Value> entry : map.entries()) {
+            assertTrue(found.add(entry.key()));
+            assertEquals(new Value(Integer.toString(entry.key())), entry.value());
+        }
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void keysShouldBeReturned() {
+        map.put(1, new Value("1"));
+        map.put(2, new Value("2"));
+        map.put(3, new Value("3"));
+
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(new int[] { 1, 2, 3 }, keys);
+    }
+
+    @Test
+    public void valuesShouldBeReturned() {
+        Value v1 = new Value("v1");
+        Value v2 = new Value("v2");
+        map.put(1, v1);
+        map.put(2, v2);
+
+        Set<Value> values = new HashSet<Value>(Arrays.asList(map.values(Value.class)));
+        assertEquals(2, values.size());
+        assertTrue(values.contains(v1));
+        assertTrue(values.contains(v2));
+    }
+}
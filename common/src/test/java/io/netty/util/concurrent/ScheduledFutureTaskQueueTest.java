@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScheduledFutureTaskQueueTest {
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    private static ScheduledFutureTask<Void> newTask(ScheduledFutureTaskQueue queue, long deadlineNanos) {
+        return new ScheduledFutureTask<Void>(
+                ImmediateEventExecutor.INSTANCE, queue, Executors.<Void>callable(NOOP, null), deadlineNanos);
+    }
+
+    @Test
+    public void testPollInDeadlineOrder() {
+        ScheduledFutureTaskQueue queue = new ScheduledFutureTaskQueue();
+        List<ScheduledFutureTask<Void>> tasks = new ArrayList<ScheduledFutureTask<Void>>();
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i ++) {
+            ScheduledFutureTask<Void> task = newTask(queue, random.nextInt(100));
+            tasks.add(task);
+            assertTrue(queue.offer(task));
+        }
+        assertEquals(tasks.size(), queue.size());
+
+        Collections.sort(tasks);
+        for (ScheduledFutureTask<Void> task: tasks) {
+            assertSame(task, queue.peek());
+            assertSame(task, queue.poll());
+            assertEquals(ScheduledFutureTask.NOT_IN_QUEUE, task.queueIndex);
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        ScheduledFutureTaskQueue queue = new ScheduledFutureTaskQueue();
+        List<ScheduledFutureTask<Void>> tasks = new ArrayList<ScheduledFutureTask<Void>>();
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i ++) {
+            ScheduledFutureTask<Void> task = newTask(queue, random.nextInt(100));
+            tasks.add(task);
+            queue.add(task);
+        }
+
+        // Remove every second task from the middle of the heap.
+        List<ScheduledFutureTask<Void>> remaining = new ArrayList<ScheduledFutureTask<Void>>();
+        for (int i = 0; i < tasks.size(); i ++) {
+            ScheduledFutureTask<Void> task = tasks.get(i);
+            if ((i & 1) == 0) {
+                assertTrue(queue.contains(task));
+                assertTrue(queue.remove(task));
+                assertFalse(queue.contains(task));
+                assertFalse(queue.remove(task));
+            } else {
+                remaining.add(task);
+            }
+        }
+        assertEquals(remaining.size(), queue.size());
+
+        Collections.sort(remaining);
+        for (ScheduledFutureTask<Void> task: remaining) {
+            assertSame(task, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRemoveFromOtherQueue() {
+        ScheduledFutureTaskQueue queue = new ScheduledFutureTaskQueue();
+        ScheduledFutureTaskQueue other = new ScheduledFutureTaskQueue();
+        ScheduledFutureTask<Void> task = newTask(queue, 1);
+        queue.add(task);
+        other.add(newTask(other, 1));
+
+        assertFalse(other.remove(task));
+        assertFalse(other.contains(task));
+        assertEquals(1, other.size());
+        assertTrue(queue.contains(task));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddTwice() {
+        ScheduledFutureTaskQueue queue = new ScheduledFutureTaskQueue();
+        ScheduledFutureTask<Void> task = newTask(queue, 1);
+        queue.add(task);
+        queue.add(task);
+    }
+
+    @Test
+    public void testClear() {
+        ScheduledFutureTaskQueue queue = new ScheduledFutureTaskQueue();
+        ScheduledFutureTask<Void> task = newTask(queue, 1);
+        queue.add(task);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertFalse(queue.contains(task));
+
+        // The task can be added again after the queue was cleared.
+        queue.add(task);
+        assertSame(task, queue.peek());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelRemovesTask() throws Exception {
+        final DefaultEventExecutor executor = new DefaultEventExecutor();
+        try {
+            for (int i = 0; i < 100; i ++) {
+                executor.schedule(NOOP, 1, TimeUnit.HOURS).cancel(false);
+            }
+            // Cancelling from outside the executor removes the tasks via a task, so wait until they were processed.
+            int size = executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return executor.delayedTaskQueue.size();
+                }
+            }).syncUninterruptibly().getNow();
+            assertEquals(0, size);
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class MpscArrayQueueTest {
+
+    @Test
+    public void testCapacityIsRoundedUp() {
+        assertEquals(1, new MpscArrayQueue<Object>(1).capacity());
+        assertEquals(16, new MpscArrayQueue<Object>(9).capacity());
+        assertEquals(16, new MpscArrayQueue<Object>(16).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new MpscArrayQueue<Object>(0);
+    }
+
+    @Test
+    public void testOfferAndPoll() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<Integer>(4);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+        assertNull(queue.poll());
+
+        // Wrap around a few times.
+        for (int round = 0; round < 3; round ++) {
+            for (int i = 0; i < 4; i ++) {
+                assertTrue(queue.offer(i));
+            }
+            assertFalse(queue.offer(4));
+            assertEquals(4, queue.size());
+            for (int i = 0; i < 4; i ++) {
+                assertEquals(Integer.valueOf(i), queue.peek());
+                assertEquals(Integer.valueOf(i), queue.poll());
+            }
+            assertTrue(queue.isEmpty());
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<Integer>(8);
+        Integer one = 1;
+        Integer two = 2;
+        Integer three = 3;
+        queue.add(one);
+        queue.add(two);
+        queue.add(three);
+
+        assertTrue(queue.remove(two));
+        assertFalse(queue.remove(two));
+        assertTrue(queue.remove(one));
+
+        Iterator<Integer> i = queue.iterator();
+        assertSame(three, i.next());
+        assertFalse(i.hasNext());
+
+        assertSame(three, queue.peek());
+        assertSame(three, queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testMultipleProducers() throws Exception {
+        final int producers = 4;
+        final int elements = 100000;
+        final MpscArrayQueue<Integer> queue = new MpscArrayQueue<Integer>(128);
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i ++) {
+            final int producer = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < elements; j ++) {
+                        Integer e = producer * elements + j;
+                        while (!queue.offer(e)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+
+        // Elements of each producer must be consumed in the order they were added.
+        int[] next = new int[producers];
+        for (int i = 0; i < producers * elements; i ++) {
+            Integer e;
+            while ((e = queue.poll()) == null) {
+                Thread.yield();
+            }
+            int producer = e / elements;
+            assertEquals(next[producer] ++, e % elements);
+        }
+        for (Thread t: threads) {
+            t.join();
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.flush;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ChannelHandler} which consolidates {@link ChannelHandlerContext#flush()} operations, so that the writes of
+ * several messages are done by one gathering write to the socket, which reduces the number of system calls.
+ * <p>
+ * Request / response protocols usually call {@code writeAndFlush(...)} for each response. If the requests of a
+ * client are pipelined, several of them are received by a single read, and the responses to them are flushed one
+ * by one. This handler defers these flushes until:
+ * <ul>
+ *     <li>{@link ChannelHandlerContext#fireChannelReadComplete()} is triggered, so the responses to all requests
+ *     of a read are flushed at once,</li>
+ *     <li>the number of pending flushes reached {@code explicitFlushAfterFlushes}, so the amount of pending data
+ *     is bounded even if a read never completes,</li>
+ *     <li>the {@code maxFlushDelay} has passed since the first deferred flush, if it is greater than {@code 0},</li>
+ *     <li>or the {@link io.netty.channel.Channel} becomes unwritable, is disconnected or closed, or an exception is
+ *     caught.</li>
+ * </ul>
+ * Flushes which are not done while a read is in progress, e.g. of messages which are pushed to the remote peer, are
+ * passed on right away unless {@code consolidateWhenNoReadInProgress} is {@code true}. In that case they are
+ * deferred until the {@code maxFlushDelay} has passed, or until the {@link io.netty.channel.EventLoop} ran the
+ * tasks which were submitted before, if the {@code maxFlushDelay} is {@code 0}.
+ * <p>
+ * Latency-critical writes can bypass the consolidation by calling {@link #flushImmediately()} after writing them.
+ * <p>
+ * This handler should be added to the {@link ChannelPipeline} before the handlers which issue the flushes, usually
+ * as one of the first handlers. It must not be shared between {@link io.netty.channel.Channel}s.
+ */
+public class FlushConsolidationHandler extends ChannelHandlerAdapter {
+
+    /**
+     * The default number of flushes after which a flush is passed on even if a read is still in progress.
+     */
+    public static final int DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
+    private final int explicitFlushAfterFlushes;
+    private final boolean consolidateWhenNoReadInProgress;
+    private final long maxFlushDelayNanos;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            nextScheduledFlush = null;
+            if (flushPendingCount > 0) {
+                flushNow(ctx);
+            }
+        }
+    };
+
+    private final Runnable flushImmediatelyTask = new Runnable() {
+        @Override
+        public void run() {
+            flushImmediately();
+        }
+    };
+
+    private volatile ChannelHandlerContext ctx;
+    private int flushPendingCount;
+    private boolean readInProgress;
+    private Future<?> nextScheduledFlush;
+
+    /**
+     * Creates a new instance which passes on a flush after {@value #DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES} deferred
+     * flushes, and only defers flushes while a read is in progress.
+     */
+    public FlushConsolidationHandler() {
+        this(DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES);
+    }
+
+    /**
+     * Creates a new instance which only defers flushes while a read is in progress.
+     *
+     * @param explicitFlushAfterFlushes the number of deferred flushes after which a flush is passed on
+     */
+    public FlushConsolidationHandler(int explicitFlushAfterFlushes) {
+        this(explicitFlushAfterFlushes, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param explicitFlushAfterFlushes         the number of deferred flushes after which a flush is passed on
+     * @param consolidateWhenNoReadInProgress   whether to also defer flushes which are not done while a read is in
+     *                                          progress
+     */
+    public FlushConsolidationHandler(int explicitFlushAfterFlushes, boolean consolidateWhenNoReadInProgress) {
+        this(explicitFlushAfterFlushes, consolidateWhenNoReadInProgress, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param explicitFlushAfterFlushes         the number of deferred flushes after which a flush is passed on
+     * @param consolidateWhenNoReadInProgress   whether to also defer flushes which are not done while a read is in
+     *                                          progress
+     * @param maxFlushDelay                     the maximum time a flush is deferred for, or {@code 0} to not limit
+     *                                          it while a read is in progress
+     * @param unit                              the {@link TimeUnit} of {@code maxFlushDelay}
+     */
+    public FlushConsolidationHandler(int explicitFlushAfterFlushes, boolean consolidateWhenNoReadInProgress,
+                                     long maxFlushDelay, TimeUnit unit) {
+        if (explicitFlushAfterFlushes <= 0) {
+            throw new IllegalArgumentException("explicitFlushAfterFlushes: " + explicitFlushAfterFlushes +
+                    " (expected: > 0)");
+        }
+        if (maxFlushDelay < 0) {
+            throw new IllegalArgumentException("maxFlushDelay: " + maxFlushDelay + " (expected: >= 0)");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        this.explicitFlushAfterFlushes = explicitFlushAfterFlushes;
+        this.consolidateWhenNoReadInProgress = consolidateWhenNoReadInProgress;
+        maxFlushDelayNanos = unit.toNanos(maxFlushDelay);
+    }
+
+    /**
+     * Flushes all pending writes right away instead of deferring the flush. This should be called after
+     * latency-critical writes, which must not wait for the writes of other messages.
+     */
+    public void flushImmediately() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx == null) {
+            return;
+        }
+        if (ctx.executor().inEventLoop()) {
+            flushNow(ctx);
+        } else {
+            ctx.executor().execute(flushImmediatelyTask);
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (readInProgress || consolidateWhenNoReadInProgress) {
+            if (++ flushPendingCount == explicitFlushAfterFlushes) {
+                flushNow(ctx);
+            } else {
+                scheduleFlush(ctx);
+            }
+        } else {
+            flushNow(ctx);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        // The responses to all messages of this read were written, so flush them at once.
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        resetReadAndFlushIfNeeded(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            // Flush the pending writes, so the channel becomes writable again.
+            flushIfNeeded(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        flushIfNeeded(ctx);
+        this.ctx = null;
+    }
+
+    private void resetReadAndFlushIfNeeded(ChannelHandlerContext ctx) {
+        readInProgress = false;
+        flushIfNeeded(ctx);
+    }
+
+    private void flushIfNeeded(ChannelHandlerContext ctx) {
+        if (flushPendingCount > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        cancelScheduledFlush();
+        flushPendingCount = 0;
+        ctx.flush();
+    }
+
+    private void scheduleFlush(ChannelHandlerContext ctx) {
+        if (nextScheduledFlush != null) {
+            return;
+        }
+        if (maxFlushDelayNanos > 0) {
+            nextScheduledFlush = ctx.executor().schedule(flushTask, maxFlushDelayNanos, TimeUnit.NANOSECONDS);
+        } else if (!readInProgress) {
+            // Flush after the tasks which were submitted before, which may write more messages.
+            nextScheduledFlush = ctx.executor().submit(flushTask);
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (nextScheduledFlush != null) {
+            nextScheduledFlush.cancel(false);
+            nextScheduledFlush = null;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.flush;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class FlushConsolidationHandlerTest {
+
+    @Test
+    public void testFlushViaReadComplete() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.writeInbound(1, 2, 3);
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1, 2, 3);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushViaThreshold() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler(2));
+        channel.pipeline().fireChannelRead(1);
+        assertEquals(0, flushCount.get());
+        channel.pipeline().fireChannelRead(2);
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1, 2);
+        channel.pipeline().fireChannelRead(3);
+        assertEquals(1, flushCount.get());
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(2, flushCount.get());
+        assertOutbound(channel, 3);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushWhenNoReadInProgress() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.writeAndFlush(1);
+        assertEquals(1, flushCount.get());
+        channel.writeAndFlush(2);
+        assertEquals(2, flushCount.get());
+        assertOutbound(channel, 1, 2);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testConsolidateWhenNoReadInProgress() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler(256, true));
+        channel.writeAndFlush(1);
+        channel.writeAndFlush(2);
+        assertEquals(0, flushCount.get());
+        channel.runPendingTasks();
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1, 2);
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushImmediately() {
+        AtomicInteger flushCount = new AtomicInteger();
+        FlushConsolidationHandler handler = new FlushConsolidationHandler();
+        EmbeddedChannel channel = newChannel(flushCount, handler);
+        channel.pipeline().fireChannelRead(1);
+        assertEquals(0, flushCount.get());
+        handler.flushImmediately();
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1);
+
+        // Nothing is pending anymore.
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(1, flushCount.get());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushOnClose() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.pipeline().fireChannelRead(1);
+        assertEquals(0, flushCount.get());
+        channel.close();
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testFlushViaMaxFlushDelay() throws Exception {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(
+                flushCount, new FlushConsolidationHandler(256, false, 10, TimeUnit.MILLISECONDS));
+        channel.pipeline().fireChannelRead(1);
+        assertEquals(0, flushCount.get());
+
+        // The read does not complete, so the flush is done once the delay has passed.
+        long delayNanos = channel.runScheduledPendingTasks();
+        while (delayNanos > 0) {
+            assertEquals(0, flushCount.get());
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(delayNanos) + 1);
+            delayNanos = channel.runScheduledPendingTasks();
+        }
+        assertEquals(-1, delayNanos);
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1);
+
+        // Nothing is pending anymore.
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(1, flushCount.get());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushCancelsScheduledFlush() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(
+                flushCount, new FlushConsolidationHandler(256, false, 1, TimeUnit.HOURS));
+        channel.pipeline().fireChannelRead(1);
+        assertTrue(channel.runScheduledPendingTasks() > 0);
+        assertEquals(0, flushCount.get());
+
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1);
+        // The scheduled flush was cancelled.
+        assertEquals(-1, channel.runScheduledPendingTasks());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushWhenUnwritable() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.config().setWriteBufferLowWaterMark(4);
+        channel.config().setWriteBufferHighWaterMark(8);
+
+        ByteBuf first = Unpooled.wrappedBuffer(new byte[4]);
+        channel.pipeline().fireChannelRead(first);
+        assertEquals(0, flushCount.get());
+        assertTrue(channel.isWritable());
+
+        // Exceeds the high water mark, so the pending writes are flushed right away.
+        ByteBuf second = Unpooled.wrappedBuffer(new byte[8]);
+        channel.pipeline().fireChannelRead(second);
+        assertEquals(1, flushCount.get());
+        assertTrue(channel.isWritable());
+        assertOutbound(channel, first, second);
+        assertTrue(first.release());
+        assertTrue(second.release());
+
+        channel.pipeline().fireChannelReadComplete();
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testFlushOnException() {
+        AtomicInteger flushCount = new AtomicInteger();
+        EmbeddedChannel channel = newChannel(flushCount, new FlushConsolidationHandler());
+        channel.pipeline().fireChannelRead(1);
+        assertEquals(0, flushCount.get());
+
+        Exception cause = new Exception();
+        channel.pipeline().fireExceptionCaught(cause);
+        assertEquals(1, flushCount.get());
+        assertOutbound(channel, 1);
+        try {
+            channel.checkException();
+            fail();
+        } catch (Exception e) {
+            assertSame(cause, e);
+        }
+
+        // The read was reset, so flushes are passed on right away again.
+        channel.writeAndFlush(2);
+        assertEquals(2, flushCount.get());
+        assertOutbound(channel, 2);
+        assertFalse(channel.finish());
+    }
+
+    private static EmbeddedChannel newChannel(final AtomicInteger flushCount, FlushConsolidationHandler handler) {
+        return new EmbeddedChannel(
+                new ChannelHandlerAdapter() {
+                    @Override
+                    public void flush(ChannelHandlerContext ctx) throws Exception {
+                        flushCount.incrementAndGet();
+                        ctx.flush();
+                    }
+                },
+                handler,
+                new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        // Respond to each request right away, like most request / response protocols do.
+                        ctx.writeAndFlush(msg);
+                    }
+                });
+    }
+
+    private static void assertOutbound(EmbeddedChannel channel, Object... expected) {
+        for (Object e: expected) {
+            assertEquals(e, channel.readOutbound());
+        }
+        assertNull(channel.readOutbound());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * This class benchmarks the search, equality and hash code methods of {@link ByteBufUtil}, which read the buffer
+ * a long at a time, against the byte at a time loops they replaced.
+ */
+public class ByteBufUtilBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "heap", "direct" })
+    public String bufferType;
+
+    @Param({ "00016", "00256", "04096" })
+    public int size;
+
+    private ByteBuf buffer;
+    private ByteBuf copy;
+    private ByteBuf needle;
+
+    @Setup
+    public void setup() {
+        byte[] data = new byte[size];
+        for (int i = 0; i < data.length; i ++) {
+            data[i] = (byte) ('a' + i % 26);
+        }
+        // Put the value to search for and the needle at the end, so the whole buffer is scanned.
+        data[size - 2] = '\r';
+        data[size - 1] = '\n';
+
+        if ("direct".equals(bufferType)) {
+            buffer = Unpooled.directBuffer(size).writeBytes(data);
+            copy = Unpooled.directBuffer(size).writeBytes(data);
+        } else {
+            buffer = Unpooled.buffer(size).writeBytes(data);
+            copy = Unpooled.buffer(size).writeBytes(data);
+        }
+        needle = Unpooled.wrappedBuffer(new byte[] { '\r', '\n' });
+    }
+
+    @TearDown
+    public void tearDown() {
+        buffer.release();
+        copy.release();
+    }
+
+    @GenerateMicroBenchmark
+    public int indexOf() {
+        return buffer.indexOf(buffer.readerIndex(), buffer.writerIndex(), (byte) '\n');
+    }
+
+    @GenerateMicroBenchmark
+    public int indexOfByteAtATime() {
+        for (int i = buffer.readerIndex(); i < buffer.writerIndex(); i ++) {
+            if (buffer.getByte(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @GenerateMicroBenchmark
+    public int indexOfNeedle() {
+        return ByteBufUtil.indexOf(buffer, needle);
+    }
+
+    @GenerateMicroBenchmark
+    public int indexOfNeedleByteAtATime() {
+        // The search which was used by DelimiterBasedFrameDecoder.
+        for (int i = buffer.readerIndex(); i < buffer.writerIndex(); i ++) {
+            int haystackIndex = i;
+            int needleIndex;
+            for (needleIndex = 0; needleIndex < needle.capacity(); needleIndex ++) {
+                if (buffer.getByte(haystackIndex) != needle.getByte(needleIndex)) {
+                    break;
+                } else {
+                    haystackIndex ++;
+                    if (haystackIndex == buffer.writerIndex() && needleIndex != needle.capacity() - 1) {
+                        return -1;
+                    }
+                }
+            }
+            if (needleIndex == needle.capacity()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @GenerateMicroBenchmark
+    public boolean bufferEquals() {
+        return ByteBufUtil.equals(buffer, copy);
+    }
+
+    @GenerateMicroBenchmark
+    public boolean bufferEqualsByteAtATime() {
+        int aIndex = buffer.readerIndex();
+        int bIndex = copy.readerIndex();
+        for (int i = buffer.readableBytes(); i > 0; i --) {
+            if (buffer.getByte(aIndex ++) != copy.getByte(bIndex ++)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @GenerateMicroBenchmark
+    public int bufferCompare() {
+        return ByteBufUtil.compare(buffer, copy);
+    }
+
+    @GenerateMicroBenchmark
+    public int bufferHashCode() {
+        return ByteBufUtil.hashCode(buffer);
+    }
+
+    @GenerateMicroBenchmark
+    public int bufferHashCodeIntAtATime() {
+        // The hash code as calculated before ByteBufUtil.hashCode(ByteBuf) read the buffer a long at a time.
+        int hashCode = 1;
+        int index = buffer.readerIndex();
+        for (int i = buffer.readableBytes() >>> 2; i > 0; i --) {
+            hashCode = 31 * hashCode + buffer.getInt(index);
+            index += 4;
+        }
+        for (int i = buffer.readableBytes() & 3; i > 0; i --) {
+            hashCode = 31 * hashCode + buffer.getByte(index ++);
+        }
+        return hashCode;
+    }
+}
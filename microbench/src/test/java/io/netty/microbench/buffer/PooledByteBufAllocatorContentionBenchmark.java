@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * This class benchmarks how allocations out of a single {@link PooledByteBufAllocator} arena scale with the number
+ * of threads. The thread-local cache is disabled, so every allocation and deallocation goes to the arena. The
+ * benchmark is run once for each thread count from 1 to {@value #MAX_THREADS}, or only for the thread count given
+ * via {@code -Dthreads}.
+ */
+public class PooledByteBufAllocatorContentionBenchmark extends AbstractMicrobenchmark {
+
+    private static final int MAX_THREADS = 64;
+    private static final int LIVE_BUFFERS = 256;
+
+    // Single arena, so all threads contend for the same locks.
+    private static final PooledByteBufAllocator allocator =
+            new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0); // Disable thread-local cache
+
+    // 64 is tiny, 1024 is small and 16384 is normal.
+    @Param({ "00064", "01024", "16384" })
+    public int size;
+
+    private final ByteBuf[] buffers = new ByteBuf[LIVE_BUFFERS];
+    private int index;
+    private int threads = -1;
+
+    @Override
+    public void run() throws Exception {
+        if (super.getThreads() > 0) {
+            super.run();
+            return;
+        }
+        for (threads = 1; threads <= MAX_THREADS; threads <<= 1) {
+            super.run();
+        }
+    }
+
+    @Override
+    protected int getThreads() {
+        return threads > 0 ? threads : super.getThreads();
+    }
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < buffers.length; i ++) {
+            buffers[i] = allocator.directBuffer(size);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int i = 0; i < buffers.length; i ++) {
+            buffers[i].release();
+            buffers[i] = null;
+        }
+    }
+
+    @GenerateMicroBenchmark
+    public ByteBuf allocateAndFree() {
+        int index = this.index;
+        buffers[index].release();
+        ByteBuf buf = buffers[index] = allocator.directBuffer(size);
+        this.index = index + 1 & LIVE_BUFFERS - 1;
+        return buf;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * This class benchmarks allocations larger than the page size out of a {@link PooledByteBufAllocator} with
+ * different numbers of size classes between two powers of two. The sizes follow a distribution as seen for
+ * HTTP/2 frames and TLS records, which are mostly not powers of two.
+ */
+public class PooledByteBufAllocatorSizeClassBenchmark extends AbstractMicrobenchmark {
+
+    private static final int LIVE_BUFFERS = 1024;
+    private static final int[] SIZES = { 9 * 1024, 16 * 1024 + 13, 17 * 1024, 24 * 1024, 40 * 1024, 65 * 1024 };
+
+    // 1 rounds up to the next power of two.
+    @Param({ "1", "4" })
+    public int normalSizeClassesPerDoubling;
+
+    private PooledByteBufAllocator allocator;
+    private final ByteBuf[] buffers = new ByteBuf[LIVE_BUFFERS];
+    private final int[] sizes = new int[LIVE_BUFFERS];
+    private int index;
+
+    @Setup
+    public void setup() {
+        // Disable the thread-local cache, so every allocation goes to the chunks.
+        allocator = new PooledByteBufAllocator(
+                true, 1, 1, 8192, 11, 0, 0, 0, Long.MAX_VALUE, 0, normalSizeClassesPerDoubling);
+        Random random = new Random(42);
+        for (int i = 0; i < sizes.length; i ++) {
+            sizes[i] = SIZES[random.nextInt(SIZES.length)];
+        }
+        for (int i = 0; i < buffers.length; i ++) {
+            buffers[i] = allocator.directBuffer(sizes[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int i = 0; i < buffers.length; i ++) {
+            buffers[i].release();
+            buffers[i] = null;
+        }
+    }
+
+    @GenerateMicroBenchmark
+    public ByteBuf allocateAndFree() {
+        int index = this.index;
+        buffers[index].release();
+        // Use the size of another slot, so the buffers are not just replaced by one of the same size class.
+        ByteBuf buf = buffers[index] = allocator.directBuffer(sizes[index * 7 & LIVE_BUFFERS - 1]);
+        this.index = index + 1 & LIVE_BUFFERS - 1;
+        return buf;
+    }
+}
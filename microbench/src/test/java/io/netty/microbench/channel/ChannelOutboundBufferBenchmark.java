@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.nio.NioSocketChannelOutboundBuffer;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class benchmarks the write and flush of {@code messages} {@link ByteBuf}s through a
+ * {@link NioSocketChannelOutboundBuffer}, followed by the gathering of their NIO buffers and the removal of the
+ * written messages, as done by {@link io.netty.channel.socket.nio.NioSocketChannel} for a gathering write.
+ */
+public class ChannelOutboundBufferBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1", "16", "64" })
+    public int messages;
+
+    private EmbeddedChannel channel;
+    private ChannelPromise promise;
+    private NioSocketChannelOutboundBuffer buffer;
+    private ByteBuf[] bufs;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel();
+        promise = channel.voidPromise();
+        buffer = NioSocketChannelOutboundBuffer.newInstance(channel);
+        bufs = new ByteBuf[messages];
+        for (int i = 0; i < messages; i ++) {
+            bufs[i] = Unpooled.directBuffer(128).writeZero(128);
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        buffer.recycle();
+        for (ByteBuf buf: bufs) {
+            buf.release();
+        }
+        channel.finish();
+    }
+
+    @GenerateMicroBenchmark
+    public ByteBuffer[] writeAndFlush() {
+        addAndFlush();
+        ByteBuffer[] nioBuffers = buffer.nioBuffers();
+        buffer.removeBytes(buffer.nioBufferSize());
+        return nioBuffers;
+    }
+
+    @GenerateMicroBenchmark
+    public ByteBuffer[] writeAndFlushPartially() {
+        addAndFlush();
+        // Write the messages in two steps, so the NIO buffers of the remaining messages are used twice.
+        buffer.nioBuffers();
+        buffer.removeBytes(buffer.nioBufferSize() >>> 1);
+        ByteBuffer[] nioBuffers = buffer.nioBuffers();
+        buffer.removeBytes(buffer.nioBufferSize());
+        return nioBuffers;
+    }
+
+    private void addAndFlush() {
+        for (ByteBuf buf: bufs) {
+            buf.readerIndex(0);
+            buffer.addMessage(buf.retain(), promise);
+        }
+        buffer.addFlush();
+    }
+}
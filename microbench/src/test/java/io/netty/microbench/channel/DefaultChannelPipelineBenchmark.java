@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * This class benchmarks the propagation of inbound events through a {@link ChannelPipeline} of {@code depth}
+ * handlers. Every other handler only handles inbound messages and passes them on, while the others only handle
+ * outbound messages, so they and all handlers which do not handle the channelReadComplete event are skipped.
+ */
+public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
+
+    private static final Object MESSAGE = new Object();
+
+    private static final class InboundPassThroughHandler extends ChannelHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            ctx.fireChannelRead(msg);
+        }
+    }
+
+    private static final class OutboundPassThroughHandler extends ChannelHandlerAdapter {
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            ctx.write(msg, promise);
+        }
+    }
+
+    private static final class ConsumingHandler extends ChannelHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            // Consume the message.
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            // Consume the event.
+        }
+    }
+
+    @Param({ "2", "8", "14" })
+    public int depth;
+
+    private EmbeddedChannel channel;
+    private ChannelPipeline pipeline;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel();
+        pipeline = channel.pipeline();
+        for (int i = 0; i < depth; i ++) {
+            pipeline.addLast((i & 1) == 0? new InboundPassThroughHandler() : new OutboundPassThroughHandler());
+        }
+        pipeline.addLast(new ConsumingHandler());
+    }
+
+    @TearDown
+    public void teardown() {
+        channel.finish();
+    }
+
+    @GenerateMicroBenchmark
+    public ChannelPipeline fireChannelRead() {
+        return pipeline.fireChannelRead(MESSAGE);
+    }
+
+    @GenerateMicroBenchmark
+    public ChannelPipeline fireChannelReadComplete() {
+        return pipeline.fireChannelReadComplete();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.collection;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This class benchmarks {@link IntObjectHashMap} against {@link HashMap} when used as a registry of channels keyed
+ * by sequentially assigned ids, which is how the epoll transport uses it.
+ */
+public class IntObjectHashMapBenchmark extends AbstractMicrobenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int size;
+
+    private final Random rand = new Random();
+    private final IntObjectMap<Object> intObjectMap = new IntObjectHashMap<Object>();
+    private final Map<Integer, Object> hashMap = new HashMap<Integer, Object>();
+    private final int[] lookupKeys = new int[LOOKUPS];
+    private int nextId;
+    private int lookupIndex;
+
+    @Setup
+    public void setup() {
+        intObjectMap.clear();
+        hashMap.clear();
+        Object value = new Object();
+        for (int id = 1; id <= size; id ++) {
+            intObjectMap.put(id, value);
+            hashMap.put(id, value);
+        }
+        for (int i = 0; i < lookupKeys.length; i ++) {
+            lookupKeys[i] = rand.nextInt(size) + 1;
+        }
+        nextId = size + 1;
+    }
+
+    private int nextLookupKey() {
+        return lookupKeys[lookupIndex ++ & LOOKUPS - 1];
+    }
+
+    @GenerateMicroBenchmark
+    public Object intObjectMapGet() {
+        return intObjectMap.get(nextLookupKey());
+    }
+
+    @GenerateMicroBenchmark
+    public Object hashMapGet() {
+        return hashMap.get(nextLookupKey());
+    }
+
+    @GenerateMicroBenchmark
+    public Object intObjectMapPutAndRemove() {
+        // Register a new id and deregister an existing one so the size stays constant.
+        int id = nextId ++;
+        intObjectMap.put(id, this);
+        return intObjectMap.remove(id - size);
+    }
+
+    @GenerateMicroBenchmark
+    public Object hashMapPutAndRemove() {
+        // Register a new id and deregister an existing one so the size stays constant.
+        int id = nextId ++;
+        hashMap.put(id, this);
+        return hashMap.remove(id - size);
+    }
+}
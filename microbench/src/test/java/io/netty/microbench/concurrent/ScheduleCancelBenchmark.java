@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the schedule / cancel churn of an {@link EventExecutor} that holds a timeout per connection,
+ * like {@code IdleStateHandler} or {@code ReadTimeoutHandler} do. Each operation cancels the timeout of a connection
+ * and schedules a new one, while {@code connections} timeouts are pending.
+ */
+public class ScheduleCancelBenchmark extends AbstractMicrobenchmark {
+
+    private static final int CHURN = 1024;
+
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    @Param({ "1000", "10000", "100000" })
+    public int connections;
+
+    private EventExecutor executor;
+    private ScheduledFuture<?>[] timeouts;
+    private int index;
+
+    private final Callable<Integer> churnTask = new Callable<Integer>() {
+        @Override
+        public Integer call() throws Exception {
+            ScheduledFuture<?>[] timeouts = ScheduleCancelBenchmark.this.timeouts;
+            for (int i = 0; i < CHURN; i ++) {
+                int index = ScheduleCancelBenchmark.this.index;
+                timeouts[index].cancel(false);
+                timeouts[index] = executor.schedule(NOOP, 30 + (index & 31), TimeUnit.SECONDS);
+                ScheduleCancelBenchmark.this.index = ++ index == timeouts.length ? 0 : index;
+            }
+            return CHURN;
+        }
+    };
+
+    @Setup
+    public void setup() {
+        executor = new DefaultEventExecutor();
+        timeouts = new ScheduledFuture<?>[connections];
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < timeouts.length; i ++) {
+                    timeouts[i] = executor.schedule(NOOP, 30 + (i & 31), TimeUnit.SECONDS);
+                }
+            }
+        }).syncUninterruptibly();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @GenerateMicroBenchmark
+    public Integer scheduleAndCancelInEventLoop() throws Exception {
+        // Cancel and re-schedule from within the executor, as a handler would do.
+        return executor.submit(churnTask).syncUninterruptibly().getNow();
+    }
+
+    @GenerateMicroBenchmark
+    public ScheduledFuture<?> scheduleAndCancelFromOutside() {
+        int index = this.index;
+        timeouts[index].cancel(false);
+        ScheduledFuture<?> future = timeouts[index] = executor.schedule(NOOP, 30 + (index & 31), TimeUnit.SECONDS);
+        this.index = ++ index == timeouts.length ? 0 : index;
+        return future;
+    }
+}
@@ -74,8 +74,15 @@ public class AbstractMicrobenchmark {
             runnerOptions.forks(getForks());
         }
 
+        if (getThreads() > 0) {
+            runnerOptions.threads(getThreads());
+        }
+
         if (getReportDir() != null) {
             String filePath = getReportDir() + className + ".json";
+            if (getThreads() > 0) {
+                filePath = getReportDir() + className + '-' + getThreads() + "threads.json";
+            }
             File file = new File(filePath);
             if (file.exists()) {
                 file.delete();
@@ -103,6 +110,10 @@ public class AbstractMicrobenchmark {
         return SystemPropertyUtil.getInt("forks", -1);
     }
 
+    protected int getThreads() {
+        return SystemPropertyUtil.getInt("threads", -1);
+    }
+
     protected String getReportDir() {
         return SystemPropertyUtil.get("perfReportDir");
     }
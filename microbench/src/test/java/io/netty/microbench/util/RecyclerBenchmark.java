@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.util;
+
+import io.netty.util.Recycler;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Queue;
+
+/**
+ * This class benchmarks the {@link Recycler} when objects are recycled by the thread which created them and when
+ * they are handed over to and recycled by another thread, compared to allocating a new object every time. Run it
+ * with {@code -prof gc} to compare the allocation rates.
+ */
+public class RecyclerBenchmark extends AbstractMicrobenchmark {
+
+    private static final class RecyclableObject {
+        private final Recycler.Handle<RecyclableObject> handle;
+
+        RecyclableObject(Recycler.Handle<RecyclableObject> handle) {
+            this.handle = handle;
+        }
+
+        void recycle() {
+            handle.recycle(this);
+        }
+    }
+
+    private static final Recycler<RecyclableObject> RECYCLER = new Recycler<RecyclableObject>() {
+        @Override
+        protected RecyclableObject newObject(Handle<RecyclableObject> handle) {
+            return new RecyclableObject(handle);
+        }
+    };
+
+    private final Queue<RecyclableObject> handOff = PlatformDependent.newFixedMpscQueue(1024);
+    private volatile boolean running;
+    private Thread recyclingThread;
+
+    @Setup
+    public void setup() {
+        running = true;
+        recyclingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running) {
+                    RecyclableObject object = handOff.poll();
+                    if (object == null) {
+                        Thread.yield();
+                    } else {
+                        object.recycle();
+                    }
+                }
+            }
+        });
+        recyclingThread.start();
+    }
+
+    @TearDown
+    public void teardown() throws InterruptedException {
+        running = false;
+        recyclingThread.join();
+    }
+
+    @GenerateMicroBenchmark
+    public RecyclableObject allocate() {
+        return new RecyclableObject(null);
+    }
+
+    @GenerateMicroBenchmark
+    public RecyclableObject recycleSameThread() {
+        RecyclableObject object = RECYCLER.get();
+        object.recycle();
+        return object;
+    }
+
+    @GenerateMicroBenchmark
+    public RecyclableObject recycleOtherThread() {
+        RecyclableObject object = RECYCLER.get();
+        if (!handOff.offer(object)) {
+            // The recycling thread does not keep up, so recycle the object here.
+            object.recycle();
+        }
+        return object;
+    }
+}
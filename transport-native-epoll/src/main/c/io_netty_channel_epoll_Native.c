@@ -13,12 +13,14 @@
  * License for the specific language governing permissions and limitations
  * under the License.
  */
+#define _GNU_SOURCE
 #include <jni.h>
 #include <stdlib.h>
 #include <string.h>
 #include <errno.h>
 #include <sys/epoll.h>
 #include <sys/eventfd.h>
+#include <sys/timerfd.h>
 #include <sys/sendfile.h>
 #include <netinet/tcp.h>
 #include <netinet/in.h>
@@ -30,6 +32,15 @@
 #include <sys/utsname.h>
 #include "io_netty_channel_epoll_Native.h"
 
+// TCP_FASTOPEN and MSG_FASTOPEN are only defined in recent headers, define them so it also compiles on older systems.
+#ifndef TCP_FASTOPEN
+#define TCP_FASTOPEN 23
+#endif
+
+#ifndef MSG_FASTOPEN
+#define MSG_FASTOPEN 0x20000000
+#endif
+
 
 // optional
 extern int accept4(int sockFd, struct sockaddr *addr, socklen_t *addrlen, int flags) __attribute__((weak));
@@ -48,6 +59,12 @@ jfieldID fileDescriptorFieldId = NULL;
 jfieldID readerIndexFieldId = NULL;
 jfieldID writerIndexFieldId = NULL;
 jfieldID memoryAddressFieldId = NULL;
+jfieldID packetAddrFieldId = NULL;
+jfieldID packetScopeIdFieldId = NULL;
+jfieldID packetPortFieldId = NULL;
+jfieldID packetMemoryAddressFieldId = NULL;
+jfieldID packetCountFieldId = NULL;
+jfieldID packetSenderFieldId = NULL;
 jmethodID inetSocketAddrMethodId = NULL;
 jmethodID datagramSocketAddrMethodId = NULL;
 jclass runtimeExceptionClass = NULL;
@@ -87,8 +104,14 @@ char *exceptionMessage(char *msg, int error) {
 }
 
 jint epollCtl(JNIEnv * env, jint efd, int op, jint fd, jint flags, jint id) {
-    uint32_t events = EPOLLET;
+    uint32_t events = 0;
 
+    if (flags & EPOLL_EDGE) {
+        events |= EPOLLET;
+    }
+    if (flags & EPOLL_ONESHOT) {
+        events |= EPOLLONESHOT;
+    }
     if (flags & EPOLL_ACCEPT) {
         events |= EPOLLIN;
     }
@@ -396,6 +419,42 @@ jint JNI_OnLoad(JavaVM* vm, void* reserved) {
             // pending exception...
             return JNI_ERR;
         }
+
+        jclass nativeDatagramPacketClass = (*env)->FindClass(env, "io/netty/channel/epoll/NativeDatagramPacketArray$NativeDatagramPacket");
+        if (nativeDatagramPacketClass == NULL) {
+             // pending exception...
+            return JNI_ERR;
+        }
+        packetAddrFieldId = (*env)->GetFieldID(env, nativeDatagramPacketClass, "addr", "[B");
+        if (packetAddrFieldId == NULL) {
+            // pending exception...
+            return JNI_ERR;
+        }
+        packetScopeIdFieldId = (*env)->GetFieldID(env, nativeDatagramPacketClass, "scopeId", "I");
+        if (packetScopeIdFieldId == NULL) {
+            // pending exception...
+            return JNI_ERR;
+        }
+        packetPortFieldId = (*env)->GetFieldID(env, nativeDatagramPacketClass, "port", "I");
+        if (packetPortFieldId == NULL) {
+            // pending exception...
+            return JNI_ERR;
+        }
+        packetMemoryAddressFieldId = (*env)->GetFieldID(env, nativeDatagramPacketClass, "memoryAddress", "J");
+        if (packetMemoryAddressFieldId == NULL) {
+            // pending exception...
+            return JNI_ERR;
+        }
+        packetCountFieldId = (*env)->GetFieldID(env, nativeDatagramPacketClass, "count", "I");
+        if (packetCountFieldId == NULL) {
+            // pending exception...
+            return JNI_ERR;
+        }
+        packetSenderFieldId = (*env)->GetFieldID(env, nativeDatagramPacketClass, "sender", "Lio/netty/channel/epoll/EpollDatagramChannel$DatagramSocketAddress;");
+        if (packetSenderFieldId == NULL) {
+            // pending exception...
+            return JNI_ERR;
+        }
         return JNI_VERSION_1_6;
     }
 }
@@ -453,6 +512,41 @@ JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_eventFdRead(JNIEnv * e
     }
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_timerFd(JNIEnv * env, jclass clazz) {
+    jint timerFD = timerfd_create(CLOCK_MONOTONIC, TFD_CLOEXEC | TFD_NONBLOCK);
+
+    if (timerFD < 0) {
+        int err = errno;
+        throwRuntimeException(env, exceptionMessage("Error creating timerFD(...): ", err));
+    }
+    return timerFD;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_timerFdSetTime(JNIEnv * env, jclass clazz, jint fd, jlong nanos) {
+    struct itimerspec ts;
+    memset(&ts, 0, sizeof(struct itimerspec));
+    // a value of 0 disarms the timer
+    ts.it_value.tv_sec = nanos / 1000000000L;
+    ts.it_value.tv_nsec = nanos % 1000000000L;
+
+    if (timerfd_settime(fd, 0, &ts, NULL) < 0) {
+        int err = errno;
+        throwRuntimeException(env, exceptionMessage("Error during timerfd_settime(...): ", err));
+    }
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_timerFdRead(JNIEnv * env, jclass clazz, jint fd) {
+    uint64_t expirations;
+
+    if (read(fd, &expirations, sizeof(expirations)) < 0) {
+        int err = errno;
+        // the timer may have been re-armed or disarmed since it fired
+        if (err != EAGAIN) {
+            throwRuntimeException(env, exceptionMessage("Error during read(...) of timerFD: ", err));
+        }
+    }
+}
+
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_epollCreate(JNIEnv * env, jclass clazz) {
     jint efd;
     if (epoll_create1) {
@@ -595,14 +689,14 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_writeAddress(JNIEnv *
     return write0(env, clazz, fd, (void *) address, pos, limit);
 }
 
-jint sendTo0(JNIEnv * env, jint fd, void* buffer, jint pos, jint limit ,jbyteArray address, jint scopeId, jint port) {
+jint sendTo0(JNIEnv * env, jint fd, void* buffer, jint pos, jint limit ,jbyteArray address, jint scopeId, jint port, jint flags) {
     struct sockaddr_storage addr;
     init_sockaddr(env, address, scopeId, port, &addr);
 
     ssize_t res;
     int err;
     do {
-       res = sendto(fd, buffer + pos, (size_t) (limit - pos), 0, (struct sockaddr *)&addr, sizeof(struct sockaddr_storage));
+       res = sendto(fd, buffer + pos, (size_t) (limit - pos), flags, (struct sockaddr *)&addr, sizeof(struct sockaddr_storage));
        // keep on writing if it was interrupted
     } while(res == -1 && ((err = errno) == EINTR));
 
@@ -611,6 +705,10 @@ jint sendTo0(JNIEnv * env, jint fd, void* buffer, jint pos, jint limit ,jbyteArr
         if (err == EAGAIN || err == EWOULDBLOCK) {
             return 0;
         }
+        if (err == EINPROGRESS && (flags & MSG_FASTOPEN)) {
+            // no data was sent with the SYN but the connect is in progress now, need to wait for EPOLLOUT event
+            return 0;
+        }
         if (err == EBADF) {
             throwClosedChannelException(env);
             return -1;
@@ -627,11 +725,16 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendTo(JNIEnv * env, j
         throwRuntimeException(env, "Unable to access address of buffer");
         return -1;
     }
-    return sendTo0(env, fd, buffer, pos, limit, address, scopeId, port);
+    return sendTo0(env, fd, buffer, pos, limit, address, scopeId, port, 0);
 }
 
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendToAddress(JNIEnv * env, jclass clazz, jint fd, jlong memoryAddress, jint pos, jint limit ,jbyteArray address, jint scopeId, jint port) {
-    return sendTo0(env, fd, (void*) memoryAddress, pos, limit, address, scopeId, port);
+    return sendTo0(env, fd, (void*) memoryAddress, pos, limit, address, scopeId, port, 0);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendToAddressFastOpen(JNIEnv * env, jclass clazz, jint fd, jlong memoryAddress, jint pos, jint limit ,jbyteArray address, jint scopeId, jint port) {
+    // connects the socket and sends the data with the SYN if a TCP Fast Open cookie for the peer is cached
+    return sendTo0(env, fd, (void*) memoryAddress, pos, limit, address, scopeId, port, MSG_FASTOPEN);
 }
 
 jobject recvFrom0(JNIEnv * env, jint fd, void* buffer, jint pos, jint limit) {
@@ -675,6 +778,115 @@ JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_recvFromAddress(JNI
     return recvFrom0(env, fd, (void*) address, pos, limit);
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_sendmmsg(JNIEnv * env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
+    struct mmsghdr msg[len];
+    struct sockaddr_storage addr[len];
+    struct iovec iov[len];
+    int i;
+
+    memset(msg, 0, sizeof(msg));
+    memset(addr, 0, sizeof(addr));
+
+    for (i = 0; i < len; i++) {
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+        jbyteArray address = (jbyteArray) (*env)->GetObjectField(env, packet, packetAddrFieldId);
+        jint scopeId = (*env)->GetIntField(env, packet, packetScopeIdFieldId);
+        jint port = (*env)->GetIntField(env, packet, packetPortFieldId);
+
+        init_sockaddr(env, address, scopeId, port, &addr[i]);
+
+        iov[i].iov_base = (void *) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
+        iov[i].iov_len = (size_t) (*env)->GetIntField(env, packet, packetCountFieldId);
+
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = sizeof(struct sockaddr_storage);
+        msg[i].msg_hdr.msg_iov = &iov[i];
+        msg[i].msg_hdr.msg_iovlen = 1;
+
+        // Delete the local references as otherwise we may run out of them for big batches
+        (*env)->DeleteLocalRef(env, address);
+        (*env)->DeleteLocalRef(env, packet);
+    }
+
+    ssize_t res;
+    int err;
+    do {
+       res = sendmmsg(fd, msg, len, 0);
+       // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        // network stack saturated... try again later
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            return 0;
+        }
+        if (err == EBADF) {
+            throwClosedChannelException(env);
+            return -1;
+        }
+        throwIOException(env, exceptionMessage("Error while sendmmsg(...): ", err));
+        return -1;
+    }
+    return (jint) res;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_recvmmsg(JNIEnv * env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
+    struct mmsghdr msg[len];
+    struct sockaddr_storage addr[len];
+    struct iovec iov[len];
+    int i;
+
+    memset(msg, 0, sizeof(msg));
+
+    for (i = 0; i < len; i++) {
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+
+        iov[i].iov_base = (void *) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
+        iov[i].iov_len = (size_t) (*env)->GetIntField(env, packet, packetCountFieldId);
+
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = sizeof(struct sockaddr_storage);
+        msg[i].msg_hdr.msg_iov = &iov[i];
+        msg[i].msg_hdr.msg_iovlen = 1;
+
+        (*env)->DeleteLocalRef(env, packet);
+    }
+
+    ssize_t res;
+    int err;
+    do {
+        res = recvmmsg(fd, msg, len, 0, NULL);
+        // Keep on reading if we was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            // Nothing left to read
+            return 0;
+        }
+        if (err == EBADF) {
+            throwClosedChannelException(env);
+            return -1;
+        }
+        throwIOException(env, exceptionMessage("Error while recvmmsg(...): ", err));
+        return -1;
+    }
+
+    for (i = 0; i < res; i++) {
+        jobject sender = createDatagramSocketAddress(env, addr[i], msg[i].msg_len);
+        if (sender == NULL) {
+            // pending exception...
+            return -1;
+        }
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+        (*env)->SetObjectField(env, packet, packetSenderFieldId, sender);
+
+        (*env)->DeleteLocalRef(env, sender);
+        (*env)->DeleteLocalRef(env, packet);
+    }
+    return (jint) res;
+}
+
 void incrementPosition(JNIEnv * env, jobject bufObj, int written) {
     // Get the current position using the (*env)->GetIntField if possible and fallback
     // to slower (*env)->CallIntMethod(...) if needed
@@ -1009,6 +1221,55 @@ JNIEXPORT jlong JNICALL Java_io_netty_channel_epoll_Native_sendfile(JNIEnv *env,
     return res;
 }
 
+JNIEXPORT jlong JNICALL Java_io_netty_channel_epoll_Native_pipe0(JNIEnv * env, jclass clazz) {
+    int fd[2];
+    if (pipe2(fd, O_NONBLOCK | O_CLOEXEC) == -1) {
+        int err = errno;
+        throwIOException(env, exceptionMessage("Error during pipe2(...): ", err));
+        return -1;
+    }
+    // encode both file descriptors into one jlong, the read end in the high bits.
+    return (((jlong) fd[0]) << 32) | (fd[1] & 0xffffffffL);
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_splice(JNIEnv * env, jclass clazz, jint fd, jlong offIn, jint fdOut, jlong offOut, jint len) {
+    ssize_t res;
+    int err;
+    loff_t off_in = (loff_t) offIn;
+    loff_t off_out = (loff_t) offOut;
+
+    // an offset of -1 means the file descriptor is not seekable (socket or pipe) or its position should be used.
+    loff_t *p_off_in = off_in >= 0 ? &off_in : NULL;
+    loff_t *p_off_out = off_out >= 0 ? &off_out : NULL;
+
+    do {
+        res = splice(fd, p_off_in, fdOut, p_off_out, (size_t) len, SPLICE_F_NONBLOCK | SPLICE_F_MOVE);
+        // keep on splicing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        if (err == EAGAIN || err == EWOULDBLOCK) {
+            // either nothing to read or the pipe / socket is full
+            return 0;
+        }
+        if (err == EBADF) {
+            throwClosedChannelException(env);
+            return -1;
+        }
+        throwIOException(env, exceptionMessage("Error during splice(...): ", err));
+        return -1;
+    }
+    if (res == 0 && len > 0) {
+        // end-of-stream
+        return -1;
+    }
+    return (jint) res;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_fileDescriptorValue(JNIEnv * env, jclass clazz, jobject fileDescriptor) {
+    return (*env)->GetIntField(env, fileDescriptor, fdFieldId);
+}
+
 JNIEXPORT jobject JNICALL Java_io_netty_channel_epoll_Native_remoteAddress(JNIEnv * env, jclass clazz, jint fd) {
     socklen_t len;
     struct sockaddr_storage addr;
@@ -1091,6 +1352,18 @@ JNIEXPORT void Java_io_netty_channel_epoll_Native_setTcpKeepCnt(JNIEnv *env, jcl
     setOption(env, fd, SOL_TCP, TCP_KEEPCNT, &optval, sizeof(optval));
 }
 
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setTcpFastOpen(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_TCP, TCP_FASTOPEN, &optval, sizeof(optval));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setTcpDeferAccept(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_TCP, TCP_DEFER_ACCEPT, &optval, sizeof(optval));
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_setTcpQuickAck(JNIEnv *env, jclass clazz, jint fd, jint optval) {
+    setOption(env, fd, SOL_TCP, TCP_QUICKACK, &optval, sizeof(optval));
+}
+
 JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isReuseAddresss(JNIEnv *env, jclass clazz, jint fd) {
     int optval;
     if (getOption(env, fd, SOL_SOCKET, SO_REUSEADDR, &optval, sizeof(optval)) == -1) {
@@ -1191,6 +1464,72 @@ JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getTcpKeepCnt(JNIEnv *
      return optval;
 }
 
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getTcpFastOpen(JNIEnv *env, jclass clazz, jint fd) {
+    int optval = 0;
+    if (getOption(env, fd, SOL_TCP, TCP_FASTOPEN, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_getTcpDeferAccept(JNIEnv *env, jclass clazz, jint fd) {
+    int optval = 0;
+    if (getOption(env, fd, SOL_TCP, TCP_DEFER_ACCEPT, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+JNIEXPORT jint JNICALL Java_io_netty_channel_epoll_Native_isTcpQuickAck(JNIEnv *env, jclass clazz, jint fd) {
+    int optval = 0;
+    if (getOption(env, fd, SOL_TCP, TCP_QUICKACK, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+JNIEXPORT void JNICALL Java_io_netty_channel_epoll_Native_tcpInfo0(JNIEnv *env, jclass clazz, jint fd, jlongArray array) {
+    struct tcp_info tcp_info;
+    if (getOption(env, fd, IPPROTO_TCP, TCP_INFO, &tcp_info, sizeof(tcp_info)) == -1) {
+        return;
+    }
+    // copy into a stack allocated array first so we only need one JNI call to fill the java array
+    jlong cArray[32];
+    cArray[0] = tcp_info.tcpi_state;
+    cArray[1] = tcp_info.tcpi_ca_state;
+    cArray[2] = tcp_info.tcpi_retransmits;
+    cArray[3] = tcp_info.tcpi_probes;
+    cArray[4] = tcp_info.tcpi_backoff;
+    cArray[5] = tcp_info.tcpi_options;
+    cArray[6] = tcp_info.tcpi_snd_wscale;
+    cArray[7] = tcp_info.tcpi_rcv_wscale;
+    cArray[8] = tcp_info.tcpi_rto;
+    cArray[9] = tcp_info.tcpi_ato;
+    cArray[10] = tcp_info.tcpi_snd_mss;
+    cArray[11] = tcp_info.tcpi_rcv_mss;
+    cArray[12] = tcp_info.tcpi_unacked;
+    cArray[13] = tcp_info.tcpi_sacked;
+    cArray[14] = tcp_info.tcpi_lost;
+    cArray[15] = tcp_info.tcpi_retrans;
+    cArray[16] = tcp_info.tcpi_fackets;
+    cArray[17] = tcp_info.tcpi_last_data_sent;
+    cArray[18] = tcp_info.tcpi_last_ack_sent;
+    cArray[19] = tcp_info.tcpi_last_data_recv;
+    cArray[20] = tcp_info.tcpi_last_ack_recv;
+    cArray[21] = tcp_info.tcpi_pmtu;
+    cArray[22] = tcp_info.tcpi_rcv_ssthresh;
+    cArray[23] = tcp_info.tcpi_rtt;
+    cArray[24] = tcp_info.tcpi_rttvar;
+    cArray[25] = tcp_info.tcpi_snd_ssthresh;
+    cArray[26] = tcp_info.tcpi_snd_cwnd;
+    cArray[27] = tcp_info.tcpi_advmss;
+    cArray[28] = tcp_info.tcpi_reordering;
+    cArray[29] = tcp_info.tcpi_rcv_rtt;
+    cArray[30] = tcp_info.tcpi_rcv_space;
+    cArray[31] = tcp_info.tcpi_total_retrans;
+    (*env)->SetLongArrayRegion(env, array, 0, 32, cArray);
+}
+
 JNIEXPORT jstring JNICALL Java_io_netty_channel_epoll_Native_kernelVersion(JNIEnv *env, jclass clazz) {
     struct utsname name;
 
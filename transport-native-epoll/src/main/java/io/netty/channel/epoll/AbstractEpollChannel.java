@@ -27,10 +27,12 @@ import java.nio.channels.UnresolvedAddressException;
 abstract class AbstractEpollChannel extends AbstractChannel {
     private static final ChannelMetadata DATA = new ChannelMetadata(false);
     private final int readFlag;
-    protected int flags;
+    protected int flags = Native.EPOLLET;
     protected volatile boolean active;
     volatile int fd;
     int id;
+    // true if epoll reported an event for the EPOLLONESHOT registration, which is disabled until it is modified again
+    private boolean oneShotDisarmed;
 
     AbstractEpollChannel(int fd, int flag) {
         this(null, fd, flag, false);
@@ -101,6 +103,8 @@ abstract class AbstractEpollChannel extends AbstractChannel {
         if ((flags & readFlag) == 0) {
             flags |= readFlag;
             modifyEvents();
+        } else if (oneShotDisarmed) {
+            modifyEvents();
         }
     }
 
@@ -130,10 +134,54 @@ abstract class AbstractEpollChannel extends AbstractChannel {
         }
     }
 
+    /**
+     * Returns {@code true} if the given epoll flag is set for this channel.
+     */
+    final boolean isFlagSet(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * Set the given epoll flag and update the registration if needed.
+     */
+    final void setFlag(int flag) {
+        updateFlag(flag, true);
+    }
+
+    /**
+     * Clear the given epoll flag and update the registration if needed.
+     */
+    final void clearFlag(int flag) {
+        updateFlag(flag, false);
+    }
+
+    private void updateFlag(final int flag, final boolean set) {
+        if (isRegistered()) {
+            final EventLoop loop = eventLoop();
+            if (!loop.inEventLoop()) {
+                // schedule a task as it is not safe to modify the flags directly
+                loop.execute(new OneTimeTask() {
+                    @Override
+                    public void run() {
+                        updateFlag(flag, set);
+                    }
+                });
+                return;
+            }
+        }
+        int newFlags = set ? flags | flag : flags & ~flag;
+        if (newFlags != flags) {
+            flags = newFlags;
+            modifyEvents();
+        }
+    }
+
     protected final void setEpollOut() {
         if ((flags & Native.EPOLLOUT) == 0) {
             flags |= Native.EPOLLOUT;
             modifyEvents();
+        } else if (oneShotDisarmed) {
+            modifyEvents();
         }
     }
 
@@ -145,8 +193,30 @@ abstract class AbstractEpollChannel extends AbstractChannel {
     }
 
     private void modifyEvents() {
-        if (isOpen()) {
+        if (isOpen() && isRegistered()) {
             ((EpollEventLoop) eventLoop()).modify(this);
+            oneShotDisarmed = false;
+        }
+    }
+
+    /**
+     * Called by the {@link EpollEventLoop} before an event of a {@code EPOLLONESHOT} registration is processed, as
+     * epoll disabled the registration after reporting the event.
+     */
+    final void epollOneShotDisarmed() {
+        oneShotDisarmed = true;
+    }
+
+    /**
+     * Called by the {@link EpollEventLoop} after an event of a {@code EPOLLONESHOT} registration was processed. The
+     * registration is only re-armed if it was not modified while processing the event and the channel still waits
+     * for more events, which means it has a pending flush or wants to read. Otherwise it is re-armed once the
+     * channel asks for more events via {@link #doBeginRead()} or {@link #setEpollOut()}.
+     */
+    final void epollOneShotProcessed() {
+        if (oneShotDisarmed && isOpen() && (isFlagSet(Native.EPOLLOUT) ||
+                isFlagSet(readFlag) && (config().isAutoRead() || ((AbstractEpollUnsafe) unsafe()).readPending))) {
+            modifyEvents();
         }
     }
 
@@ -167,6 +237,7 @@ abstract class AbstractEpollChannel extends AbstractChannel {
 
     protected abstract class AbstractEpollUnsafe extends AbstractUnsafe {
         protected boolean readPending;
+        private Runnable epollInReadyTask;
 
         /**
          * Called once EPOLLIN event is ready to be processed
@@ -206,6 +277,31 @@ abstract class AbstractEpollChannel extends AbstractChannel {
             super.flush0();
         }
 
+        /**
+         * Called once {@link #epollInReady()} stopped reading because
+         * {@link io.netty.channel.ChannelConfig#getMaxMessagesPerRead()} was reached and so there may be more left
+         * to read. In edge-triggered mode epoll will not notify us again for data that is already there, so
+         * schedule a task which continues reading once the other pending work of the {@link EventLoop} was done.
+         */
+        final void epollInReadyLater() {
+            if (!isFlagSet(Native.EPOLLET)) {
+                // level-triggered, epoll will notify us again
+                return;
+            }
+            Runnable task = epollInReadyTask;
+            if (task == null) {
+                epollInReadyTask = task = new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isOpen() && (config().isAutoRead() || readPending)) {
+                            epollInReady();
+                        }
+                    }
+                };
+            }
+            eventLoop().execute(task);
+        }
+
         private boolean isFlushPending() {
             return (flags & Native.EPOLLOUT) != 0;
         }
@@ -25,6 +25,13 @@ public final class EpollChannelOption {
     public static final ChannelOption<Integer> TCP_KEEPIDLE = ChannelOption.valueOf(T, "TCP_KEEPIDLE");
     public static final ChannelOption<Integer> TCP_KEEPINTVL = ChannelOption.valueOf(T, "TCP_KEEPINTVL");
     public static final ChannelOption<Integer> TCP_KEEPCNT = ChannelOption.valueOf(T, "TCP_KEEPCNT");
+    public static final ChannelOption<EpollMode> EPOLL_MODE = ChannelOption.valueOf(T, "EPOLL_MODE");
+    public static final ChannelOption<Boolean> EPOLL_ONESHOT = ChannelOption.valueOf(T, "EPOLL_ONESHOT");
+    public static final ChannelOption<Integer> DATAGRAM_BATCH_SIZE = ChannelOption.valueOf(T, "DATAGRAM_BATCH_SIZE");
+    public static final ChannelOption<Integer> TCP_FASTOPEN = ChannelOption.valueOf(T, "TCP_FASTOPEN");
+    public static final ChannelOption<Boolean> TCP_FASTOPEN_CONNECT = ChannelOption.valueOf(T, "TCP_FASTOPEN_CONNECT");
+    public static final ChannelOption<Integer> TCP_DEFER_ACCEPT = ChannelOption.valueOf(T, "TCP_DEFER_ACCEPT");
+    public static final ChannelOption<Boolean> TCP_QUICKACK = ChannelOption.valueOf(T, "TCP_QUICKACK");
 
     private EpollChannelOption() { }
 
@@ -16,6 +16,7 @@
 package io.netty.channel.epoll;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelMetadata;
@@ -25,8 +26,8 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.DatagramChannel;
-import io.netty.channel.socket.DatagramChannelConfig;
 import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.io.IOException;
@@ -49,6 +50,7 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
     private volatile InetSocketAddress remote;
     private volatile boolean connected;
     private final EpollDatagramChannelConfig config;
+    private NativeDatagramPacketArray sendPackets;
 
     public EpollDatagramChannel() {
         super(Native.socketDgramFd(), Native.EPOLLIN);
@@ -255,6 +257,32 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 break;
             }
 
+            int batchSize = config().getDatagramBatchSize();
+            if (batchSize > 1 && in.size() > 1) {
+                NativeDatagramPacketArray array = sendPackets;
+                if (array == null || array.packets().length != batchSize) {
+                    sendPackets = array = new NativeDatagramPacketArray(batchSize);
+                }
+                int count = ((EpollDatagramChannelOutboundBuffer) in).packets(array, remote);
+                if (count > 1) {
+                    // Write as many datagrams as possible with one syscall via sendmmsg(...)
+                    NativeDatagramPacketArray.NativeDatagramPacket[] packets = array.packets();
+                    int sent = 0;
+                    for (int i = config().getWriteSpinCount() - 1; i >= 0 && sent < count; i--) {
+                        sent += Native.sendmmsg(fd, packets, sent, count - sent);
+                    }
+                    for (int i = 0; i < sent; i++) {
+                        in.remove();
+                    }
+                    if (sent < count) {
+                        // Did not write all messages.
+                        setEpollOut();
+                        break;
+                    }
+                    continue;
+                }
+            }
+
             boolean done = false;
             for (int i = config().getWriteSpinCount() - 1; i >= 0; i--) {
                 if (doWriteMessage(msg)) {
@@ -335,8 +363,20 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
         connected = false;
     }
 
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            super.doClose();
+        } finally {
+            ((EpollDatagramChannelUnsafe) unsafe()).releaseRecvBuffers();
+        }
+    }
+
     final class EpollDatagramChannelUnsafe extends AbstractEpollUnsafe {
         private RecvByteBufAllocator.Handle allocHandle;
+        private NativeDatagramPacketArray recvPackets;
+        // buffers that were allocated for recvmmsg(...) but not filled yet, kept for the next read
+        private ByteBuf[] recvBuffers;
 
         @Override
         public void connect(SocketAddress remote, SocketAddress local, ChannelPromise channelPromise) {
@@ -368,7 +408,7 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
         @Override
         void epollInReady() {
-            DatagramChannelConfig config = config();
+            EpollDatagramChannelConfig config = config();
             RecvByteBufAllocator.Handle allocHandle = this.allocHandle;
             if (allocHandle == null) {
                 this.allocHandle = allocHandle = config.getRecvByteBufAllocator().newHandle();
@@ -377,42 +417,18 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
             assert eventLoop().inEventLoop();
             final ChannelPipeline pipeline = pipeline();
             try {
-                for (;;) {
-                    ByteBuf data = null;
-                    try {
-                        data = allocHandle.allocate(config.getAllocator());
-                        int writerIndex = data.writerIndex();
-                        DatagramSocketAddress remoteAddress;
-                        if (data.hasMemoryAddress()) {
-                            // has a memory address so use optimized call
-                            remoteAddress = Native.recvFromAddress(
-                                    fd, data.memoryAddress(), writerIndex, data.capacity());
-                        } else {
-                            ByteBuffer nioData = data.internalNioBuffer(writerIndex, data.writableBytes());
-                            remoteAddress = Native.recvFrom(
-                                    fd, nioData, nioData.position(), nioData.limit());
-                        }
-
-                        if (remoteAddress == null) {
-                            break;
-                        }
-
-                        int readBytes = remoteAddress.receivedAmount;
-                        data.writerIndex(data.writerIndex() + readBytes);
-                        allocHandle.record(readBytes);
-                        readPending = false;
-                        pipeline.fireChannelRead(
-                                new DatagramPacket(data, (InetSocketAddress) localAddress(), remoteAddress));
-                        data = null;
-                    } catch (Throwable t) {
-                        // keep on reading as we use epoll ET and need to consume everything from the socket
-                        pipeline.fireChannelReadComplete();
-                        pipeline.fireExceptionCaught(t);
-                    } finally {
-                        if (data != null) {
-                            data.release();
-                        }
-                    }
+                final int maxMessagesPerRead = config.getMaxMessagesPerRead();
+                final int batchSize = config.getDatagramBatchSize();
+                final boolean maybeMoreDataToRead;
+                if (batchSize > 1 && PlatformDependent.hasUnsafe()) {
+                    maybeMoreDataToRead = readBatch(
+                            pipeline, config.getAllocator(), allocHandle, batchSize, maxMessagesPerRead);
+                } else {
+                    maybeMoreDataToRead = read(pipeline, config.getAllocator(), allocHandle, maxMessagesPerRead);
+                }
+                pipeline.fireChannelReadComplete();
+                if (maybeMoreDataToRead) {
+                    epollInReadyLater();
                 }
             } finally {
                 // Check if there is a readPending which was not processed yet.
@@ -426,6 +442,142 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 }
             }
         }
+
+        /**
+         * Read one datagram per syscall until there is nothing left to read or {@code maxMessages} were read.
+         *
+         * @return {@code true} if the read stopped because {@code maxMessages} were read
+         */
+        private boolean read(ChannelPipeline pipeline, ByteBufAllocator allocator,
+                             RecvByteBufAllocator.Handle allocHandle, int maxMessages) {
+            int messages = 0;
+            for (;;) {
+                ByteBuf data = null;
+                try {
+                    data = allocHandle.allocate(allocator);
+                    int writerIndex = data.writerIndex();
+                    DatagramSocketAddress remoteAddress;
+                    if (data.hasMemoryAddress()) {
+                        // has a memory address so use optimized call
+                        remoteAddress = Native.recvFromAddress(
+                                fd, data.memoryAddress(), writerIndex, data.capacity());
+                    } else {
+                        ByteBuffer nioData = data.internalNioBuffer(writerIndex, data.writableBytes());
+                        remoteAddress = Native.recvFrom(
+                                fd, nioData, nioData.position(), nioData.limit());
+                    }
+
+                    if (remoteAddress == null) {
+                        return false;
+                    }
+
+                    int readBytes = remoteAddress.receivedAmount;
+                    data.writerIndex(data.writerIndex() + readBytes);
+                    allocHandle.record(readBytes);
+                    readPending = false;
+                    pipeline.fireChannelRead(
+                            new DatagramPacket(data, (InetSocketAddress) localAddress(), remoteAddress));
+                    data = null;
+                } catch (Throwable t) {
+                    // keep on reading as we use epoll ET and need to consume everything from the socket
+                    pipeline.fireChannelReadComplete();
+                    pipeline.fireExceptionCaught(t);
+                } finally {
+                    if (data != null) {
+                        data.release();
+                    }
+                }
+                if (++ messages >= maxMessages) {
+                    // Give other channels a chance to be served.
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Read up to {@code batchSize} datagrams per syscall via recvmmsg(...) until there is nothing left to read or
+         * {@code maxMessages} were read.
+         *
+         * @return {@code true} if the read stopped because {@code maxMessages} were read
+         */
+        private boolean readBatch(ChannelPipeline pipeline, ByteBufAllocator allocator,
+                                  RecvByteBufAllocator.Handle allocHandle, int batchSize, int maxMessages) {
+            NativeDatagramPacketArray array = recvPackets;
+            ByteBuf[] buffers = recvBuffers;
+            if (array == null || buffers.length != batchSize) {
+                releaseRecvBuffers();
+                recvPackets = array = new NativeDatagramPacketArray(batchSize);
+                recvBuffers = buffers = new ByteBuf[batchSize];
+            }
+            NativeDatagramPacketArray.NativeDatagramPacket[] packets = array.packets();
+            InetSocketAddress localAddress = (InetSocketAddress) localAddress();
+            int messages = 0;
+            for (;;) {
+                try {
+                    final int count = Math.min(batchSize, maxMessages - messages);
+                    for (int i = 0; i < count; i++) {
+                        ByteBuf data = buffers[i];
+                        if (data == null) {
+                            data = allocHandle.allocate(allocator);
+                            if (!data.hasMemoryAddress()) {
+                                // can only happen with a custom allocator, fallback to read one datagram at a time.
+                                data.release();
+                                return read(pipeline, allocator, allocHandle, maxMessages - messages);
+                            }
+                            buffers[i] = data;
+                        }
+                        array.set(i, data);
+                    }
+
+                    int received = Native.recvmmsg(fd, packets, 0, count);
+                    if (received == 0) {
+                        return false;
+                    }
+                    messages += received;
+                    for (int i = 0; i < received; i++) {
+                        ByteBuf data = buffers[i];
+                        buffers[i] = null;
+                        DatagramSocketAddress remoteAddress = packets[i].sender;
+                        packets[i].sender = null;
+
+                        int readBytes = remoteAddress.receivedAmount;
+                        data.writerIndex(data.writerIndex() + readBytes);
+                        allocHandle.record(readBytes);
+                        readPending = false;
+                        pipeline.fireChannelRead(new DatagramPacket(data, localAddress, remoteAddress));
+                    }
+                    if (messages >= maxMessages) {
+                        // Give other channels a chance to be served.
+                        return true;
+                    }
+                } catch (Throwable t) {
+                    // keep on reading as we use epoll ET and need to consume everything from the socket, but
+                    // release the buffers which were not used so they are not kept around while reading fails.
+                    releaseRecvBuffers();
+                    pipeline.fireChannelReadComplete();
+                    pipeline.fireExceptionCaught(t);
+                    if (++ messages >= maxMessages) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Release the buffers which were allocated for recvmmsg(...) but were not used yet.
+         */
+        void releaseRecvBuffers() {
+            ByteBuf[] buffers = recvBuffers;
+            if (buffers != null) {
+                for (int i = 0; i < buffers.length; i++) {
+                    ByteBuf buf = buffers[i];
+                    if (buf != null) {
+                        buffers[i] = null;
+                        buf.release();
+                    }
+                }
+            }
+        }
     }
 
     /**
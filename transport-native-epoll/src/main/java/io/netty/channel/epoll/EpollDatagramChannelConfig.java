@@ -29,8 +29,15 @@ import java.util.Map;
 
 public final class EpollDatagramChannelConfig extends DefaultChannelConfig implements DatagramChannelConfig {
     private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
+
+    /**
+     * The maximum value for {@link EpollChannelOption#DATAGRAM_BATCH_SIZE}.
+     */
+    public static final int MAX_DATAGRAM_BATCH_SIZE = 256;
+
     private final EpollDatagramChannel datagramChannel;
     private boolean activeOnOpen;
+    private volatile int datagramBatchSize = 1;
 
     EpollDatagramChannelConfig(EpollDatagramChannel channel) {
         super(channel);
@@ -46,7 +53,7 @@ public final class EpollDatagramChannelConfig extends DefaultChannelConfig imple
                 ChannelOption.SO_REUSEADDR, ChannelOption.IP_MULTICAST_LOOP_DISABLED,
                 ChannelOption.IP_MULTICAST_ADDR, ChannelOption.IP_MULTICAST_IF, ChannelOption.IP_MULTICAST_TTL,
                 ChannelOption.IP_TOS, ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION,
-                EpollChannelOption.SO_REUSEPORT);
+                EpollChannelOption.SO_REUSEPORT, EpollChannelOption.DATAGRAM_BATCH_SIZE);
     }
 
     @SuppressWarnings("unchecked")
@@ -87,6 +94,9 @@ public final class EpollDatagramChannelConfig extends DefaultChannelConfig imple
         if (option == EpollChannelOption.SO_REUSEPORT) {
             return (T) Boolean.valueOf(isReusePort());
         }
+        if (option == EpollChannelOption.DATAGRAM_BATCH_SIZE) {
+            return (T) Integer.valueOf(getDatagramBatchSize());
+        }
         return super.getOption(option);
     }
 
@@ -116,6 +126,8 @@ public final class EpollDatagramChannelConfig extends DefaultChannelConfig imple
             setActiveOnOpen((Boolean) value);
         } else if (option == EpollChannelOption.SO_REUSEPORT) {
             setReusePort((Boolean) value);
+        } else if (option == EpollChannelOption.DATAGRAM_BATCH_SIZE) {
+            setDatagramBatchSize((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -298,6 +310,32 @@ public final class EpollDatagramChannelConfig extends DefaultChannelConfig imple
         return this;
     }
 
+    /**
+     * Returns the maximum number of datagrams which are read or written with a single syscall.
+     */
+    public int getDatagramBatchSize() {
+        return datagramBatchSize;
+    }
+
+    /**
+     * Set the maximum number of datagrams which are read or written with a single syscall via
+     * <a href="http://linux.die.net/man/2/recvmmsg">recvmmsg(...)</a> and
+     * <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a>. The default value is {@code 1}, which
+     * means every datagram is read and written on its own.
+     *
+     * Be aware that for reading this number of buffers is allocated up-front via the
+     * {@link RecvByteBufAllocator}, so choose it based on the number of datagrams that are expected to be ready at
+     * once.
+     */
+    public EpollDatagramChannelConfig setDatagramBatchSize(int datagramBatchSize) {
+        if (datagramBatchSize < 1 || datagramBatchSize > MAX_DATAGRAM_BATCH_SIZE) {
+            throw new IllegalArgumentException("datagramBatchSize: " + datagramBatchSize +
+                    " (expected: 1-" + MAX_DATAGRAM_BATCH_SIZE + ')');
+        }
+        this.datagramBatchSize = datagramBatchSize;
+        return this;
+    }
+
     @Override
     protected void autoReadCleared() {
         datagramChannel.clearEpollIn();
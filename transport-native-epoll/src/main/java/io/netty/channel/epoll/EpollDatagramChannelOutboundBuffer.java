@@ -20,6 +20,8 @@ import io.netty.channel.ChannelOutboundBuffer;
 import io.netty.channel.socket.DatagramPacket;
 import io.netty.util.Recycler;
 
+import java.net.InetSocketAddress;
+
 final class EpollDatagramChannelOutboundBuffer extends ChannelOutboundBuffer {
     private static final Recycler<EpollDatagramChannelOutboundBuffer> RECYCLER =
             new Recycler<EpollDatagramChannelOutboundBuffer>() {
@@ -57,6 +59,27 @@ final class EpollDatagramChannelOutboundBuffer extends ChannelOutboundBuffer {
         return msg;
     }
 
+    /**
+     * Fill the given {@link NativeDatagramPacketArray} with the flushed messages, starting with the current one. It
+     * stops at the first message which can not be written via {@code sendmmsg(...)} or once the array is full.
+     * Returns the number of messages which were added.
+     */
+    int packets(NativeDatagramPacketArray array, InetSocketAddress remote) {
+        array.clear();
+        final Entry[] buffer = entries();
+        final int mask = buffer.length - 1;
+        Object m;
+        int unflushed = unflushed();
+        int flushed = flushed();
+        while (flushed != unflushed && (m = buffer[flushed].msg()) != null) {
+            if (!array.add(m, remote)) {
+                break;
+            }
+            flushed = flushed + 1 & mask;
+        }
+        return array.count();
+    }
+
     private static boolean isCopyNeeded(ByteBuf content) {
         return !content.hasMemoryAddress() || content.nioBufferCount() != 1;
     }
@@ -19,16 +19,14 @@ import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.channel.epoll.AbstractEpollChannel.AbstractEpollUnsafe;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
@@ -39,7 +37,19 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollEventLoop.class);
     private static final AtomicIntegerFieldUpdater<EpollEventLoop> WAKEN_UP_UPDATER;
 
+    static final boolean USE_TIMER_FD = SystemPropertyUtil.getBoolean("io.netty.epoll.timerFd", false);
+
+    // The id of the timer fd in the epoll set, channels only use ids > 0 and the event fd uses 0.
+    private static final int TIMER_FD_ID = -1;
+
+    // Deadline which is used if the timer fd needs to be re-armed in any case.
+    private static final long TIMER_FD_NOT_ARMED = Long.MIN_VALUE;
+
     static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.epoll.timerFd: {}", USE_TIMER_FD);
+        }
+
         AtomicIntegerFieldUpdater<EpollEventLoop> updater =
                 PlatformDependent.newAtomicIntegerFieldUpdater(EpollEventLoop.class, "wakenUp");
         if (updater == null) {
@@ -50,27 +60,49 @@ final class EpollEventLoop extends SingleThreadEventLoop {
 
     private final int epollFd;
     private final int eventFd;
-    private final Map<Integer, AbstractEpollChannel> ids = new HashMap<Integer, AbstractEpollChannel>();
+    // -1 if scheduled tasks are handled via the timeout of epoll_wait(...)
+    private final int timerFd;
+    private final IntObjectMap<AbstractEpollChannel> ids = new IntObjectHashMap<AbstractEpollChannel>(4096);
     private final long[] events;
 
     private int id;
-    private int oldWakenUp;
+    // pipe which is used to splice from a socket into a file descriptor, created lazily
+    private int[] splicePipe;
     private boolean overflown;
+    // the deadline for which the timer fd is armed at the moment
+    private long timerFdDeadlineNanos = TIMER_FD_NOT_ARMED;
 
+    // 0 only while the loop is about to block or blocks in epoll_wait(...), so other threads only write to the
+    // event fd if it is really needed.
     @SuppressWarnings("unused")
-    private volatile int wakenUp;
+    private volatile int wakenUp = 1;
     private volatile int ioRatio = 50;
 
     EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents) {
+        this(parent, executor, maxEvents, USE_TIMER_FD);
+    }
+
+    /**
+     * Creates a new instance. If {@code useTimerFd} is {@code true} the scheduled tasks are driven by a timer fd
+     * which is part of the epoll set. This gives a better precision than the millisecond timeout of
+     * {@code epoll_wait(...)} and the timer only needs to be re-armed when the next deadline changes.
+     */
+    EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents, boolean useTimerFd) {
         super(parent, executor, false);
         events = new long[maxEvents];
         boolean success = false;
         int epollFd = -1;
         int eventFd = -1;
+        int timerFd = -1;
         try {
             this.epollFd = epollFd = Native.epollCreate();
             this.eventFd = eventFd = Native.eventFd();
-            Native.epollCtlAdd(epollFd, eventFd, Native.EPOLLIN, 0);
+            Native.epollCtlAdd(epollFd, eventFd, Native.EPOLLIN | Native.EPOLLET, 0);
+            if (useTimerFd) {
+                timerFd = Native.timerFd();
+                Native.epollCtlAdd(epollFd, timerFd, Native.EPOLLIN | Native.EPOLLET, TIMER_FD_ID);
+            }
+            this.timerFd = timerFd;
             success = true;
         } finally {
             if (!success) {
@@ -88,6 +120,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                         // ignore
                     }
                 }
+                if (timerFd != -1) {
+                    try {
+                        Native.close(timerFd);
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
             }
         }
     }
@@ -152,10 +191,40 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         }
     }
 
-    @Override
-    protected Queue<Runnable> newTaskQueue() {
-        // This event loop never calls takeTask()
-        return PlatformDependent.newMpscQueue();
+    /**
+     * Returns the pipe that is shared by all channels of this {@link EpollEventLoop} to splice data into a file
+     * descriptor. The pipe must be drained completely before the caller returns, as otherwise the data of different
+     * channels would be mixed up. If this is not possible {@link #closeSplicePipe()} must be called.
+     */
+    int[] splicePipe() throws IOException {
+        assert inEventLoop();
+        int[] pipe = splicePipe;
+        if (pipe == null) {
+            splicePipe = pipe = Native.pipe();
+        }
+        return pipe;
+    }
+
+    /**
+     * Close the pipe returned by {@link #splicePipe()}, a new one will be created once it is needed again.
+     */
+    void closeSplicePipe() {
+        assert inEventLoop();
+        int[] pipe = splicePipe;
+        if (pipe != null) {
+            splicePipe = null;
+            closePipe(pipe);
+        }
+    }
+
+    private static void closePipe(int[] pipe) {
+        for (int fd: pipe) {
+            try {
+                Native.close(fd);
+            } catch (IOException e) {
+                logger.warn("Failed to close a pipe fd.", e);
+            }
+        }
     }
 
     /**
@@ -168,6 +237,9 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     /**
      * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
      * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     * The value is not used while the adaptive I/O ratio is enabled.
+     *
+     * @see #setAdaptiveIoRatio(long, long, java.util.concurrent.TimeUnit)
      */
     public void setIoRatio(int ioRatio) {
         if (ioRatio <= 0 || ioRatio > 100) {
@@ -177,6 +249,9 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     }
 
     private int epollWait() {
+        if (timerFd != -1) {
+            return epollWaitTimerFd();
+        }
         int selectCnt = 0;
         long currentTimeNanos = System.nanoTime();
         long selectDeadLineNanos = currentTimeNanos + delayNanos(currentTimeNanos);
@@ -195,7 +270,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             int selectedKeys = Native.epollWait(epollFd, events, (int) timeoutMillis);
             selectCnt ++;
 
-            if (selectedKeys != 0 || oldWakenUp == 1 || wakenUp == 1 || hasTasks()) {
+            if (selectedKeys != 0 || wakenUp == 1 || hasTasks()) {
                 // Selected something,
                 // waken up by user, or
                 // the task queue has a pending task.
@@ -206,68 +281,49 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         return 0;
     }
 
+    private int epollWaitTimerFd() {
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        if (deadlineNanos != timerFdDeadlineNanos) {
+            // Only touch the timer if the next deadline changed. If nothing is scheduled delayNanos(...) returns
+            // the default interval, so the loop still wakes up from time to time (e.g. to confirm a shutdown).
+            // A value of 0 would disarm the timer, so make sure to use at least 1 nanosecond.
+            Native.timerFdSetTime(timerFd, Math.max(1, delayNanos(System.nanoTime())));
+            timerFdDeadlineNanos = deadlineNanos;
+        }
+        return Native.epollWait(epollFd, events, -1);
+    }
+
     @Override
     protected void run() {
         for (;;) {
-            oldWakenUp = WAKEN_UP_UPDATER.getAndSet(this, 0);
             try {
                 int ready;
-                if (hasTasks()) {
+                if (hasTasks() || isIoBacklogCheckNeeded()) {
                     // Non blocking just return what is ready directly without block
                     ready = Native.epollWait(epollFd, events, 0);
                 } else {
-                    ready = epollWait();
-
-                    // 'wakenUp.compareAndSet(false, true)' is always evaluated
-                    // before calling 'selector.wakeup()' to reduce the wake-up
-                    // overhead. (Selector.wakeup() is an expensive operation.)
-                    //
-                    // However, there is a race condition in this approach.
-                    // The race condition is triggered when 'wakenUp' is set to
-                    // true too early.
-                    //
-                    // 'wakenUp' is set to true too early if:
-                    // 1) Selector is waken up between 'wakenUp.set(false)' and
-                    //    'selector.select(...)'. (BAD)
-                    // 2) Selector is waken up between 'selector.select(...)' and
-                    //    'if (wakenUp.get()) { ... }'. (OK)
-                    //
-                    // In the first case, 'wakenUp' is set to true and the
-                    // following 'selector.select(...)' will wake up immediately.
-                    // Until 'wakenUp' is set to false again in the next round,
-                    // 'wakenUp.compareAndSet(false, true)' will fail, and therefore
-                    // any attempt to wake up the Selector will fail, too, causing
-                    // the following 'selector.select(...)' call to block
-                    // unnecessarily.
-                    //
-                    // To fix this problem, we wake up the selector again if wakenUp
-                    // is true immediately after selector.select(...).
-                    // It is inefficient in that it wakes up the selector for both
-                    // the first case (BAD - wake-up required) and the second case
-                    // (OK - no wake-up required).
-
-                    if (wakenUp == 1) {
-                        Native.eventFdWrite(eventFd, 1L);
+                    // Announce that we are about to block so other threads write to the event fd when adding a task.
+                    // Tasks added before the flag was cleared did not write to the event fd, so check again.
+                    WAKEN_UP_UPDATER.set(this, 0);
+                    if (hasTasks()) {
+                        ready = Native.epollWait(epollFd, events, 0);
+                    } else {
+                        ready = epollWait();
                     }
+                    // Other threads do not need to write to the event fd until we are about to block again.
+                    WAKEN_UP_UPDATER.set(this, 1);
                 }
+                ioWokenUp(ready);
 
-                final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
-                    if (ready > 0) {
-                        processReady(events, ready);
-                    }
-                    runAllTasks();
-                } else {
-                    final long ioStartTime = System.nanoTime();
+                final long ioStartTime = System.nanoTime();
 
-                    if (ready > 0) {
-                        processReady(events, ready);
-                    }
-
-                    final long ioTime = System.nanoTime() - ioStartTime;
-                    runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                if (ready > 0) {
+                    processReady(events, ready);
                 }
 
+                final long ioTime = System.nanoTime() - ioStartTime;
+                runAllTasks(ioRatio, ioTime);
+
                 if (isShuttingDown()) {
                     closeAll();
                     if (confirmShutdown()) {
@@ -290,11 +346,8 @@ final class EpollEventLoop extends SingleThreadEventLoop {
 
     private void closeAll() {
         Native.epollWait(epollFd, events, 0);
-        Collection<AbstractEpollChannel> channels = new ArrayList<AbstractEpollChannel>(ids.size());
-
-        for (AbstractEpollChannel ch: ids.values()) {
-            channels.add(ch);
-        }
+        // Copy the channels into an array first as closing them will modify the map.
+        AbstractEpollChannel[] channels = ids.values(AbstractEpollChannel.class);
 
         for (AbstractEpollChannel ch: channels) {
             ch.unsafe().close(ch.unsafe().voidPromise());
@@ -309,6 +362,11 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             if (id == 0) {
                 // consume wakeup event
                 Native.eventFdRead(eventFd);
+            } else if (id == TIMER_FD_ID) {
+                // consume the expiration, the due tasks are run after the I/O was processed. The timer is re-armed
+                // before the next epoll_wait(...) as it may have fired before the deadline was reached.
+                Native.timerFdRead(timerFd);
+                timerFdDeadlineNanos = TIMER_FD_NOT_ARMED;
             } else {
                 boolean read = (ev & Native.EPOLLIN) != 0;
                 boolean write = (ev & Native.EPOLLOUT) != 0;
@@ -317,6 +375,10 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                 AbstractEpollChannel ch = ids.get(id);
                 if (ch != null) {
                     AbstractEpollUnsafe unsafe = (AbstractEpollUnsafe) ch.unsafe();
+                    final boolean oneShot = ch.isFlagSet(Native.EPOLLONESHOT);
+                    if (oneShot) {
+                        ch.epollOneShotDisarmed();
+                    }
                     if (write && ch.isOpen()) {
                         // force flush of data as the epoll is writable again
                         unsafe.epollOutReady();
@@ -328,6 +390,10 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                     if (close && ch.isOpen()) {
                         unsafe.epollRdHupReady();
                     }
+                    if (oneShot) {
+                        // the registration was disabled after the event was reported, re-arm it if still needed.
+                        ch.epollOneShotProcessed();
+                    }
                 }
             }
         }
@@ -345,5 +411,17 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         } catch (IOException e) {
             logger.warn("Failed to close the event fd.", e);
         }
+        if (timerFd != -1) {
+            try {
+                Native.close(timerFd);
+            } catch (IOException e) {
+                logger.warn("Failed to close the timer fd.", e);
+            }
+        }
+        int[] pipe = splicePipe;
+        if (pipe != null) {
+            splicePipe = null;
+            closePipe(pipe);
+        }
     }
 }
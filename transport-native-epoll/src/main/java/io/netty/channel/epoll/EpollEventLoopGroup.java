@@ -18,10 +18,12 @@ package io.netty.channel.epoll;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
 import io.netty.util.concurrent.EventExecutor;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link EventLoopGroup} which uses epoll under the covers. Because of this
@@ -68,6 +70,18 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Enables the adaptive I/O ratio of the child event loops, or disables it if {@code maxTaskWaitTime} is
+     * {@code 0}.
+     *
+     * @see SingleThreadEventLoop#setAdaptiveIoRatio(long, long, TimeUnit)
+     */
+    public void setAdaptiveIoRatio(long maxTaskWaitTime, long maxIoWaitTime, TimeUnit unit) {
+        for (EventExecutor e: children()) {
+            ((EpollEventLoop) e).setAdaptiveIoRatio(maxTaskWaitTime, maxIoWaitTime, unit);
+        }
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         return new EpollEventLoop(this, executor, (Integer) args[0]);
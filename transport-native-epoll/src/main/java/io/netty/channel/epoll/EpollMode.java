@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+/**
+ * The <a href="http://linux.die.net/man/7/epoll">epoll</a> mode to use.
+ */
+public enum EpollMode {
+
+    /**
+     * Use {@code EPOLLET} (edge-triggered).
+     *
+     * The channel is only notified once new data arrives, so everything must be read from the socket before
+     * waiting for the next notification. If the read loop stops early because
+     * {@link io.netty.channel.ChannelConfig#getMaxMessagesPerRead()} was reached, it continues later on the
+     * {@link io.netty.channel.EventLoop}.
+     */
+    EDGE_TRIGGERED,
+
+    /**
+     * Do not use {@code EPOLLET} (level-triggered).
+     *
+     * The channel is notified as long as there is data to read, so a busy channel can stop reading once
+     * {@link io.netty.channel.ChannelConfig#getMaxMessagesPerRead()} is reached and give other channels
+     * a chance to be served without losing readiness.
+     */
+    LEVEL_TRIGGERED
+}
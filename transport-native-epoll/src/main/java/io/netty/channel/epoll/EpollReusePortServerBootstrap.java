@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelGroupFuture;
+import io.netty.channel.group.ChannelGroupFutures;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binds one {@link EpollServerSocketChannel} per {@link EventLoop} of the {@link EpollEventLoopGroup} of the given
+ * {@link ServerBootstrap} to the same local address by using {@code SO_REUSEPORT}. The kernel then distributes
+ * incoming connections between all of these listeners, so accepting is not limited to a single thread anymore.
+ * <p>
+ * Each accepted {@link io.netty.channel.Channel} is registered to the child {@link EventLoopGroup} of the
+ * {@link ServerBootstrap}. If no child {@link EventLoopGroup} is set or it is the same as the parent one, each
+ * accepted {@link io.netty.channel.Channel} is registered to the {@link EventLoop} which accepted it.
+ * <p>
+ * All listeners are exposed as one {@link ChannelGroup}. Closing the group or any of the listeners closes all
+ * listeners, as does a failed bind of one of them.
+ */
+public final class EpollReusePortServerBootstrap {
+
+    private final ServerBootstrap bootstrap;
+
+    /**
+     * Create a new instance which uses the configuration of the given {@link ServerBootstrap}. The
+     * {@link ServerBootstrap} must use an {@link EpollEventLoopGroup} and {@link EpollServerSocketChannel}.
+     */
+    public EpollReusePortServerBootstrap(ServerBootstrap bootstrap) {
+        if (bootstrap == null) {
+            throw new NullPointerException("bootstrap");
+        }
+        if (!(bootstrap.group() instanceof EpollEventLoopGroup)) {
+            throw new IllegalArgumentException("bootstrap.group() must be an EpollEventLoopGroup");
+        }
+        this.bootstrap = bootstrap;
+    }
+
+    /**
+     * Create new listeners and bind them.
+     */
+    public ChannelGroupFuture bind(int inetPort) {
+        return bind(new InetSocketAddress(inetPort));
+    }
+
+    /**
+     * Create new listeners and bind them.
+     */
+    public ChannelGroupFuture bind(String inetHost, int inetPort) {
+        return bind(new InetSocketAddress(inetHost, inetPort));
+    }
+
+    /**
+     * Create new listeners and bind them.
+     */
+    public ChannelGroupFuture bind(InetAddress inetHost, int inetPort) {
+        return bind(new InetSocketAddress(inetHost, inetPort));
+    }
+
+    /**
+     * Create new listeners and bind them. If the port of the given address is {@code 0} this method blocks until
+     * the first listener is bound, as all others must use the same port.
+     */
+    public ChannelGroupFuture bind(SocketAddress localAddress) {
+        if (localAddress == null) {
+            throw new NullPointerException("localAddress");
+        }
+        bootstrap.validate();
+
+        final ChannelGroup channels = new DefaultChannelGroup(
+                "reuseport(" + localAddress + ')', GlobalEventExecutor.INSTANCE);
+        final ChannelFutureListener closeAll = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                channels.close();
+            }
+        };
+
+        EventLoopGroup group = bootstrap.group();
+        EventLoopGroup childGroup = bootstrap.childGroup();
+        if (childGroup == group) {
+            childGroup = null;
+        }
+        Set<EventLoop> loops = group.children();
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>(loops.size());
+        for (EventLoop loop: loops) {
+            ServerBootstrap b = bootstrap.clone(loop, childGroup == null ? loop : childGroup);
+            b.option(EpollChannelOption.SO_REUSEPORT, true);
+
+            ChannelFuture future = b.bind(localAddress);
+            channels.add(future.channel());
+            futures.add(future);
+            future.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (future.isSuccess()) {
+                        future.channel().closeFuture().addListener(closeAll);
+                    } else {
+                        channels.close();
+                    }
+                }
+            });
+
+            if (localAddress instanceof InetSocketAddress && ((InetSocketAddress) localAddress).getPort() == 0) {
+                // Let the kernel pick the port once and bind all other listeners to it.
+                if (!future.awaitUninterruptibly().isSuccess()) {
+                    break;
+                }
+                localAddress = future.channel().localAddress();
+            }
+        }
+        return ChannelGroupFutures.newFuture(channels, futures, GlobalEventExecutor.INSTANCE);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '(' + bootstrap + ')';
+    }
+}
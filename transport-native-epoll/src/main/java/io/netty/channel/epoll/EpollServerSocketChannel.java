@@ -90,9 +90,12 @@ public final class EpollServerSocketChannel extends AbstractEpollChannel impleme
         void epollInReady() {
             assert eventLoop().inEventLoop();
             final ChannelPipeline pipeline = pipeline();
+            final int maxMessagesPerRead = config.getMaxMessagesPerRead();
             Throwable exception = null;
+            boolean maybeMoreToAccept = false;
             try {
                 try {
+                    int messages = 0;
                     for (;;) {
                         int socketFd = Native.accept(fd);
                         if (socketFd == -1) {
@@ -107,6 +110,11 @@ public final class EpollServerSocketChannel extends AbstractEpollChannel impleme
                             pipeline.fireChannelReadComplete();
                             pipeline.fireExceptionCaught(t);
                         }
+                        if (++ messages >= maxMessagesPerRead) {
+                            // Give other channels a chance to be served.
+                            maybeMoreToAccept = true;
+                            break;
+                        }
                     }
                 } catch (Throwable t) {
                     exception = t;
@@ -115,6 +123,8 @@ public final class EpollServerSocketChannel extends AbstractEpollChannel impleme
 
                 if (exception != null) {
                     pipeline.fireExceptionCaught(exception);
+                } else if (maybeMoreToAccept) {
+                    epollInReadyLater();
                 }
             } finally {
                 // Check if there is a readPending which was not processed yet.
@@ -42,7 +42,9 @@ public final class EpollServerSocketChannelConfig extends DefaultChannelConfig
 
     @Override
     public Map<ChannelOption<?>, Object> getOptions() {
-        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.SO_REUSEPORT);
+        return getOptions(super.getOptions(), SO_RCVBUF, SO_REUSEADDR, SO_BACKLOG, EpollChannelOption.SO_REUSEPORT,
+                EpollChannelOption.EPOLL_MODE, EpollChannelOption.EPOLL_ONESHOT, EpollChannelOption.TCP_FASTOPEN,
+                EpollChannelOption.TCP_DEFER_ACCEPT);
     }
 
     @SuppressWarnings("unchecked")
@@ -60,6 +62,18 @@ public final class EpollServerSocketChannelConfig extends DefaultChannelConfig
         if (option == EpollChannelOption.SO_REUSEPORT) {
             return (T) Boolean.valueOf(isReusePort());
         }
+        if (option == EpollChannelOption.EPOLL_MODE) {
+            return (T) getEpollMode();
+        }
+        if (option == EpollChannelOption.EPOLL_ONESHOT) {
+            return (T) Boolean.valueOf(isEpollOneShot());
+        }
+        if (option == EpollChannelOption.TCP_FASTOPEN) {
+            return (T) Integer.valueOf(getTcpFastOpen());
+        }
+        if (option == EpollChannelOption.TCP_DEFER_ACCEPT) {
+            return (T) Integer.valueOf(getTcpDeferAccept());
+        }
         return super.getOption(option);
     }
 
@@ -75,6 +89,14 @@ public final class EpollServerSocketChannelConfig extends DefaultChannelConfig
             setBacklog((Integer) value);
         } else if (option == EpollChannelOption.SO_REUSEPORT) {
             setReusePort((Boolean) value);
+        } else if (option == EpollChannelOption.EPOLL_MODE) {
+            setEpollMode((EpollMode) value);
+        } else if (option == EpollChannelOption.EPOLL_ONESHOT) {
+            setEpollOneShot((Boolean) value);
+        } else if (option == EpollChannelOption.TCP_FASTOPEN) {
+            setTcpFastOpen((Integer) value);
+        } else if (option == EpollChannelOption.TCP_DEFER_ACCEPT) {
+            setTcpDeferAccept((Integer) value);
         } else {
             return super.setOption(option, value);
         }
@@ -197,6 +219,98 @@ public final class EpollServerSocketChannelConfig extends DefaultChannelConfig
         return this;
     }
 
+    /**
+     * Returns the length of the queue for pending TCP Fast Open requests, {@code 0} if TCP Fast Open is disabled.
+     */
+    public int getTcpFastOpen() {
+        return Native.getTcpFastOpen(channel.fd);
+    }
+
+    /**
+     * Set the {@code TCP_FASTOPEN} option on the underlying Channel, which enables TCP Fast Open and allows clients
+     * to send data with the SYN. The value is the maximal length of the queue of pending TCP Fast Open requests.
+     * This also needs TCP Fast Open to be enabled for incoming connections in
+     * {@code /proc/sys/net/ipv4/tcp_fastopen}. See {@code man 7 tcp} for more details.
+     *
+     * Be aware this method needs be called before {@link EpollServerSocketChannel#bind(java.net.SocketAddress)} to
+     * have any affect.
+     */
+    public EpollServerSocketChannelConfig setTcpFastOpen(int pendingFastOpenRequestsThreshold) {
+        if (pendingFastOpenRequestsThreshold < 0) {
+            throw new IllegalArgumentException(
+                    "pendingFastOpenRequestsThreshold: " + pendingFastOpenRequestsThreshold + " (expected: >= 0)");
+        }
+        Native.setTcpFastOpen(channel.fd, pendingFastOpenRequestsThreshold);
+        return this;
+    }
+
+    /**
+     * Get the {@code TCP_DEFER_ACCEPT} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public int getTcpDeferAccept() {
+        return Native.getTcpDeferAccept(channel.fd);
+    }
+
+    /**
+     * Set the {@code TCP_DEFER_ACCEPT} option on the socket. Connections will only be accepted once data arrived
+     * or the given number of seconds passed, so idle handshakes are not passed to the channel.
+     * See {@code man 7 tcp} for more details.
+     */
+    public EpollServerSocketChannelConfig setTcpDeferAccept(int seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("seconds: " + seconds + " (expected: >= 0)");
+        }
+        Native.setTcpDeferAccept(channel.fd, seconds);
+        return this;
+    }
+
+    /**
+     * Returns the {@link EpollMode} used. Default is {@link EpollMode#EDGE_TRIGGERED}.
+     */
+    public EpollMode getEpollMode() {
+        return channel.isFlagSet(Native.EPOLLET) ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+    }
+
+    /**
+     * Set the {@link EpollMode} used. Default is {@link EpollMode#EDGE_TRIGGERED}.
+     */
+    public EpollServerSocketChannelConfig setEpollMode(EpollMode mode) {
+        if (mode == null) {
+            throw new NullPointerException("mode");
+        }
+        switch (mode) {
+        case EDGE_TRIGGERED:
+            channel.setFlag(Native.EPOLLET);
+            break;
+        case LEVEL_TRIGGERED:
+            channel.clearFlag(Native.EPOLLET);
+            break;
+        default:
+            throw new Error();
+        }
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if the channel is registered with {@code EPOLLONESHOT}.
+     */
+    public boolean isEpollOneShot() {
+        return channel.isFlagSet(Native.EPOLLONESHOT);
+    }
+
+    /**
+     * Set if the channel should be registered with {@code EPOLLONESHOT}, which means epoll reports at most one
+     * event before the registration is re-armed by the {@link EpollEventLoop} once the event was processed.
+     */
+    public EpollServerSocketChannelConfig setEpollOneShot(boolean epollOneShot) {
+        if (epollOneShot) {
+            channel.setFlag(Native.EPOLLONESHOT);
+        } else {
+            channel.clearFlag(Native.EPOLLONESHOT);
+        }
+        return this;
+    }
+
     @Override
     protected void autoReadCleared() {
         channel.clearEpollIn();
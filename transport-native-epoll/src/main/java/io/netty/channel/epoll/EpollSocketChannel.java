@@ -34,14 +34,19 @@ import io.netty.channel.socket.ChannelInputShutdownEvent;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannelOutboundBuffer;
+import io.netty.util.internal.OneTimeTask;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -66,6 +71,11 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
     private volatile boolean inputShutdown;
     private volatile boolean outputShutdown;
 
+    // pipe which is used by other channels to splice into this channel, created lazily
+    private int pipeIn = -1;
+    private int pipeOut = -1;
+    private Queue<SpliceInTask> spliceQueue;
+
     EpollSocketChannel(Channel parent, int fd) {
         super(parent, fd, Native.EPOLLIN, true);
         config = new EpollSocketChannelConfig(this);
@@ -102,6 +112,173 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
         this.local = Native.localAddress(fd);
     }
 
+    @Override
+    protected void doClose() throws Exception {
+        try {
+            super.doClose();
+        } finally {
+            closePipe();
+            failSpliceTasks(new ClosedChannelException());
+        }
+    }
+
+    private void closePipe() {
+        if (pipeIn != -1) {
+            int pipeIn = this.pipeIn;
+            int pipeOut = this.pipeOut;
+            this.pipeIn = -1;
+            this.pipeOut = -1;
+            try {
+                Native.close(pipeIn);
+            } catch (IOException ignore) {
+                // ignore
+            }
+            try {
+                Native.close(pipeOut);
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Splice from this {@link EpollSocketChannel} to another {@link EpollSocketChannel}. The data is moved through
+     * a pipe inside the kernel and so is never copied into user space, which makes this a good fit for proxies.
+     * The {@code len} is the number of bytes to splice. If {@link Integer#MAX_VALUE} is used it will splice until
+     * the {@link ChannelFuture} was cancelled or failed.
+     *
+     * Please note:
+     * <ul>
+     *   <li>both channels need to be registered to the same {@link EventLoop}, otherwise an
+     *   {@link IllegalArgumentException} is thrown.</li>
+     *   <li>the spliced data is not passed through the {@link ChannelPipeline} of either channel.</li>
+     *   <li>if the target channel can not write the spliced data right away {@link ChannelConfig#isAutoRead()} is
+     *   disabled for this channel until the data was written, so a slow target is not flooded.</li>
+     *   <li>data which is read before the splice was set up on the {@link EventLoop} is passed through the
+     *   {@link ChannelPipeline} as usual. To splice all data received by this channel, disable
+     *   {@link ChannelConfig#setAutoRead(boolean)} as early as possible (e.g. in
+     *   {@code channelActive(...)}) and enable it again after this method was called.</li>
+     * </ul>
+     */
+    public ChannelFuture spliceTo(final EpollSocketChannel ch, final int len) {
+        return spliceTo(ch, len, newPromise());
+    }
+
+    /**
+     * Splice from this {@link EpollSocketChannel} to another {@link EpollSocketChannel} and notify the given
+     * {@link ChannelPromise} once done. See {@link #spliceTo(EpollSocketChannel, int)} for details.
+     */
+    public ChannelFuture spliceTo(final EpollSocketChannel ch, final int len, final ChannelPromise promise) {
+        if (ch == null) {
+            throw new NullPointerException("ch");
+        }
+        if (promise == null) {
+            throw new NullPointerException("promise");
+        }
+        if (len < 0) {
+            throw new IllegalArgumentException("len: " + len + " (expected: >= 0)");
+        }
+        if (ch.eventLoop() != eventLoop()) {
+            throw new IllegalArgumentException("EventLoops are not the same.");
+        }
+        if (len == 0) {
+            return promise.setSuccess();
+        }
+        addToSpliceQueue(new SpliceInChannelTask(ch, len, promise));
+        return promise;
+    }
+
+    /**
+     * Splice from this {@link EpollSocketChannel} to the given {@link FileDescriptor}, starting to write at the
+     * given {@code offset}. The {@code len} is the number of bytes to splice. If {@link Integer#MAX_VALUE} is used
+     * it will splice until the {@link ChannelFuture} was cancelled or failed.
+     *
+     * Please note:
+     * <ul>
+     *   <li>the {@link FileDescriptor} must refer to a file and be opened in blocking mode, as the data is
+     *   written out before the next channel of the {@link EventLoop} is served.</li>
+     *   <li>the spliced data is not passed through the {@link ChannelPipeline} of this channel.</li>
+     *   <li>data which is read before the splice was set up on the {@link EventLoop} is passed through the
+     *   {@link ChannelPipeline} as usual. To splice all data received by this channel, disable
+     *   {@link ChannelConfig#setAutoRead(boolean)} as early as possible (e.g. in
+     *   {@code channelActive(...)}) and enable it again after this method was called.</li>
+     * </ul>
+     */
+    public ChannelFuture spliceTo(final FileDescriptor ch, final int offset, final int len) {
+        return spliceTo(ch, offset, len, newPromise());
+    }
+
+    /**
+     * Splice from this {@link EpollSocketChannel} to the given {@link FileDescriptor} and notify the given
+     * {@link ChannelPromise} once done. See {@link #spliceTo(FileDescriptor, int, int)} for details.
+     */
+    public ChannelFuture spliceTo(final FileDescriptor ch, final int offset, final int len,
+                                  final ChannelPromise promise) {
+        if (ch == null) {
+            throw new NullPointerException("ch");
+        }
+        if (promise == null) {
+            throw new NullPointerException("promise");
+        }
+        if (len < 0) {
+            throw new IllegalArgumentException("len: " + len + " (expected: >= 0)");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset: " + offset + " (expected: >= 0)");
+        }
+        if (!ch.valid()) {
+            throw new IllegalArgumentException("FileDescriptor is not valid");
+        }
+        if (len == 0) {
+            return promise.setSuccess();
+        }
+        addToSpliceQueue(new SpliceFdTask(Native.fileDescriptorValue(ch), offset, len, promise));
+        return promise;
+    }
+
+    private void addToSpliceQueue(final SpliceInTask task) {
+        EventLoop eventLoop = eventLoop();
+        if (eventLoop.inEventLoop()) {
+            addToSpliceQueue0(task);
+        } else {
+            eventLoop.execute(new OneTimeTask() {
+                @Override
+                public void run() {
+                    addToSpliceQueue0(task);
+                }
+            });
+        }
+    }
+
+    private void addToSpliceQueue0(SpliceInTask task) {
+        if (!isOpen()) {
+            task.promise.tryFailure(new ClosedChannelException());
+            return;
+        }
+        Queue<SpliceInTask> spliceQueue = this.spliceQueue;
+        if (spliceQueue == null) {
+            this.spliceQueue = spliceQueue = new ArrayDeque<SpliceInTask>();
+        }
+        spliceQueue.add(task);
+
+        // In edge-triggered mode we will not be notified for data which was received before, so try to splice now.
+        ((AbstractEpollUnsafe) unsafe()).epollInReadyLater();
+    }
+
+    private void failSpliceTasks(Throwable cause) {
+        Queue<SpliceInTask> spliceQueue = this.spliceQueue;
+        if (spliceQueue == null) {
+            return;
+        }
+        for (;;) {
+            SpliceInTask task = spliceQueue.poll();
+            if (task == null) {
+                break;
+            }
+            task.promise.tryFailure(cause);
+        }
+    }
+
     /**
      * Write bytes form the given {@link ByteBuf} to the underlying {@link java.nio.channels.Channel}.
      * @param buf           the {@link ByteBuf} from which the bytes should be written
@@ -295,12 +472,39 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
                 if (region.transfered() >= region.count()) {
                     in.remove();
                 }
+            } else if (msg instanceof SpliceOutTask) {
+                if (((SpliceOutTask) msg).spliceOut()) {
+                    in.remove();
+                } else {
+                    setEpollOut();
+                    break;
+                }
             } else {
                 throw new UnsupportedOperationException("unsupported message type: " + StringUtil.simpleClassName(msg));
             }
         }
     }
 
+    /**
+     * Returns the {@code TCP_INFO} for the current socket. See {@code man 7 tcp}.
+     */
+    public EpollTcpInfo tcpInfo() {
+        return tcpInfo(new EpollTcpInfo());
+    }
+
+    /**
+     * Updates and returns the given {@link EpollTcpInfo} with the {@code TCP_INFO} for the current socket. This
+     * allows to reuse the same {@link EpollTcpInfo} and so take snapshots without creating any garbage.
+     * See {@code man 7 tcp}.
+     */
+    public EpollTcpInfo tcpInfo(EpollTcpInfo info) {
+        if (info == null) {
+            throw new NullPointerException("info");
+        }
+        Native.tcpInfo(fd, info);
+        return info;
+    }
+
     @Override
     public EpollSocketChannelConfig config() {
         return config;
@@ -440,6 +644,15 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
             }
         }
 
+        @Override
+        protected void flush0() {
+            if (remote == null && config.isTcpFastOpenConnect() && isOpen() && !isActive()) {
+                // Keep what is flushed before the connect, so it can be sent with the SYN.
+                return;
+            }
+            super.flush0();
+        }
+
         private void fulfillConnectPromise(ChannelPromise promise, boolean wasActive) {
             if (promise == null) {
                 // Closed via cancellation and the promise has been notified already.
@@ -459,6 +672,9 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
             // If a user cancelled the connection attempt, close the channel, which is followed by channelInactive().
             if (!promiseSet) {
                 close(voidPromise());
+            } else if (config.isTcpFastOpenConnect()) {
+                // Write everything which was flushed before the connect and was not sent with the SYN.
+                flush0();
             }
         }
 
@@ -528,8 +744,14 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
             boolean success = false;
             try {
                 checkResolvable(remoteAddress);
-                boolean connected = Native.connect(fd, remoteAddress.getAddress(),
-                        remoteAddress.getPort());
+                boolean connected;
+                if (config.isTcpFastOpenConnect() && Native.IS_SUPPORTING_TCP_FASTOPEN_CLIENT &&
+                        doFastOpenConnect(remoteAddress)) {
+                    // The connect is always in progress after sendto(...) with MSG_FASTOPEN.
+                    connected = false;
+                } else {
+                    connected = Native.connect(fd, remoteAddress.getAddress(), remoteAddress.getPort());
+                }
                 remote = remoteAddress;
                 local = Native.localAddress(fd);
                 if (!connected) {
@@ -544,6 +766,33 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
             }
         }
 
+        /**
+         * Connect via {@code sendto(...)} with {@code MSG_FASTOPEN}, which sends the first flushed {@link ByteBuf}
+         * with the SYN if possible. Returns {@code false} if there is no flushed data to send, in which case a
+         * normal connect needs to be done.
+         */
+        private boolean doFastOpenConnect(InetSocketAddress remoteAddress) throws IOException {
+            ChannelOutboundBuffer in = outboundBuffer();
+            Object msg = in.current();
+            if (!(msg instanceof ByteBuf)) {
+                return false;
+            }
+            ByteBuf data = (ByteBuf) msg;
+            if (!data.isReadable() || !data.hasMemoryAddress()) {
+                return false;
+            }
+            int written = Native.sendToAddressFastOpen(fd, data.memoryAddress(), data.readerIndex(),
+                    data.writerIndex(), remoteAddress.getAddress(), remoteAddress.getPort());
+            if (written > 0) {
+                data.readerIndex(data.readerIndex() + written);
+                in.progress(written);
+                if (!data.isReadable()) {
+                    in.remove();
+                }
+            }
+            return true;
+        }
+
         /**
          * Finish the connect
          */
@@ -594,11 +843,54 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
                 this.allocHandle = allocHandle = config.getRecvByteBufAllocator().newHandle();
             }
 
+            final int maxMessagesPerRead = config.getMaxMessagesPerRead();
             ByteBuf byteBuf = null;
             boolean close = false;
+            boolean maybeMoreDataToRead = false;
             try {
                 int totalReadAmount = 0;
+                int messages = 0;
                 for (;;) {
+                    SpliceInTask spliceTask = spliceQueue == null ? null : spliceQueue.peek();
+                    if (spliceTask != null) {
+                        int localSplicedAmount = spliceTask.spliceIn(allocHandle);
+                        if (spliceTask.isDone()) {
+                            spliceQueue.remove(spliceTask);
+                        }
+                        if (localSplicedAmount < 0) {
+                            close = true;
+                            break;
+                        }
+                        if (localSplicedAmount == 0) {
+                            if (spliceTask.isDone()) {
+                                // try the next splice task or read the data the normal way
+                                continue;
+                            }
+                            break;
+                        }
+                        readPending = false;
+
+                        if (totalReadAmount >= Integer.MAX_VALUE - localSplicedAmount) {
+                            allocHandle.record(totalReadAmount);
+
+                            // Avoid overflow.
+                            totalReadAmount = localSplicedAmount;
+                        } else {
+                            totalReadAmount += localSplicedAmount;
+                        }
+
+                        if (!config.isAutoRead()) {
+                            // The target could not keep up, wait until the spliced data was written.
+                            break;
+                        }
+                        if (++ messages >= maxMessagesPerRead) {
+                            // Give other channels a chance to be served.
+                            maybeMoreDataToRead = true;
+                            break;
+                        }
+                        continue;
+                    }
+
                     // we use a direct buffer here as the native implementations only be able
                     // to handle direct buffers.
                     byteBuf = allocHandle.allocate(allocator);
@@ -628,6 +920,11 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
                         // which might mean we drained the recv buffer completely.
                         break;
                     }
+                    if (++ messages >= maxMessagesPerRead) {
+                        // Give other channels a chance to be served.
+                        maybeMoreDataToRead = true;
+                        break;
+                    }
                 }
                 pipeline.fireChannelReadComplete();
                 allocHandle.record(totalReadAmount);
@@ -635,6 +932,8 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
                 if (close) {
                     closeOnRead(pipeline);
                     close = false;
+                } else if (maybeMoreDataToRead) {
+                    epollInReadyLater();
                 }
             } catch (Throwable t) {
                 boolean closed = handleReadException(pipeline, byteBuf, t, close);
@@ -662,6 +961,200 @@ public final class EpollSocketChannel extends AbstractEpollChannel implements So
         }
     }
 
+    private abstract class SpliceInTask {
+        final ChannelPromise promise;
+        int len;
+
+        protected SpliceInTask(int len, ChannelPromise promise) {
+            this.promise = promise;
+            this.len = len;
+        }
+
+        /**
+         * Splice the data which is ready to be read and return the number of spliced bytes or {@code -1} if the
+         * end of the stream was reached.
+         */
+        abstract int spliceIn(RecvByteBufAllocator.Handle handle) throws IOException;
+
+        /**
+         * Returns {@code true} if nothing is left to splice for this task, so it can be removed from the queue.
+         */
+        final boolean isDone() {
+            return len == 0 || promise.isDone();
+        }
+
+        protected final int spliceIn(int pipeOut, RecvByteBufAllocator.Handle handle) throws IOException {
+            // calculate the maximum amount of data we are allowed to splice
+            int length = Math.min(handle.guess(), len);
+            int splicedIn = 0;
+            while (length > 0) {
+                int localSplicedIn = Native.splice(fd, -1, pipeOut, -1, length);
+                if (localSplicedIn <= 0) {
+                    if (localSplicedIn < 0 && splicedIn == 0) {
+                        // end-of-stream
+                        return -1;
+                    }
+                    // nothing left to read or the pipe is full
+                    break;
+                }
+                splicedIn += localSplicedIn;
+                length -= localSplicedIn;
+            }
+            return splicedIn;
+        }
+    }
+
+    private final class SpliceInChannelTask extends SpliceInTask {
+        private final EpollSocketChannel ch;
+
+        SpliceInChannelTask(EpollSocketChannel ch, int len, ChannelPromise promise) {
+            super(len, promise);
+            this.ch = ch;
+        }
+
+        @Override
+        int spliceIn(RecvByteBufAllocator.Handle handle) throws IOException {
+            assert ch.eventLoop().inEventLoop();
+            if (!ch.isOpen()) {
+                promise.tryFailure(new ClosedChannelException());
+                return 0;
+            }
+
+            // The pipe is created on the target channel as this way the order of the data is kept even if multiple
+            // channels splice into it, and data that could not be written yet stays there until it can be.
+            if (ch.pipeOut == -1) {
+                try {
+                    int[] pipe = Native.pipe();
+                    ch.pipeIn = pipe[0];
+                    ch.pipeOut = pipe[1];
+                } catch (IOException e) {
+                    promise.tryFailure(e);
+                    return 0;
+                }
+            }
+
+            int splicedIn = spliceIn(ch.pipeOut, handle);
+            if (splicedIn > 0) {
+                // Integer.MAX_VALUE is a special value which will result in splice forever.
+                if (len != Integer.MAX_VALUE) {
+                    len -= splicedIn;
+                }
+                SpliceOutTask task = new SpliceOutTask(ch, splicedIn, promise, len == 0);
+                ChannelPromise splicePromise = ch.newPromise();
+                splicePromise.addListener(task);
+
+                // Directly use the Unsafe of the target as the data was never visible in user space and so there is
+                // nothing to pass through its ChannelPipeline.
+                ch.unsafe().write(task, splicePromise);
+                ch.unsafe().flush();
+                if (!splicePromise.isDone() && config().isAutoRead()) {
+                    // The target was not able to write everything, so stop reading until it was done.
+                    task.autoReadDisabled = true;
+                    config().setAutoRead(false);
+                }
+            }
+            return splicedIn;
+        }
+    }
+
+    private final class SpliceOutTask implements ChannelFutureListener {
+        private final EpollSocketChannel ch;
+        private final ChannelPromise promise;
+        private final boolean last;
+        private int len;
+        boolean autoReadDisabled;
+
+        SpliceOutTask(EpollSocketChannel ch, int len, ChannelPromise promise, boolean last) {
+            this.ch = ch;
+            this.len = len;
+            this.promise = promise;
+            this.last = last;
+        }
+
+        /**
+         * Splice from the pipe to the target channel and return {@code true} if everything was written.
+         */
+        boolean spliceOut() throws IOException {
+            assert ch.eventLoop().inEventLoop();
+            // A partial splice does not mean the socket is full, so keep on splicing until it would block as
+            // otherwise we may never be notified about EPOLLOUT again when using edge-triggered mode.
+            while (len > 0) {
+                int splicedOut = Native.splice(ch.pipeIn, -1, ch.fd, -1, len);
+                if (splicedOut <= 0) {
+                    return false;
+                }
+                len -= splicedOut;
+            }
+            return true;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            if (autoReadDisabled) {
+                autoReadDisabled = false;
+                // Everything spliced so far was handled, so start reading again.
+                config().setAutoRead(true);
+            }
+            if (!future.isSuccess()) {
+                promise.tryFailure(future.cause());
+            } else if (last) {
+                promise.trySuccess();
+            }
+        }
+    }
+
+    private final class SpliceFdTask extends SpliceInTask {
+        private final int targetFd;
+        private long offset;
+
+        SpliceFdTask(int fd, int offset, int len, ChannelPromise promise) {
+            super(len, promise);
+            this.targetFd = fd;
+            this.offset = offset;
+        }
+
+        @Override
+        int spliceIn(RecvByteBufAllocator.Handle handle) throws IOException {
+            EpollEventLoop loop = (EpollEventLoop) eventLoop();
+            int[] pipe;
+            try {
+                pipe = loop.splicePipe();
+            } catch (IOException e) {
+                promise.tryFailure(e);
+                return 0;
+            }
+
+            int splicedIn = spliceIn(pipe[1], handle);
+            if (splicedIn > 0) {
+                // Integer.MAX_VALUE is a special value which will result in splice forever.
+                if (len != Integer.MAX_VALUE) {
+                    len -= splicedIn;
+                }
+                try {
+                    // The pipe is shared by all channels of the EventLoop, so drain it completely now.
+                    int remaining = splicedIn;
+                    do {
+                        int splicedOut = Native.splice(pipe[0], -1, targetFd, offset, remaining);
+                        if (splicedOut <= 0) {
+                            throw new IOException("Unable to splice into the FileDescriptor, is it blocking?");
+                        }
+                        offset += splicedOut;
+                        remaining -= splicedOut;
+                    } while (remaining > 0);
+                } catch (IOException e) {
+                    // The pipe may still contain data, so it can not be used anymore.
+                    loop.closeSplicePipe();
+                    promise.tryFailure(e);
+                    return splicedIn;
+                }
+                if (len == 0) {
+                    promise.trySuccess();
+                }
+            }
+            return splicedIn;
+        }
+    }
+
     @Override
     protected ChannelOutboundBuffer newOutboundBuffer() {
         if (PlatformDependent.hasUnsafe()) {
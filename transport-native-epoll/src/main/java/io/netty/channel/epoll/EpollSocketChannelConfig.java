@@ -32,6 +32,7 @@ public final class EpollSocketChannelConfig extends DefaultChannelConfig
 
     protected final EpollSocketChannel channel;
     private volatile boolean allowHalfClosure;
+    private volatile boolean tcpFastOpenConnect;
 
     /**
      * Creates a new instance.
@@ -40,6 +41,9 @@ public final class EpollSocketChannelConfig extends DefaultChannelConfig
         super(channel);
 
         this.channel = channel;
+        // Like NIO byte channels, read more than once per notification to reduce the number of system calls.
+        // See https://github.com/netty/netty/issues/2079
+        super.setMaxMessagesPerRead(16);
         if (PlatformDependent.canEnableTcpNoDelayByDefault()) {
             setTcpNoDelay(true);
         }
@@ -51,7 +55,9 @@ public final class EpollSocketChannelConfig extends DefaultChannelConfig
                 super.getOptions(),
                 SO_RCVBUF, SO_SNDBUF, TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR, SO_LINGER, IP_TOS,
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_KEEPCNT,
-                EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL);
+                EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL, EpollChannelOption.EPOLL_MODE,
+                EpollChannelOption.EPOLL_ONESHOT, EpollChannelOption.TCP_FASTOPEN_CONNECT,
+                EpollChannelOption.TCP_QUICKACK);
     }
 
     @SuppressWarnings("unchecked")
@@ -93,6 +99,18 @@ public final class EpollSocketChannelConfig extends DefaultChannelConfig
         if (option == EpollChannelOption.TCP_KEEPCNT) {
             return (T) Integer.valueOf(getTcpKeepCnt());
         }
+        if (option == EpollChannelOption.EPOLL_MODE) {
+            return (T) getEpollMode();
+        }
+        if (option == EpollChannelOption.EPOLL_ONESHOT) {
+            return (T) Boolean.valueOf(isEpollOneShot());
+        }
+        if (option == EpollChannelOption.TCP_FASTOPEN_CONNECT) {
+            return (T) Boolean.valueOf(isTcpFastOpenConnect());
+        }
+        if (option == EpollChannelOption.TCP_QUICKACK) {
+            return (T) Boolean.valueOf(isTcpQuickAck());
+        }
         return super.getOption(option);
     }
 
@@ -124,6 +142,14 @@ public final class EpollSocketChannelConfig extends DefaultChannelConfig
             setTcpKeepCntl((Integer) value);
         } else if (option == EpollChannelOption.TCP_KEEPINTVL) {
             setTcpKeepIntvl((Integer) value);
+        } else if (option == EpollChannelOption.EPOLL_MODE) {
+            setEpollMode((EpollMode) value);
+        } else if (option == EpollChannelOption.EPOLL_ONESHOT) {
+            setEpollOneShot((Boolean) value);
+        } else if (option == EpollChannelOption.TCP_FASTOPEN_CONNECT) {
+            setTcpFastOpenConnect((Boolean) value);
+        } else if (option == EpollChannelOption.TCP_QUICKACK) {
+            setTcpQuickAck((Boolean) value);
         } else {
             return super.setOption(option, value);
         }
@@ -274,6 +300,90 @@ public final class EpollSocketChannelConfig extends DefaultChannelConfig
         return this;
     }
 
+    /**
+     * Returns the {@link EpollMode} used. Default is {@link EpollMode#EDGE_TRIGGERED}.
+     */
+    public EpollMode getEpollMode() {
+        return channel.isFlagSet(Native.EPOLLET) ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+    }
+
+    /**
+     * Set the {@link EpollMode} used. Default is {@link EpollMode#EDGE_TRIGGERED}.
+     */
+    public EpollSocketChannelConfig setEpollMode(EpollMode mode) {
+        if (mode == null) {
+            throw new NullPointerException("mode");
+        }
+        switch (mode) {
+        case EDGE_TRIGGERED:
+            channel.setFlag(Native.EPOLLET);
+            break;
+        case LEVEL_TRIGGERED:
+            channel.clearFlag(Native.EPOLLET);
+            break;
+        default:
+            throw new Error();
+        }
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if the channel is registered with {@code EPOLLONESHOT}.
+     */
+    public boolean isEpollOneShot() {
+        return channel.isFlagSet(Native.EPOLLONESHOT);
+    }
+
+    /**
+     * Set if the channel should be registered with {@code EPOLLONESHOT}, which means epoll reports at most one
+     * event before the registration is re-armed by the {@link EpollEventLoop} once the event was processed.
+     */
+    public EpollSocketChannelConfig setEpollOneShot(boolean epollOneShot) {
+        if (epollOneShot) {
+            channel.setFlag(Native.EPOLLONESHOT);
+        } else {
+            channel.clearFlag(Native.EPOLLONESHOT);
+        }
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if TCP Fast Open is used when connecting. See {@link #setTcpFastOpenConnect(boolean)}.
+     */
+    public boolean isTcpFastOpenConnect() {
+        return tcpFastOpenConnect;
+    }
+
+    /**
+     * Set if TCP Fast Open should be used when connecting. If enabled, messages which are written and flushed
+     * before the connect are kept until the connection is established instead of being failed. The first of them,
+     * if it is a {@link io.netty.buffer.ByteBuf}, is sent via {@code sendto(...)} with {@code MSG_FASTOPEN}, which
+     * allows to send the data together with the SYN if the kernel has a cookie for the remote peer cached. The
+     * other flushed messages are written once the connection is established. If nothing was flushed, a normal
+     * connect is done. This only has an effect if TCP Fast Open is enabled for outgoing connections in
+     * {@code /proc/sys/net/ipv4/tcp_fastopen}. See {@code man 7 tcp} for more details.
+     */
+    public EpollSocketChannelConfig setTcpFastOpenConnect(boolean tcpFastOpenConnect) {
+        this.tcpFastOpenConnect = tcpFastOpenConnect;
+        return this;
+    }
+
+    /**
+     * Get the {@code TCP_QUICKACK} option on the socket. See {@code man 7 tcp} for more details.
+     */
+    public boolean isTcpQuickAck() {
+        return Native.isTcpQuickAck(channel.fd) == 1;
+    }
+
+    /**
+     * Set the {@code TCP_QUICKACK} option on the socket. Be aware that the kernel may reset this option, so it
+     * is not permanent. See {@code man 7 tcp} for more details.
+     */
+    public EpollSocketChannelConfig setTcpQuickAck(boolean quickAck) {
+        Native.setTcpQuickAck(channel.fd, quickAck ? 1 : 0);
+        return this;
+    }
+
     @Override
     public boolean isAllowHalfClosure() {
         return allowHalfClosure;
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+/**
+ * Holds the {@code TCP_INFO} of a connection as returned by the kernel. See {@code man 7 tcp} and
+ * {@code struct tcp_info} in {@code linux/tcp.h} for the meaning of the different values.
+ * <p>
+ * An instance can be filled via {@link EpollSocketChannel#tcpInfo(EpollTcpInfo)} as often as needed, which allows
+ * to take snapshots without creating any garbage. All times are in microseconds unless stated otherwise.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class EpollTcpInfo {
+
+    final long[] info = new long[32];
+
+    public int state() {
+        return (int) info[0];
+    }
+
+    public int caState() {
+        return (int) info[1];
+    }
+
+    public int retransmits() {
+        return (int) info[2];
+    }
+
+    public int probes() {
+        return (int) info[3];
+    }
+
+    public int backoff() {
+        return (int) info[4];
+    }
+
+    public int options() {
+        return (int) info[5];
+    }
+
+    public int sndWscale() {
+        return (int) info[6];
+    }
+
+    public int rcvWscale() {
+        return (int) info[7];
+    }
+
+    public long rto() {
+        return info[8];
+    }
+
+    public long ato() {
+        return info[9];
+    }
+
+    public long sndMss() {
+        return info[10];
+    }
+
+    public long rcvMss() {
+        return info[11];
+    }
+
+    /**
+     * Returns the number of segments which were sent but not acknowledged yet.
+     */
+    public long unacked() {
+        return info[12];
+    }
+
+    public long sacked() {
+        return info[13];
+    }
+
+    public long lost() {
+        return info[14];
+    }
+
+    public long retrans() {
+        return info[15];
+    }
+
+    public long fackets() {
+        return info[16];
+    }
+
+    /**
+     * Returns the milliseconds since the last data was sent.
+     */
+    public long lastDataSent() {
+        return info[17];
+    }
+
+    /**
+     * Returns the milliseconds since the last ack was sent.
+     */
+    public long lastAckSent() {
+        return info[18];
+    }
+
+    /**
+     * Returns the milliseconds since the last data was received.
+     */
+    public long lastDataRecv() {
+        return info[19];
+    }
+
+    /**
+     * Returns the milliseconds since the last ack was received.
+     */
+    public long lastAckRecv() {
+        return info[20];
+    }
+
+    public long pmtu() {
+        return info[21];
+    }
+
+    public long rcvSsthresh() {
+        return info[22];
+    }
+
+    /**
+     * Returns the smoothed round trip time.
+     */
+    public long rtt() {
+        return info[23];
+    }
+
+    /**
+     * Returns the variance of the round trip time.
+     */
+    public long rttvar() {
+        return info[24];
+    }
+
+    public long sndSsthresh() {
+        return info[25];
+    }
+
+    /**
+     * Returns the congestion window in segments.
+     */
+    public long sndCwnd() {
+        return info[26];
+    }
+
+    public long advmss() {
+        return info[27];
+    }
+
+    public long reordering() {
+        return info[28];
+    }
+
+    public long rcvRtt() {
+        return info[29];
+    }
+
+    public long rcvSpace() {
+        return info[30];
+    }
+
+    /**
+     * Returns the total number of retransmitted segments over the lifetime of the connection.
+     */
+    public long totalRetrans() {
+        return info[31];
+    }
+}
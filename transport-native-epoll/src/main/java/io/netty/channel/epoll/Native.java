@@ -23,6 +23,9 @@ import io.netty.util.internal.NativeLibraryLoader;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileReader;
 import java.io.IOException;
 import java.net.Inet6Address;
 import java.net.InetAddress;
@@ -52,10 +55,20 @@ final class Native {
     public static final int EPOLLOUT = 0x02;
     public static final int EPOLLACCEPT = 0x04;
     public static final int EPOLLRDHUP = 0x08;
+    public static final int EPOLLET = 0x10;
+    public static final int EPOLLONESHOT = 0x20;
+
+    // Bit of /proc/sys/net/ipv4/tcp_fastopen which enables TCP Fast Open for outgoing connections
+    private static final int TCP_FASTOPEN_MODE_CLIENT = 0x1;
+    public static final boolean IS_SUPPORTING_TCP_FASTOPEN_CLIENT =
+            (tcpFastOpenMode() & TCP_FASTOPEN_MODE_CLIENT) == TCP_FASTOPEN_MODE_CLIENT;
 
     public static native int eventFd();
     public static native void eventFdWrite(int fd, long value);
     public static native void eventFdRead(int fd);
+    public static native int timerFd();
+    public static native void timerFdSetTime(int fd, long nanos);
+    public static native void timerFdRead(int fd);
     public static native int epollCreate();
     public static native int epollWait(int efd, long[] events, int timeout);
     public static native void epollCtlAdd(int efd, final int fd, final int flags, final int id);
@@ -77,6 +90,21 @@ final class Native {
 
     public static native long sendfile(int dest, DefaultFileRegion src, long offset, long length) throws IOException;
 
+    public static native int splice(int fd, long offIn, int fdOut, long offOut, int len) throws IOException;
+
+    /**
+     * Creates a new non-blocking pipe and returns its file descriptors. The read end is stored at index {@code 0}
+     * and the write end at index {@code 1}.
+     */
+    public static int[] pipe() throws IOException {
+        long res = pipe0();
+        return new int[] { (int) (res >>> 32), (int) res };
+    }
+
+    private static native long pipe0() throws IOException;
+
+    public static native int fileDescriptorValue(FileDescriptor fd);
+
     public static int sendTo(
             int fd, ByteBuffer buf, int pos, int limit, InetAddress addr, int port) throws IOException {
         // just duplicate the toNativeInetAddress code here to minimize object creation as this method is expected
@@ -117,6 +145,36 @@ final class Native {
     private static native int sendToAddress(
             int fd, long memoryAddress, int pos, int limit, byte[] address, int scopeId, int port) throws IOException;
 
+    /**
+     * Connect the socket to the given remote peer and send the data between {@code pos} and {@code limit} as part of
+     * the SYN if a TCP Fast Open cookie for the remote peer is known. Returns the number of bytes that were sent,
+     * which may be {@code 0}. In all cases the connect is still in progress and needs to be finished by
+     * {@link #finishConnect(int)}.
+     */
+    public static int sendToAddressFastOpen(
+            int fd, long memoryAddress, int pos, int limit, InetAddress addr, int port) throws IOException {
+        NativeInetAddress address = toNativeInetAddress(addr);
+        return sendToAddressFastOpen(fd, memoryAddress, pos, limit, address.address, address.scopeId, port);
+    }
+
+    private static native int sendToAddressFastOpen(
+            int fd, long memoryAddress, int pos, int limit, byte[] address, int scopeId, int port) throws IOException;
+
+    /**
+     * Send the given {@link NativeDatagramPacketArray.NativeDatagramPacket}s with a single syscall and return the
+     * number of packets that were sent, which is {@code 0} if none could be sent without blocking.
+     */
+    public static native int sendmmsg(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] packets, int offset, int len) throws IOException;
+
+    /**
+     * Receive into the given {@link NativeDatagramPacketArray.NativeDatagramPacket}s with a single syscall and
+     * return the number of packets that were received, which is {@code 0} if nothing was left to read. The sender
+     * of each received packet is stored in the packet itself.
+     */
+    public static native int recvmmsg(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] packets, int offset, int len) throws IOException;
+
     public static native EpollDatagramChannel.DatagramSocketAddress recvFrom(
             int fd, ByteBuffer buf, int pos, int limit) throws IOException;
 
@@ -147,7 +205,7 @@ final class Native {
         bind(fd, address.address, address.scopeId, port);
     }
 
-    private static byte[] ipv4MappedIpv6Address(byte[] ipv4) {
+    static byte[] ipv4MappedIpv6Address(byte[] ipv4) {
         byte[] address = new byte[16];
         System.arraycopy(IPV4_MAPPED_IPV6_PREFIX, 0, address, 0, IPV4_MAPPED_IPV6_PREFIX.length);
         System.arraycopy(ipv4, 0, address, 12, ipv4.length);
@@ -182,6 +240,9 @@ final class Native {
     public static native int getTcpKeepIdle(int fd);
     public static native int getTcpKeepIntvl(int fd);
     public static native int getTcpKeepCnt(int fd);
+    public static native int getTcpFastOpen(int fd);
+    public static native int getTcpDeferAccept(int fd);
+    public static native int isTcpQuickAck(int fd);
 
     public static native void setKeepAlive(int fd, int keepAlive);
     public static native void setReceiveBufferSize(int fd, int receiveBufferSize);
@@ -196,6 +257,9 @@ final class Native {
     public static native void setTcpKeepIdle(int fd, int seconds);
     public static native void setTcpKeepIntvl(int fd, int seconds);
     public static native void setTcpKeepCnt(int fd, int probes);
+    public static native void setTcpFastOpen(int fd, int queueLength);
+    public static native void setTcpDeferAccept(int fd, int seconds);
+    public static native void setTcpQuickAck(int fd, int quickAck);
 
     private static NativeInetAddress toNativeInetAddress(InetAddress addr) {
         byte[] bytes = addr.getAddress();
@@ -221,7 +285,36 @@ final class Native {
         }
     }
 
+    /**
+     * Fill the given {@link EpollTcpInfo} with the {@code TCP_INFO} of the given socket.
+     */
+    public static void tcpInfo(int fd, EpollTcpInfo info) {
+        tcpInfo0(fd, info.info);
+    }
+
+    private static native void tcpInfo0(int fd, long[] array);
+
     public static native String kernelVersion();
+
+    private static int tcpFastOpenMode() {
+        BufferedReader in = null;
+        try {
+            in = new BufferedReader(new FileReader("/proc/sys/net/ipv4/tcp_fastopen"));
+            return Integer.parseInt(in.readLine().trim());
+        } catch (Exception ignore) {
+            // not supported by the kernel
+            return 0;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+        }
+    }
+
     private Native() {
         // utility
     }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.socket.DatagramPacket;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> and
+ * <a href="http://linux.die.net/man/2/recvmmsg">recvmmsg(...)</a> by holding an array of
+ * {@link NativeDatagramPacket}s which are accessed via JNI. The array and its packets are reused to keep the
+ * GC pressure low.
+ */
+final class NativeDatagramPacketArray {
+
+    private final NativeDatagramPacket[] packets;
+    private int count;
+
+    NativeDatagramPacketArray(int size) {
+        packets = new NativeDatagramPacket[size];
+        for (int i = 0; i < size; i++) {
+            packets[i] = new NativeDatagramPacket();
+        }
+    }
+
+    /**
+     * Try to add the given message for sending. Returns {@code true} on success and {@code false} if the array is
+     * full or the message can not be written with {@code sendmmsg(...)}, in which case it needs to be written the
+     * normal way.
+     */
+    boolean add(Object msg, InetSocketAddress remote) {
+        if (count == packets.length) {
+            return false;
+        }
+        ByteBuf content;
+        InetSocketAddress recipient;
+        if (msg instanceof DatagramPacket) {
+            DatagramPacket packet = (DatagramPacket) msg;
+            content = packet.content();
+            recipient = packet.recipient();
+        } else if (msg instanceof ByteBuf) {
+            content = (ByteBuf) msg;
+            recipient = remote;
+        } else {
+            return false;
+        }
+        // Empty messages are not sent at all, so let the normal write path take care of them.
+        if (recipient == null || !content.isReadable() ||
+                !content.hasMemoryAddress() || content.nioBufferCount() != 1) {
+            return false;
+        }
+        packets[count ++].init(content.memoryAddress() + content.readerIndex(), content.readableBytes(), recipient);
+        return true;
+    }
+
+    /**
+     * Prepare the packet at the given index to receive into the given {@link ByteBuf}.
+     */
+    void set(int index, ByteBuf buffer) {
+        packets[index].init(buffer.memoryAddress() + buffer.writerIndex(), buffer.writableBytes(), null);
+    }
+
+    /**
+     * Returns the number of packets which were added via {@link #add(Object, InetSocketAddress)}.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Returns the packets. This array must not be modified and should not escape the caller.
+     */
+    NativeDatagramPacket[] packets() {
+        return packets;
+    }
+
+    /**
+     * Clear the array so it can be filled again.
+     */
+    void clear() {
+        count = 0;
+    }
+
+    /**
+     * Used to pass the needed data to JNI.
+     */
+    static final class NativeDatagramPacket {
+        // These fields will be accessed via JNI directly so be carefully when touch them!
+        long memoryAddress;
+        int count;
+
+        byte[] addr;
+        int scopeId;
+        int port;
+
+        // Set by recvmmsg(...)
+        EpollDatagramChannel.DatagramSocketAddress sender;
+
+        private void init(long memoryAddress, int count, InetSocketAddress recipient) {
+            this.memoryAddress = memoryAddress;
+            this.count = count;
+            sender = null;
+            if (recipient == null) {
+                addr = null;
+                scopeId = 0;
+                port = 0;
+            } else {
+                InetAddress address = recipient.getAddress();
+                if (address instanceof Inet6Address) {
+                    addr = address.getAddress();
+                    scopeId = ((Inet6Address) address).getScopeId();
+                } else {
+                    // convert to ipv4 mapped ipv6 address;
+                    addr = Native.ipv4MappedIpv6Address(address.getAddress());
+                    scopeId = 0;
+                }
+                port = recipient.getPort();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EpollDatagramBatchTest {
+
+    private static final int COUNT = 64;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchedSendAndReceive() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(COUNT);
+        final AtomicInteger readCompletes = new AtomicInteger();
+        final BitSet received = new BitSet(COUNT);
+
+        Bootstrap sb = new Bootstrap();
+        sb.group(group).channel(EpollDatagramChannel.class);
+        sb.option(EpollChannelOption.DATAGRAM_BATCH_SIZE, 16);
+        sb.handler(new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                DatagramPacket packet = (DatagramPacket) msg;
+                int i = Integer.parseInt(packet.content().toString(CharsetUtil.US_ASCII));
+                packet.release();
+                synchronized (received) {
+                    received.set(i);
+                }
+                latch.countDown();
+            }
+
+            @Override
+            public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+                readCompletes.incrementAndGet();
+            }
+        });
+
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollDatagramChannel.class);
+        cb.option(EpollChannelOption.DATAGRAM_BATCH_SIZE, 16);
+        cb.handler(new ChannelHandlerAdapter());
+
+        Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+        Channel cc = cb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+        assertEquals(16, (int) cc.config().getOption(EpollChannelOption.DATAGRAM_BATCH_SIZE));
+
+        InetSocketAddress addr = (InetSocketAddress) sc.localAddress();
+        for (int i = 0; i < COUNT; i++) {
+            // only write so the messages are flushed together and so written via sendmmsg
+            cc.write(new DatagramPacket(Unpooled.copiedBuffer(String.valueOf(i), CharsetUtil.US_ASCII), addr));
+        }
+        cc.flush();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        synchronized (received) {
+            assertEquals(COUNT, received.cardinality());
+        }
+
+        sc.close().sync();
+        cc.close().sync();
+        // the close is processed by the same EventLoop so channelReadComplete must have been called by now
+        assertTrue(readCompletes.get() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        new EpollDatagramChannel().config().setDatagramBatchSize(0);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class EpollReusePortServerBootstrapTest {
+
+    private static final int LOOPS = 4;
+    private static final int CLIENTS = 64;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new EpollEventLoopGroup(LOOPS);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testAcceptOnAllLoops() throws Throwable {
+        final CountDownLatch latch = new CountDownLatch(CLIENTS);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group).channel(EpollServerSocketChannel.class);
+        sb.childHandler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                ch.pipeline().addLast(new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                        Channel child = ctx.channel();
+                        if (child.eventLoop() != child.parent().eventLoop()) {
+                            error.compareAndSet(null,
+                                    new AssertionError("child not registered to the accepting EventLoop"));
+                        }
+                        latch.countDown();
+                    }
+                });
+            }
+        });
+        ChannelGroup listeners = new EpollReusePortServerBootstrap(sb)
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().group();
+        assertEquals(LOOPS, listeners.size());
+
+        SocketAddress address = null;
+        for (Channel ch: listeners) {
+            assertTrue(((EpollServerSocketChannel) ch).config().isReusePort());
+            if (address == null) {
+                address = ch.localAddress();
+            } else {
+                assertEquals(address, ch.localAddress());
+            }
+        }
+
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollSocketChannel.class).handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                // NOOP
+            }
+        });
+        for (int i = 0; i < CLIENTS; i++) {
+            cb.connect(address).syncUninterruptibly().channel().close();
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        if (error.get() != null) {
+            throw error.get();
+        }
+
+        Channel[] channels = listeners.toArray(new Channel[listeners.size()]);
+        listeners.close().syncUninterruptibly();
+        for (Channel ch: channels) {
+            assertFalse(ch.isOpen());
+        }
+        assertTrue(listeners.isEmpty());
+    }
+
+    @Test(timeout = 10000)
+    public void testChildGroup() throws Throwable {
+        final EventLoopGroup childGroup = new EpollEventLoopGroup(1);
+        try {
+            final EventLoop childLoop = childGroup.next();
+            final CountDownLatch latch = new CountDownLatch(1);
+            final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group, childGroup).channel(EpollServerSocketChannel.class);
+            sb.childHandler(new ChannelHandlerAdapter() {
+                @Override
+                public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                    if (ctx.channel().eventLoop() != childLoop) {
+                        error.compareAndSet(null, new AssertionError("child not registered to the child group"));
+                    }
+                    latch.countDown();
+                }
+            });
+            ChannelGroup listeners = new EpollReusePortServerBootstrap(sb)
+                    .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().group();
+            SocketAddress address = listeners.iterator().next().localAddress();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group).channel(EpollSocketChannel.class).handler(new ChannelHandlerAdapter());
+            cb.connect(address).syncUninterruptibly().channel().close();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            if (error.get() != null) {
+                throw error.get();
+            }
+            listeners.close().syncUninterruptibly();
+        } finally {
+            childGroup.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseOfOneListenerClosesAll() throws Throwable {
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group).channel(EpollServerSocketChannel.class).childHandler(new ChannelHandlerAdapter());
+        ChannelGroup listeners = new EpollReusePortServerBootstrap(sb)
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().group();
+        Channel[] channels = listeners.toArray(new Channel[listeners.size()]);
+        assertEquals(LOOPS, channels.length);
+
+        channels[0].close().syncUninterruptibly();
+        for (Channel ch: channels) {
+            ch.closeFuture().syncUninterruptibly();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonEpollGroup() {
+        new EpollReusePortServerBootstrap(new ServerBootstrap());
+    }
+}
@@ -62,6 +62,15 @@ class EpollSocketTestPermutation extends SocketTestPermutation {
                                 .channel(EpollServerSocketChannel.class);
                     }
                 },
+                new BootstrapFactory<ServerBootstrap>() {
+                    @Override
+                    public ServerBootstrap newInstance() {
+                        return new ServerBootstrap().group(EPOLL_BOSS_GROUP, EPOLL_WORKER_GROUP)
+                                .channel(EpollServerSocketChannel.class)
+                                .option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED)
+                                .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+                    }
+                },
                 new BootstrapFactory<ServerBootstrap>() {
                     @Override
                     public ServerBootstrap newInstance() {
@@ -81,6 +90,13 @@ class EpollSocketTestPermutation extends SocketTestPermutation {
                         return new Bootstrap().group(EPOLL_WORKER_GROUP).channel(EpollSocketChannel.class);
                     }
                 },
+                new BootstrapFactory<Bootstrap>() {
+                    @Override
+                    public Bootstrap newInstance() {
+                        return new Bootstrap().group(EPOLL_WORKER_GROUP).channel(EpollSocketChannel.class)
+                                .option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+                    }
+                },
                 new BootstrapFactory<Bootstrap>() {
                     @Override
                     public Bootstrap newInstance() {
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Random;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class EpollSpliceTest {
+
+    private static final int SPLICE_LEN = 32 * 1024;
+    private static final Random random = new Random();
+    private static final byte[] data = new byte[1048576];
+
+    static {
+        random.nextBytes(data);
+    }
+
+    // Use only one EventLoop as both channels must be registered to the same EventLoop to splice between them.
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void spliceToSocket() throws Throwable {
+        final LinkedBlockingQueue<ByteBuf> received = new LinkedBlockingQueue<ByteBuf>();
+        final AtomicReference<Throwable> exception = new AtomicReference<Throwable>();
+
+        ServerBootstrap sink = new ServerBootstrap();
+        sink.group(group).channel(EpollServerSocketChannel.class);
+        sink.childHandler(new ChannelHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                received.add((ByteBuf) msg);
+            }
+        });
+        final SocketAddress sinkAddress = sink.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0))
+                .syncUninterruptibly().channel().localAddress();
+
+        final AtomicReference<ChannelFuture> spliceFuture = new AtomicReference<ChannelFuture>();
+        ServerBootstrap proxy = new ServerBootstrap();
+        proxy.group(group).channel(EpollServerSocketChannel.class);
+        proxy.childHandler(new ChannelHandlerAdapter() {
+            @Override
+            public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                final EpollSocketChannel in = (EpollSocketChannel) ctx.channel();
+                // Do not read until the splice is set up, otherwise the data would be passed to channelRead(...)
+                in.config().setAutoRead(false);
+                Bootstrap b = new Bootstrap();
+                b.group(in.eventLoop()).channel(EpollSocketChannel.class).handler(new ChannelHandlerAdapter());
+                b.connect(sinkAddress).addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        spliceFuture.set(in.spliceTo((EpollSocketChannel) future.channel(), data.length));
+                        in.config().setAutoRead(true);
+                    }
+                });
+            }
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                exception.compareAndSet(null, new AssertionError("spliced data should not be read"));
+            }
+        });
+        Channel proxyChannel = proxy.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0))
+                .syncUninterruptibly().channel();
+
+        Bootstrap client = new Bootstrap();
+        client.group(group).channel(EpollSocketChannel.class).handler(new ChannelHandlerAdapter());
+        Channel cc = client.connect(proxyChannel.localAddress()).syncUninterruptibly().channel();
+        for (int i = 0; i < data.length;) {
+            int length = Math.min(random.nextInt(1024 * 64), data.length - i);
+            cc.writeAndFlush(Unpooled.wrappedBuffer(data, i, length));
+            i += length;
+        }
+
+        int read = 0;
+        while (read < data.length) {
+            ByteBuf buf = received.poll(5, TimeUnit.SECONDS);
+            assertNotNull(buf);
+            ByteBuf expected = Unpooled.wrappedBuffer(data, read, buf.readableBytes());
+            read += buf.readableBytes();
+            assertEquals(expected, buf);
+            buf.release();
+        }
+        assertEquals(data.length, read);
+
+        // The future is notified once all data was written to the target.
+        while (spliceFuture.get() == null) {
+            Thread.sleep(10);
+        }
+        assertTrue(spliceFuture.get().syncUninterruptibly().isSuccess());
+
+        if (exception.get() != null) {
+            throw exception.get();
+        }
+        cc.close().syncUninterruptibly();
+        proxyChannel.close().syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void spliceToFile() throws Throwable {
+        File file = File.createTempFile("netty-splice", null);
+        file.deleteOnExit();
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            final AtomicReference<ChannelFuture> spliceFuture = new AtomicReference<ChannelFuture>();
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(EpollServerSocketChannel.class);
+            sb.childHandler(new ChannelHandlerAdapter() {
+                @Override
+                public void channelActive(ChannelHandlerContext ctx) throws Exception {
+                    spliceFuture.set(((EpollSocketChannel) ctx.channel()).spliceTo(raf.getFD(), 0, SPLICE_LEN));
+                }
+            });
+            Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().channel();
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group).channel(EpollSocketChannel.class).handler(new ChannelHandlerAdapter());
+            Channel cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+            cc.writeAndFlush(Unpooled.wrappedBuffer(data)).syncUninterruptibly();
+
+            while (spliceFuture.get() == null) {
+                Thread.sleep(10);
+            }
+            assertTrue(spliceFuture.get().syncUninterruptibly().isSuccess());
+
+            byte[] written = new byte[SPLICE_LEN];
+            raf.seek(0);
+            raf.readFully(written);
+            assertEquals(SPLICE_LEN, raf.length());
+            assertEquals(Unpooled.wrappedBuffer(data, 0, SPLICE_LEN), Unpooled.wrappedBuffer(written));
+
+            cc.close().syncUninterruptibly();
+            sc.close().syncUninterruptibly();
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.CharsetUtil;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class EpollTcpFastOpenTest {
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testServerOptions() {
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group).channel(EpollServerSocketChannel.class).childHandler(new ChannelHandlerAdapter());
+        sb.option(EpollChannelOption.TCP_FASTOPEN, 16);
+        sb.option(EpollChannelOption.TCP_DEFER_ACCEPT, 1);
+        Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().channel();
+        try {
+            EpollServerSocketChannelConfig config = (EpollServerSocketChannelConfig) sc.config();
+            assertEquals(16, config.getTcpFastOpen());
+            // The kernel rounds the value to the next retransmission timeout.
+            assertTrue(config.getTcpDeferAccept() > 0);
+        } finally {
+            sc.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTcpFastOpen() {
+        new EpollServerSocketChannel().config().setTcpFastOpen(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTcpDeferAccept() {
+        new EpollServerSocketChannel().config().setTcpDeferAccept(-1);
+    }
+
+    @Test
+    public void testTcpQuickAck() {
+        EpollSocketChannel ch = new EpollSocketChannel();
+        try {
+            ch.config().setTcpQuickAck(true);
+            assertTrue(ch.config().isTcpQuickAck());
+            assertTrue(ch.config().getOption(EpollChannelOption.TCP_QUICKACK));
+        } finally {
+            ch.unsafe().closeForcibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFastOpenConnect() throws Throwable {
+        final LinkedBlockingQueue<ByteBuf> received = new LinkedBlockingQueue<ByteBuf>();
+        Channel sc = newServer(received);
+        try {
+            // Connect twice as the first connect can only request the cookie, the second one may use it.
+            for (int i = 0; i < 2; i++) {
+                testFastOpenConnect0(sc, received);
+            }
+        } finally {
+            sc.close().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFastOpenConnectDoesNotFlush() throws Throwable {
+        final LinkedBlockingQueue<ByteBuf> received = new LinkedBlockingQueue<ByteBuf>();
+        final AtomicReference<ChannelFuture> write = new AtomicReference<ChannelFuture>();
+        Channel sc = newServer(received);
+        try {
+            Bootstrap cb = new Bootstrap();
+            cb.group(group).channel(EpollSocketChannel.class);
+            cb.option(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+            cb.handler(new ChannelHandlerAdapter() {
+                @Override
+                public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+                    write.set(ctx.write(Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII)));
+                    ctx.fireChannelRegistered();
+                }
+            });
+            Channel cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+            try {
+                // Not flushed, so nothing must be sent with the SYN or after the connect.
+                assertFalse(write.get().isDone());
+                assertTrue(cc.writeAndFlush(Unpooled.EMPTY_BUFFER).syncUninterruptibly().isSuccess());
+                assertTrue(write.get().isSuccess());
+
+                ByteBuf buf = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(buf);
+                assertEquals(Unpooled.copiedBuffer("hello", CharsetUtil.US_ASCII), buf);
+                buf.release();
+            } finally {
+                cc.close().syncUninterruptibly();
+            }
+        } finally {
+            sc.close().syncUninterruptibly();
+        }
+    }
+
+    private static Channel newServer(final LinkedBlockingQueue<ByteBuf> received) {
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group).channel(EpollServerSocketChannel.class);
+        sb.option(EpollChannelOption.TCP_FASTOPEN, 16);
+        sb.option(EpollChannelOption.TCP_DEFER_ACCEPT, 1);
+        sb.childHandler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                ch.pipeline().addLast(new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        received.add((ByteBuf) msg);
+                    }
+                });
+            }
+        });
+        return sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().channel();
+    }
+
+    private static void testFastOpenConnect0(Channel sc, LinkedBlockingQueue<ByteBuf> received) throws Throwable {
+        final AtomicReference<ChannelFuture> firstWrite = new AtomicReference<ChannelFuture>();
+        final AtomicReference<ChannelFuture> secondWrite = new AtomicReference<ChannelFuture>();
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollSocketChannel.class);
+        cb.option(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+        cb.handler(new ChannelHandlerAdapter() {
+            @Override
+            public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
+                // Flush before the connect so the data can be sent with the SYN.
+                firstWrite.set(ctx.write(Unpooled.copiedBuffer("hello ", CharsetUtil.US_ASCII)));
+                secondWrite.set(ctx.writeAndFlush(Unpooled.copiedBuffer("world", CharsetUtil.US_ASCII)));
+                ctx.fireChannelRegistered();
+            }
+        });
+        Channel cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+        try {
+            assertTrue(firstWrite.get().syncUninterruptibly().isSuccess());
+            assertTrue(secondWrite.get().syncUninterruptibly().isSuccess());
+
+            ByteBuf expected = Unpooled.copiedBuffer("hello world", CharsetUtil.US_ASCII);
+            ByteBuf data = Unpooled.buffer();
+            while (data.readableBytes() < expected.readableBytes()) {
+                ByteBuf buf = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(buf);
+                data.writeBytes(buf);
+                buf.release();
+            }
+            assertEquals(expected, data);
+        } finally {
+            cc.close().syncUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.*;
+
+public class EpollTcpInfoTest {
+
+    // See TCP_ESTABLISHED in netinet/tcp.h
+    private static final int TCP_ESTABLISHED = 1;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void init() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        group.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testTcpInfo() throws Exception {
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group).channel(EpollServerSocketChannel.class).childHandler(new ChannelHandlerAdapter());
+        Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().channel();
+
+        Bootstrap cb = new Bootstrap();
+        cb.group(group).channel(EpollSocketChannel.class).handler(new ChannelHandlerAdapter());
+        EpollSocketChannel cc = (EpollSocketChannel) cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+        try {
+            cc.writeAndFlush(Unpooled.copiedBuffer(new byte[1024])).syncUninterruptibly();
+
+            EpollTcpInfo info = new EpollTcpInfo();
+            assertSame(info, cc.tcpInfo(info));
+            assertEquals(TCP_ESTABLISHED, info.state());
+            assertTrue(info.sndMss() > 0);
+            assertTrue(info.pmtu() > 0);
+            assertTrue(info.sndCwnd() > 0);
+            assertTrue(info.rcvSpace() > 0);
+
+            // Reusing the instance just overwrites the values.
+            assertSame(info, cc.tcpInfo(info));
+            assertEquals(TCP_ESTABLISHED, info.state());
+            assertEquals(TCP_ESTABLISHED, cc.tcpInfo().state());
+        } finally {
+            cc.close().syncUninterruptibly();
+            sc.close().syncUninterruptibly();
+        }
+    }
+}
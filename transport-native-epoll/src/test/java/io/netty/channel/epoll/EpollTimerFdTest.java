@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.concurrent.ThreadPerTaskExecutor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EpollTimerFdTest {
+
+    private static EpollEventLoop loop;
+
+    @BeforeClass
+    public static void init() {
+        loop = new EpollEventLoop(
+                null, new ThreadPerTaskExecutor(new DefaultThreadFactory(EpollTimerFdTest.class)), 128, true);
+    }
+
+    @AfterClass
+    public static void destroy() {
+        loop.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleSubMillisecond() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i ++) {
+            final long start = System.nanoTime();
+            final long delay = (i + 1) * 10000L;
+            loop.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (System.nanoTime() - start >= delay) {
+                        latch.countDown();
+                    }
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testEarlierDeadlineRearmsTimer() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicInteger order = new AtomicInteger();
+        final AtomicInteger lateOrder = new AtomicInteger();
+        final AtomicInteger earlyOrder = new AtomicInteger();
+        loop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                lateOrder.set(order.incrementAndGet());
+                latch.countDown();
+            }
+        }, 500, TimeUnit.MILLISECONDS);
+        // The timer is armed for the first task now, so scheduling an earlier one must re-arm it.
+        Thread.sleep(50);
+        loop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                earlyOrder.set(order.incrementAndGet());
+                latch.countDown();
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, earlyOrder.get());
+        assertEquals(2, lateOrder.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testCancelledTaskDoesNotStallTimer() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        ScheduledFuture<?> cancelled = loop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                fail();
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+        loop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel(false));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
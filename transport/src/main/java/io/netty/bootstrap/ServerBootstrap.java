@@ -54,8 +54,12 @@ public final class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, Se
     public ServerBootstrap() { }
 
     private ServerBootstrap(ServerBootstrap bootstrap) {
-        super(bootstrap);
-        childGroup = bootstrap.childGroup;
+        this(bootstrap, bootstrap.group(), bootstrap.childGroup);
+    }
+
+    private ServerBootstrap(ServerBootstrap bootstrap, EventLoopGroup parentGroup, EventLoopGroup childGroup) {
+        super(bootstrap, parentGroup);
+        this.childGroup = childGroup;
         childHandler = bootstrap.childHandler;
         synchronized (bootstrap.childOptions) {
             childOptions.putAll(bootstrap.childOptions);
@@ -293,6 +297,21 @@ public final class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, Se
         return new ServerBootstrap(this);
     }
 
+    /**
+     * Returns a deep clone of this bootstrap which has the identical configuration except that it uses
+     * the given {@link EventLoopGroup}s for the parent (acceptor) and the child (client). This method is useful
+     * when binding the same configuration to different {@link EventLoopGroup}s.
+     */
+    public ServerBootstrap clone(EventLoopGroup parentGroup, EventLoopGroup childGroup) {
+        if (parentGroup == null) {
+            throw new NullPointerException("parentGroup");
+        }
+        if (childGroup == null) {
+            throw new NullPointerException("childGroup");
+        }
+        return new ServerBootstrap(this, parentGroup, childGroup);
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder(super.toString());
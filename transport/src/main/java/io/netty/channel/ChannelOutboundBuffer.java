@@ -151,6 +151,14 @@ public class ChannelOutboundBuffer {
         return msg;
     }
 
+    /**
+     * Is called before the flushed {@link Entry} is removed from this {@link ChannelOutboundBuffer} and cleared, so
+     * sub-classes can update the state they keep for the flushed messages. Sub-classes may override this.
+     */
+    protected void beforeRemove(Entry entry) {
+        // NOOP
+    }
+
     /**
      * Expand internal array which holds the {@link Entry}'s.
      */
@@ -307,6 +315,7 @@ public class ChannelOutboundBuffer {
         ChannelPromise promise = e.promise;
         int size = e.pendingSize;
 
+        beforeRemove(e);
         e.clear();
 
         flushed = flushed + 1 & buffer.length - 1;
@@ -340,6 +349,7 @@ public class ChannelOutboundBuffer {
         ChannelPromise promise = e.promise;
         int size = e.pendingSize;
 
+        beforeRemove(e);
         e.clear();
 
         flushed = flushed + 1 & buffer.length - 1;
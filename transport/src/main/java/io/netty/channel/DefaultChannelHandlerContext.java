@@ -32,6 +32,8 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
 
     // This class keeps an integer member field 'skipFlags' whose each bit tells if the corresponding handler method
     // is annotated with @Skip. 'skipFlags' is retrieved in runtime via the reflection API and is cached.
+    // When an event is propagated, the handlers whose method of the event is annotated with @Skip are passed over
+    // instead of being invoked just to pass the event on. See findContextInbound(int) and findContextOutbound(int).
     // The following constants signify which bit of 'skipFlags' corresponds to which handler method:
 
     static final int MASK_HANDLER_ADDED = 1;
@@ -312,49 +314,49 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
 
     @Override
     public ChannelHandlerContext fireChannelRegistered() {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_CHANNEL_REGISTERED);
         next.invoker().invokeChannelRegistered(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelUnregistered() {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_CHANNEL_UNREGISTERED);
         next.invoker().invokeChannelUnregistered(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelActive() {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_CHANNEL_ACTIVE);
         next.invoker().invokeChannelActive(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelInactive() {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_CHANNEL_INACTIVE);
         next.invoker().invokeChannelInactive(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireExceptionCaught(Throwable cause) {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_EXCEPTION_CAUGHT);
         next.invoker().invokeExceptionCaught(next, cause);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireUserEventTriggered(Object event) {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_USER_EVENT_TRIGGERED);
         next.invoker().invokeUserEventTriggered(next, event);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelRead(Object msg) {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_CHANNEL_READ);
         ReferenceCountUtil.touch(msg, next);
         next.invoker().invokeChannelRead(next, msg);
         return this;
@@ -362,14 +364,14 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
 
     @Override
     public ChannelHandlerContext fireChannelReadComplete() {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_CHANNEL_READ_COMPLETE);
         next.invoker().invokeChannelReadComplete(next);
         return this;
     }
 
     @Override
     public ChannelHandlerContext fireChannelWritabilityChanged() {
-        DefaultChannelHandlerContext next = findContextInbound();
+        DefaultChannelHandlerContext next = findContextInbound(MASK_CHANNEL_WRITABILITY_CHANGED);
         next.invoker().invokeChannelWritabilityChanged(next);
         return this;
     }
@@ -406,7 +408,7 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
 
     @Override
     public ChannelFuture bind(final SocketAddress localAddress, final ChannelPromise promise) {
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_BIND);
         next.invoker().invokeBind(next, localAddress, promise);
         return promise;
     }
@@ -418,7 +420,7 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
 
     @Override
     public ChannelFuture connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_CONNECT);
         next.invoker().invokeConnect(next, remoteAddress, localAddress, promise);
         return promise;
     }
@@ -429,28 +431,28 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
             return close(promise);
         }
 
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_DISCONNECT);
         next.invoker().invokeDisconnect(next, promise);
         return promise;
     }
 
     @Override
     public ChannelFuture close(ChannelPromise promise) {
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_CLOSE);
         next.invoker().invokeClose(next, promise);
         return promise;
     }
 
     @Override
     public ChannelFuture deregister(ChannelPromise promise) {
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_DEREGISTER);
         next.invoker().invokeDeregister(next, promise);
         return promise;
     }
 
     @Override
     public ChannelHandlerContext read() {
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_READ);
         next.invoker().invokeRead(next);
         return this;
     }
@@ -462,7 +464,7 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
 
     @Override
     public ChannelFuture write(Object msg, ChannelPromise promise) {
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_WRITE);
         ReferenceCountUtil.touch(msg, next);
         next.invoker().invokeWrite(next, msg, promise);
         return promise;
@@ -470,7 +472,7 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
 
     @Override
     public ChannelHandlerContext flush() {
-        DefaultChannelHandlerContext next = findContextOutbound();
+        DefaultChannelHandlerContext next = findContextOutbound(MASK_FLUSH);
         next.invoker().invokeFlush(next);
         return this;
     }
@@ -478,10 +480,10 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
     @Override
     public ChannelFuture writeAndFlush(Object msg, ChannelPromise promise) {
         DefaultChannelHandlerContext next;
-        next = findContextOutbound();
+        next = findContextOutbound(MASK_WRITE);
         ReferenceCountUtil.touch(msg, next);
         next.invoker().invokeWrite(next, msg, promise);
-        next = findContextOutbound();
+        next = findContextOutbound(MASK_FLUSH);
         next.invoker().invokeFlush(next);
         return promise;
     }
@@ -515,22 +517,35 @@ final class DefaultChannelHandlerContext implements ChannelHandlerContext, Resou
         return new FailedChannelFuture(channel(), executor(), cause);
     }
 
-    private DefaultChannelHandlerContext findContextInbound() {
+    /**
+     * Returns the next context of an inbound handler which handles the event of the specified {@code mask}.
+     */
+    private DefaultChannelHandlerContext findContextInbound(int mask) {
         DefaultChannelHandlerContext ctx = this;
         do {
             ctx = ctx.next;
-        } while ((ctx.skipFlags & MASKGROUP_INBOUND) == MASKGROUP_INBOUND);
+        } while (skipContext(ctx, mask, MASKGROUP_INBOUND));
         return ctx;
     }
 
-    private DefaultChannelHandlerContext findContextOutbound() {
+    /**
+     * Returns the next context of an outbound handler which handles the event of the specified {@code mask}.
+     */
+    private DefaultChannelHandlerContext findContextOutbound(int mask) {
         DefaultChannelHandlerContext ctx = this;
         do {
             ctx = ctx.prev;
-        } while ((ctx.skipFlags & MASKGROUP_OUTBOUND) == MASKGROUP_OUTBOUND);
+        } while (skipContext(ctx, mask, MASKGROUP_OUTBOUND));
         return ctx;
     }
 
+    private boolean skipContext(DefaultChannelHandlerContext ctx, int mask, int maskGroup) {
+        // A handler which uses another invoker is only skipped if it does not handle any event of the group.
+        // Otherwise an event it does not handle could overtake the events it does handle, which are still
+        // processed by its invoker, e.g. channelReadComplete() could overtake channelRead().
+        return (ctx.skipFlags & maskGroup) == maskGroup || ctx.invoker == invoker && (ctx.skipFlags & mask) != 0;
+    }
+
     @Override
     public ChannelPromise voidPromise() {
         return channel.voidPromise();
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+/**
+ * Provides the metrics of an I/O {@link EventLoop}, which allow to see if its time is split well between I/O and
+ * the tasks of its task queue.  All times are given in nanoseconds.  The values are updated by the event loop
+ * thread and so may be slightly out of date when read by another thread.
+ *
+ * @see SingleThreadEventLoop#metrics()
+ */
+public interface EventLoopMetrics {
+
+    /**
+     * Returns the number of tasks which are pending in the task queue of the event loop.
+     */
+    int pendingTasks();
+
+    /**
+     * Returns the time the last sampled task waited in the task queue before it was run by the event loop, or
+     * {@code 0} if the task queue was empty when the event loop was woken up the last time.
+     */
+    long taskWaitTimeNanos();
+
+    /**
+     * Returns the total time the event loop spent processing I/O events.
+     */
+    long ioTimeNanos();
+
+    /**
+     * Returns the total time the event loop spent running the tasks of its task queue.
+     */
+    long taskTimeNanos();
+
+    /**
+     * Returns the number of times the event loop returned from waiting for I/O events (e.g. from
+     * {@code Selector.select()} or {@code epoll_wait(...)}).
+     */
+    long wakeups();
+
+    /**
+     * Returns the percentage of the time spent for I/O the event loop used in its last iteration, which differs from
+     * the configured one if the adaptive I/O ratio is enabled.
+     *
+     * @see SingleThreadEventLoop#setAdaptiveIoRatio(long, long, java.util.concurrent.TimeUnit)
+     */
+    int ioRatio();
+}
@@ -18,7 +18,11 @@ package io.netty.channel;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract base class for {@link EventLoop}s that execute all its submitted tasks in a single thread.
@@ -26,7 +30,20 @@ import java.util.concurrent.ThreadFactory;
  */
 public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor implements EventLoop {
 
+    private static final int MIN_ADAPTIVE_IO_RATIO = 1;
+    private static final int MAX_ADAPTIVE_IO_RATIO = 99;
+
     private final ChannelHandlerInvoker invoker = new DefaultChannelHandlerInvoker(this);
+    private final Metrics metrics = new Metrics();
+    private final TaskWaitTimeProbe taskWaitTimeProbe = new TaskWaitTimeProbe();
+
+    // 0 if the adaptive I/O ratio is disabled
+    private volatile long maxTaskWaitTimeNanos;
+    private volatile long maxIoWaitTimeNanos;
+    // only accessed by the event loop thread
+    private int adaptiveIoRatio = 50;
+    // true if the last tasks ran longer than maxIoWaitTimeNanos, only accessed by the event loop thread
+    private boolean ioBacklogCheckNeeded;
 
     protected SingleThreadEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp) {
         super(parent, threadFactory, addTaskWakesUp);
@@ -69,6 +86,131 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         return promise;
     }
 
+    /**
+     * Returns the {@link EventLoopMetrics} of this event loop.  They are only updated by event loops which handle
+     * I/O, like the NIO and epoll ones.
+     */
+    public EventLoopMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables the adaptive I/O ratio, which tunes the percentage of the time spent for I/O after every iteration of
+     * the event loop instead of using the configured one.  The time spent for the tasks of the task queue is
+     * increased while tasks wait longer than {@code maxTaskWaitTime} in the task queue, and the time spent for I/O
+     * is increased while I/O events became ready in the meantime whenever the event loop spent longer than
+     * {@code maxIoWaitTime} running tasks.  A {@code maxTaskWaitTime} of {@code 0} disables the adaptive I/O ratio
+     * again.
+     */
+    public void setAdaptiveIoRatio(long maxTaskWaitTime, long maxIoWaitTime, TimeUnit unit) {
+        if (maxTaskWaitTime < 0) {
+            throw new IllegalArgumentException("maxTaskWaitTime: " + maxTaskWaitTime + " (expected: >= 0)");
+        }
+        if (maxIoWaitTime < 0) {
+            throw new IllegalArgumentException("maxIoWaitTime: " + maxIoWaitTime + " (expected: >= 0)");
+        }
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        maxIoWaitTimeNanos = unit.toNanos(maxIoWaitTime);
+        maxTaskWaitTimeNanos = unit.toNanos(maxTaskWaitTime);
+    }
+
+    /**
+     * Returns {@code true} if the adaptive I/O ratio is enabled.
+     *
+     * @see #setAdaptiveIoRatio(long, long, TimeUnit)
+     */
+    public boolean isAdaptiveIoRatio() {
+        return maxTaskWaitTimeNanos != 0;
+    }
+
+    /**
+     * Returns {@code true} if a subclass which handles I/O must not block when it waits for I/O events the next
+     * time, because the adaptive I/O ratio needs to know how many I/O events became ready while the last tasks ran.
+     */
+    protected final boolean isIoBacklogCheckNeeded() {
+        return ioBacklogCheckNeeded;
+    }
+
+    /**
+     * Must be called by the event loop thread of a subclass which handles I/O every time it returned from waiting
+     * for I/O events, with the number of I/O events which are ready.  If tasks are pending, the time the next task
+     * has to wait in the task queue is sampled.
+     */
+    protected final void ioWokenUp(int readyIoEvents) {
+        final Metrics metrics = this.metrics;
+        metrics.wakeups.lazySet(metrics.wakeups.get() + 1);
+
+        if (ioBacklogCheckNeeded) {
+            ioBacklogCheckNeeded = false;
+            if (readyIoEvents > 0 && adaptiveIoRatio < MAX_ADAPTIVE_IO_RATIO) {
+                // I/O events became ready while the tasks ran too long, so give I/O more time.
+                adaptiveIoRatio ++;
+            }
+        }
+
+        TaskWaitTimeProbe probe = taskWaitTimeProbe;
+        if (probe.pending) {
+            return;
+        }
+        if (!hasTasks()) {
+            // Tasks which are added while the event loop waits for I/O events wake it up, so they do not wait.
+            metrics.taskWaitTimeNanos.lazySet(0);
+            return;
+        }
+        if (isShuttingDown()) {
+            return;
+        }
+        probe.enqueueTime = System.nanoTime();
+        // Set before the probe is added, so it is never counted by EventLoopMetrics.pendingTasks().
+        probe.pending = true;
+        try {
+            addTask(probe);
+        } catch (RejectedExecutionException ignore) {
+            // The task queue is full, try again next time.
+            probe.pending = false;
+        }
+    }
+
+    /**
+     * Runs the tasks of the task queue after {@code ioTimeNanos} were spent for processing I/O events.  The time
+     * spent for the tasks is limited by {@code ioRatio}, or by the adaptive I/O ratio if it is enabled, which is
+     * then tuned for the next call.  Must be called by the event loop thread of a subclass which handles I/O.
+     */
+    protected final void runAllTasks(int ioRatio, long ioTimeNanos) {
+        final Metrics metrics = this.metrics;
+        final long maxTaskWaitTimeNanos = this.maxTaskWaitTimeNanos;
+        if (maxTaskWaitTimeNanos != 0) {
+            ioRatio = adaptiveIoRatio;
+        }
+
+        final long taskStartTime = System.nanoTime();
+        if (ioRatio == 100) {
+            runAllTasks();
+        } else {
+            runAllTasks(ioTimeNanos * (100 - ioRatio) / ioRatio);
+        }
+        final long taskTimeNanos = System.nanoTime() - taskStartTime;
+
+        // Only written by this thread, so lazySet(...) is enough to publish the values to other threads.
+        metrics.ioTimeNanos.lazySet(metrics.ioTimeNanos.get() + ioTimeNanos);
+        metrics.taskTimeNanos.lazySet(metrics.taskTimeNanos.get() + taskTimeNanos);
+        metrics.ioRatio.lazySet(ioRatio);
+
+        if (maxTaskWaitTimeNanos != 0) {
+            if (metrics.taskWaitTimeNanos.get() > maxTaskWaitTimeNanos) {
+                // Tasks wait too long, so give them more time.
+                if (ioRatio > MIN_ADAPTIVE_IO_RATIO) {
+                    adaptiveIoRatio = ioRatio - 1;
+                }
+            } else if (taskTimeNanos > maxIoWaitTimeNanos) {
+                // Check if I/O events became ready in the meantime once the subclass waits for I/O events again.
+                ioBacklogCheckNeeded = true;
+            }
+        }
+    }
+
     @Override
     protected boolean wakesUpForTask(Runnable task) {
         return !(task instanceof NonWakeupRunnable);
@@ -78,4 +220,64 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
      * Marker interface for {@link Runnable} that will not trigger an {@link #wakeup(boolean)} in all cases.
      */
     interface NonWakeupRunnable extends Runnable { }
+
+    /**
+     * Measures the time a task waits in the task queue.  Only one instance is enqueued at a time, so sampling does
+     * not create any garbage.
+     */
+    private final class TaskWaitTimeProbe implements NonWakeupRunnable {
+        long enqueueTime;
+        // only written by the event loop thread, read by EventLoopMetrics.pendingTasks()
+        volatile boolean pending;
+
+        @Override
+        public void run() {
+            pending = false;
+            metrics.taskWaitTimeNanos.lazySet(System.nanoTime() - enqueueTime);
+        }
+    }
+
+    private final class Metrics implements EventLoopMetrics {
+        // Only written by the event loop thread.
+        final AtomicLong taskWaitTimeNanos = new AtomicLong();
+        final AtomicLong ioTimeNanos = new AtomicLong();
+        final AtomicLong taskTimeNanos = new AtomicLong();
+        final AtomicLong wakeups = new AtomicLong();
+        final AtomicInteger ioRatio = new AtomicInteger();
+
+        @Override
+        public int pendingTasks() {
+            int pendingTasks = SingleThreadEventLoop.this.pendingTasks();
+            if (taskWaitTimeProbe.pending && pendingTasks > 0) {
+                // Do not count the probe, which is not a real task.
+                pendingTasks --;
+            }
+            return pendingTasks;
+        }
+
+        @Override
+        public long taskWaitTimeNanos() {
+            return taskWaitTimeNanos.get();
+        }
+
+        @Override
+        public long ioTimeNanos() {
+            return ioTimeNanos.get();
+        }
+
+        @Override
+        public long taskTimeNanos() {
+            return taskTimeNanos.get();
+        }
+
+        @Override
+        public long wakeups() {
+            return wakeups.get();
+        }
+
+        @Override
+        public int ioRatio() {
+            return ioRatio.get();
+        }
+    }
 }
@@ -230,12 +230,15 @@ public class EmbeddedChannel extends AbstractChannel {
     public boolean finish() {
         close();
         runPendingTasks();
+        // Cancel all scheduled tasks that are left.
+        loop.cancelScheduledTasks();
         checkException();
         return !inboundMessages.isEmpty() || !outboundMessages.isEmpty();
     }
 
     /**
-     * Run all tasks that are pending in the {@link EventLoop} for this {@link Channel}
+     * Run all tasks (which also includes scheduled tasks) that are pending in the {@link EventLoop}
+     * for this {@link Channel}
      */
     public void runPendingTasks() {
         try {
@@ -243,6 +246,26 @@ public class EmbeddedChannel extends AbstractChannel {
         } catch (Exception e) {
             recordException(e);
         }
+
+        try {
+            loop.runScheduledTasks();
+        } catch (Exception e) {
+            recordException(e);
+        }
+    }
+
+    /**
+     * Run all scheduled tasks which are ready to run in the {@link EventLoop} for this {@link Channel} and return
+     * the time in nanoseconds until the next scheduled task is ready to run. If no other task was scheduled it will
+     * return {@code -1}.
+     */
+    public long runScheduledPendingTasks() {
+        try {
+            return loop.runScheduledTasks();
+        } catch (Exception e) {
+            recordException(e);
+            return loop.nextScheduledTask();
+        }
     }
 
     private void recordException(Throwable cause) {
@@ -15,13 +15,15 @@
  */
 package io.netty.channel.embedded;
 
-import io.netty.channel.AbstractEventLoop;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelHandlerInvoker;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.AbstractScheduledEventExecutor;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.Future;
 
@@ -32,10 +34,20 @@ import java.util.concurrent.TimeUnit;
 
 import static io.netty.channel.ChannelHandlerInvokerUtil.*;
 
-final class EmbeddedEventLoop extends AbstractEventLoop implements ChannelHandlerInvoker {
+final class EmbeddedEventLoop extends AbstractScheduledEventExecutor implements EventLoop, ChannelHandlerInvoker {
 
     private final Queue<Runnable> tasks = new ArrayDeque<Runnable>(2);
 
+    @Override
+    public EventLoopGroup parent() {
+        return (EventLoopGroup) super.parent();
+    }
+
+    @Override
+    public EventLoop next() {
+        return (EventLoop) super.next();
+    }
+
     @Override
     public void execute(Runnable command) {
         if (command == null) {
@@ -55,6 +67,31 @@ final class EmbeddedEventLoop extends AbstractEventLoop implements ChannelHandle
         }
     }
 
+    /**
+     * Run all scheduled tasks which are ready to be run. Returns the time left until the next scheduled task is
+     * ready, or {@code -1} if no task is scheduled.
+     */
+    long runScheduledTasks() {
+        long nanoTime = nanoTime();
+        for (;;) {
+            Runnable task = pollScheduledTask(nanoTime);
+            if (task == null) {
+                return nextScheduledTaskNano();
+            }
+
+            task.run();
+        }
+    }
+
+    long nextScheduledTask() {
+        return nextScheduledTaskNano();
+    }
+
+    @Override
+    protected void cancelScheduledTasks() {
+        super.cancelScheduledTasks();
+    }
+
     @Override
     public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
         throw new UnsupportedOperationException();
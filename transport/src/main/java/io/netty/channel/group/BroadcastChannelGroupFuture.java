@@ -0,0 +1,240 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.group;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.BlockingOperationException;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link ChannelGroupFuture} of {@link ChannelGroup#broadcast(Object, ChannelMatcher)}. Unlike
+ * {@link DefaultChannelGroupFuture} it only counts the completed writes and keeps the {@link ChannelFuture}s of the
+ * failed writes, so it does not hold an entry per {@link Channel}. Because of this {@link #find(Channel)} and
+ * {@link #iterator()} only return the {@link ChannelFuture}s of the failed writes.
+ */
+final class BroadcastChannelGroupFuture extends DefaultPromise<Void> implements ChannelGroupFuture {
+
+    private final ChannelGroup group;
+    private final int size;
+    private final AtomicInteger pending;
+    // guarded by itself, only contains the failed futures
+    private final List<ChannelFuture> failed = new ArrayList<ChannelFuture>(0);
+
+    final ChannelFutureListener childListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+            childDone(future);
+        }
+    };
+
+    /**
+     * Creates a new instance which completes once {@link #childDone(ChannelFuture)} was called {@code size} times,
+     * either directly or via {@link #childListener}.
+     */
+    BroadcastChannelGroupFuture(ChannelGroup group, int size, EventExecutor executor) {
+        super(executor);
+        this.group = group;
+        this.size = size;
+        pending = new AtomicInteger(size);
+
+        // Done on arrival?
+        if (size == 0) {
+            setSuccess0();
+        }
+    }
+
+    /**
+     * Record the completed write of a single {@link Channel}.
+     */
+    void childDone(ChannelFuture future) {
+        if (!future.isSuccess()) {
+            synchronized (failed) {
+                failed.add(future);
+            }
+        }
+
+        if (pending.decrementAndGet() == 0) {
+            List<ChannelFuture> failed = failedFutures();
+            if (failed.isEmpty()) {
+                setSuccess0();
+            } else {
+                List<Map.Entry<Channel, Throwable>> causes =
+                        new ArrayList<Map.Entry<Channel, Throwable>>(failed.size());
+                for (ChannelFuture f: failed) {
+                    causes.add(new AbstractMap.SimpleImmutableEntry<Channel, Throwable>(f.channel(), f.cause()));
+                }
+                setFailure0(new ChannelGroupException(causes));
+            }
+        }
+    }
+
+    private List<ChannelFuture> failedFutures() {
+        synchronized (failed) {
+            return new ArrayList<ChannelFuture>(failed);
+        }
+    }
+
+    @Override
+    public ChannelGroup group() {
+        return group;
+    }
+
+    /**
+     * Returns the {@link ChannelFuture} of the write to the specified {@link Channel} if it failed, or {@code null}
+     * otherwise.
+     */
+    @Override
+    public ChannelFuture find(Channel channel) {
+        for (ChannelFuture f: failedFutures()) {
+            if (f.channel() == channel) {
+                return f;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns an {@link Iterator} over the {@link ChannelFuture}s of the failed writes.
+     */
+    @Override
+    public Iterator<ChannelFuture> iterator() {
+        return failedFutures().iterator();
+    }
+
+    @Override
+    public boolean isPartialSuccess() {
+        int failureCount = failureCount();
+        int successCount = size - pending.get() - failureCount;
+        return successCount != 0 && successCount != size;
+    }
+
+    @Override
+    public boolean isPartialFailure() {
+        int failureCount = failureCount();
+        return failureCount != 0 && failureCount != size;
+    }
+
+    private int failureCount() {
+        synchronized (failed) {
+            return failed.size();
+        }
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture addListener(GenericFutureListener<? extends Future<? super Void>> listener) {
+        super.addListener(listener);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture addListeners(
+            GenericFutureListener<? extends Future<? super Void>>... listeners) {
+        super.addListeners(listeners);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture removeListener(
+            GenericFutureListener<? extends Future<? super Void>> listener) {
+        super.removeListener(listener);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture removeListeners(
+            GenericFutureListener<? extends Future<? super Void>>... listeners) {
+        super.removeListeners(listeners);
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture await() throws InterruptedException {
+        super.await();
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture awaitUninterruptibly() {
+        super.awaitUninterruptibly();
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture syncUninterruptibly() {
+        super.syncUninterruptibly();
+        return this;
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture sync() throws InterruptedException {
+        super.sync();
+        return this;
+    }
+
+    @Override
+    public ChannelGroupException cause() {
+        return (ChannelGroupException) super.cause();
+    }
+
+    private void setSuccess0() {
+        super.setSuccess(null);
+    }
+
+    private void setFailure0(ChannelGroupException cause) {
+        super.setFailure(cause);
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture setSuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean trySuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public BroadcastChannelGroupFuture setFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean tryFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    protected void checkDeadLock() {
+        EventExecutor e = executor();
+        if (e != null && e != ImmediateEventExecutor.INSTANCE && e.inEventLoop()) {
+            throw new BlockingOperationException();
+        }
+    }
+}
@@ -20,9 +20,11 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelId;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.util.CharsetUtil;
@@ -170,6 +172,32 @@ public interface ChannelGroup extends Set<Channel>, Comparable<ChannelGroup> {
      */
     ChannelGroupFuture writeAndFlush(Object message, ChannelMatcher matcher);
 
+    /**
+     * Writes and flushes the specified {@code message} to all {@link Channel}s in this group, like
+     * {@link #writeAndFlush(Object)} does, but with less overhead per {@link Channel} for large groups.
+     * See {@link #broadcast(Object, ChannelMatcher)} for the details.
+     */
+    ChannelGroupFuture broadcast(Object message);
+
+    /**
+     * Writes and flushes the specified {@code message} to all {@link Channel}s in this group that match the given
+     * {@link ChannelMatcher}, like {@link #writeAndFlush(Object, ChannelMatcher)} does, but with less overhead per
+     * {@link Channel} for large groups:
+     * <ul>
+     * <li>The {@link Channel}s are grouped by their {@link EventLoop}, and all writes of an {@link EventLoop} are
+     *     done by a single task.</li>
+     * <li>The reference count of the {@code message} is increased once for all {@link Channel}s, and each
+     *     {@link Channel} is given a {@linkplain ByteBuf#duplicate() duplicate} of it if it is a {@link ByteBuf} or
+     *     a {@link ByteBufHolder}.</li>
+     * <li>The returned {@link ChannelGroupFuture} does not keep the {@link ChannelFuture}s of the successful
+     *     writes, so {@link ChannelGroupFuture#find(Channel)} and {@link ChannelGroupFuture#iterator()} only
+     *     return the {@link ChannelFuture}s of the failed writes.</li>
+     * </ul>
+     * The {@code message} is passed through the {@link ChannelPipeline} of each {@link Channel}, so it should be
+     * encoded already, e.g. into a {@link ByteBuf}, for it to be encoded only once.
+     */
+    ChannelGroupFuture broadcast(Object message, ChannelMatcher matcher);
+
     /**
      * Disconnects all {@link Channel}s in this group from their remote peers.
      *
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.group;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.Collection;
+
+/**
+ * Helper class which creates {@link ChannelGroupFuture}s.
+ */
+public final class ChannelGroupFutures {
+
+    private ChannelGroupFutures() {
+        // static methods only
+    }
+
+    /**
+     * Returns a new {@link ChannelGroupFuture} of the given {@link ChannelGroup} which is done once all of the
+     * given {@link ChannelFuture}s are done. The listeners of the returned {@link ChannelGroupFuture} are notified
+     * by the given {@link EventExecutor}.
+     */
+    public static ChannelGroupFuture newFuture(
+            ChannelGroup group, Collection<ChannelFuture> futures, EventExecutor executor) {
+        return new DefaultChannelGroupFuture(group, futures, executor);
+    }
+}
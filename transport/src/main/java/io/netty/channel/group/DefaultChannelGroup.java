@@ -21,6 +21,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
@@ -30,10 +31,13 @@ import io.netty.util.internal.StringUtil;
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -339,6 +343,111 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         return new DefaultChannelGroupFuture(this, futures, executor);
     }
 
+    @Override
+    public ChannelGroupFuture broadcast(Object message) {
+        return broadcast(message, ChannelMatchers.all());
+    }
+
+    @Override
+    public ChannelGroupFuture broadcast(Object message, ChannelMatcher matcher) {
+        if (message == null) {
+            throw new NullPointerException("message");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("matcher");
+        }
+
+        // Group the channels by their event loop, so each event loop only needs to run a single task.
+        Map<EventLoop, List<Channel>> channelsPerLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        List<Channel> unregistered = null;
+        int size = 0;
+        BroadcastChannelGroupFuture future;
+        try {
+            for (Channel c: nonServerChannels.values()) {
+                if (matcher.matches(c)) {
+                    if (!c.isRegistered()) {
+                        // There is no event loop to write to, so just fail the write like writeAndFlush(...) does.
+                        if (unregistered == null) {
+                            unregistered = new ArrayList<Channel>(1);
+                        }
+                        unregistered.add(c);
+                        continue;
+                    }
+                    EventLoop loop = c.eventLoop();
+                    List<Channel> channels = channelsPerLoop.get(loop);
+                    if (channels == null) {
+                        channels = new ArrayList<Channel>();
+                        channelsPerLoop.put(loop, channels);
+                    }
+                    channels.add(c);
+                    size ++;
+                }
+            }
+
+            future = new BroadcastChannelGroupFuture(
+                    this, unregistered == null ? size : size + unregistered.size(), executor);
+            if (size != 0) {
+                // Each write releases one reference.
+                ReferenceCountUtil.retain(message, size);
+            }
+        } finally {
+            ReferenceCountUtil.release(message);
+        }
+
+        if (unregistered != null) {
+            for (Channel c: unregistered) {
+                future.childDone(c.newFailedFuture(new IllegalStateException("channel not registered: " + c)));
+            }
+        }
+        for (Map.Entry<EventLoop, List<Channel>> e: channelsPerLoop.entrySet()) {
+            EventLoop loop = e.getKey();
+            BroadcastTask task = new BroadcastTask(e.getValue(), message, future);
+            if (loop.inEventLoop()) {
+                task.run();
+            } else {
+                try {
+                    loop.execute(task);
+                } catch (RejectedExecutionException cause) {
+                    task.reject(cause);
+                }
+            }
+        }
+        return future;
+    }
+
+    private static final class BroadcastTask implements Runnable {
+        private final List<Channel> channels;
+        private final Object message;
+        private final BroadcastChannelGroupFuture future;
+
+        BroadcastTask(List<Channel> channels, Object message, BroadcastChannelGroupFuture future) {
+            this.channels = channels;
+            this.message = message;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            for (Channel c: channels) {
+                // The message was retained for all channels already, so only duplicate it.
+                Object msg = message;
+                if (msg instanceof ByteBuf) {
+                    msg = ((ByteBuf) msg).duplicate();
+                } else if (msg instanceof ByteBufHolder) {
+                    msg = ((ByteBufHolder) msg).duplicate();
+                }
+                c.writeAndFlush(msg).addListener(future.childListener);
+            }
+        }
+
+        void reject(Throwable cause) {
+            ReferenceCountUtil.release(message, channels.size());
+            for (Channel c: channels) {
+                c.newFailedFuture(cause).addListener(future.childListener);
+            }
+        }
+    }
+
     @Override
     public int hashCode() {
         return System.identityHashCode(this);
@@ -37,7 +37,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -102,10 +101,11 @@ public final class NioEventLoop extends SingleThreadEventLoop {
      * Boolean that controls determines if a blocked Selector.select should
      * break out of its selection process. In our case we use a timeout for
      * the select method and the select method will block for that time unless
-     * waken up.
+     * waken up. It is only {@code false} while the event loop is about to block
+     * in the select method, so other threads do not wake up the Selector while
+     * the event loop is busy anyway.
      */
-    private final AtomicBoolean wakenUp = new AtomicBoolean();
-    private boolean oldWakenUp;
+    private final AtomicBoolean wakenUp = new AtomicBoolean(true);
 
     private volatile int ioRatio = 50;
     private int cancelledKeys;
@@ -162,12 +162,6 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         return selector;
     }
 
-    @Override
-    protected Queue<Runnable> newTaskQueue() {
-        // This event loop never calls takeTask()
-        return PlatformDependent.newMpscQueue();
-    }
-
     /**
      * Registers an arbitrary {@link SelectableChannel}, not necessarily created by Netty, to the {@link Selector}
      * of this event loop.  Once the specified {@link SelectableChannel} is registered, the specified {@code task} will
@@ -209,6 +203,9 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     /**
      * Sets the percentage of the desired amount of time spent for I/O in the event loop.  The default value is
      * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
+     * The value is not used while the adaptive I/O ratio is enabled.
+     *
+     * @see #setAdaptiveIoRatio(long, long, java.util.concurrent.TimeUnit)
      */
     public void setIoRatio(int ioRatio) {
         if (ioRatio <= 0 || ioRatio > 100) {
@@ -298,60 +295,31 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     @Override
     protected void run() {
         for (;;) {
-            oldWakenUp = wakenUp.getAndSet(false);
             try {
-                if (hasTasks()) {
+                if (hasTasks() || isIoBacklogCheckNeeded()) {
                     selectNow();
                 } else {
-                    select();
-
-                    // 'wakenUp.compareAndSet(false, true)' is always evaluated
-                    // before calling 'selector.wakeup()' to reduce the wake-up
-                    // overhead. (Selector.wakeup() is an expensive operation.)
-                    //
-                    // However, there is a race condition in this approach.
-                    // The race condition is triggered when 'wakenUp' is set to
-                    // true too early.
-                    //
-                    // 'wakenUp' is set to true too early if:
-                    // 1) Selector is waken up between 'wakenUp.set(false)' and
-                    //    'selector.select(...)'. (BAD)
-                    // 2) Selector is waken up between 'selector.select(...)' and
-                    //    'if (wakenUp.get()) { ... }'. (OK)
-                    //
-                    // In the first case, 'wakenUp' is set to true and the
-                    // following 'selector.select(...)' will wake up immediately.
-                    // Until 'wakenUp' is set to false again in the next round,
-                    // 'wakenUp.compareAndSet(false, true)' will fail, and therefore
-                    // any attempt to wake up the Selector will fail, too, causing
-                    // the following 'selector.select(...)' call to block
-                    // unnecessarily.
-                    //
-                    // To fix this problem, we wake up the selector again if wakenUp
-                    // is true immediately after selector.select(...).
-                    // It is inefficient in that it wakes up the selector for both
-                    // the first case (BAD - wake-up required) and the second case
-                    // (OK - no wake-up required).
-
-                    if (wakenUp.get()) {
-                        selector.wakeup();
+                    // Announce that we are about to block so other threads wake up the Selector when adding a task.
+                    // Tasks added before the flag was cleared did not wake up the Selector, so check again.
+                    wakenUp.set(false);
+                    if (hasTasks()) {
+                        selectNow();
+                    } else {
+                        select();
                     }
+                    // Other threads do not need to wake up the Selector until we are about to block again.
+                    wakenUp.set(true);
                 }
+                ioWokenUp(selectedKeyCount());
 
                 cancelledKeys = 0;
                 needsToSelectAgain = false;
-                final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
-                    processSelectedKeys();
-                    runAllTasks();
-                } else {
-                    final long ioStartTime = System.nanoTime();
+                final long ioStartTime = System.nanoTime();
 
-                    processSelectedKeys();
+                processSelectedKeys();
 
-                    final long ioTime = System.nanoTime() - ioStartTime;
-                    runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
-                }
+                final long ioTime = System.nanoTime() - ioStartTime;
+                runAllTasks(ioRatio, ioTime);
 
                 if (isShuttingDown()) {
                     closeAll();
@@ -373,6 +341,13 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         }
     }
 
+    private int selectedKeyCount() {
+        if (selectedKeys != null) {
+            return selectedKeys.size();
+        }
+        return selector.selectedKeys().size();
+    }
+
     private void processSelectedKeys() {
         if (selectedKeys != null) {
             processSelectedKeysOptimized(selectedKeys.flip());
@@ -589,14 +564,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     }
 
     void selectNow() throws IOException {
-        try {
-            selector.selectNow();
-        } finally {
-            // restore wakup state if needed
-            if (wakenUp.get()) {
-                selector.wakeup();
-            }
-        }
+        selector.selectNow();
     }
 
     private void select() throws IOException {
@@ -618,7 +586,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 int selectedKeys = selector.select(timeoutMillis);
                 selectCnt ++;
 
-                if (selectedKeys != 0 || oldWakenUp || wakenUp.get() || hasTasks()) {
+                if (selectedKeys != 0 || wakenUp.get() || hasTasks()) {
                     // Selected something,
                     // waken up by user, or
                     // the task queue has a pending task.
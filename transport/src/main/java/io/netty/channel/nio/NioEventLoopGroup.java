@@ -18,12 +18,14 @@ package io.netty.channel.nio;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoop;
 import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
 import io.netty.util.concurrent.EventExecutor;
 
 import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link MultithreadEventLoopGroup} implementations which is used for NIO {@link Selector} based {@link Channel}s.
@@ -82,6 +84,18 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Enables the adaptive I/O ratio of the child event loops, or disables it if {@code maxTaskWaitTime} is
+     * {@code 0}.
+     *
+     * @see SingleThreadEventLoop#setAdaptiveIoRatio(long, long, TimeUnit)
+     */
+    public void setAdaptiveIoRatio(long maxTaskWaitTime, long maxIoWaitTime, TimeUnit unit) {
+        for (EventExecutor e: children()) {
+            ((NioEventLoop) e).setAdaptiveIoRatio(maxTaskWaitTime, maxIoWaitTime, unit);
+        }
+    }
+
     /**
      * Replaces the current {@link Selector}s of the child event loops with newly created {@link Selector}s to work
      * around the  infamous epoll 100% CPU bug.
@@ -33,9 +33,14 @@ import java.util.Arrays;
  */
 public final class NioSocketChannelOutboundBuffer extends ChannelOutboundBuffer {
 
+    // The NIO buffers of the first nioScannedEntries flushed entries are stored in
+    // nioBuffers[nioBufferOffset, nioBufferOffset + nioBufferCount). They are kept until the entries are removed, so
+    // the entries do not need to be scanned again by the next call of nioBuffers(), e.g. after a partial write.
     private ByteBuffer[] nioBuffers;
+    private int nioBufferOffset;
     private int nioBufferCount;
     private long nioBufferSize;
+    private int nioScannedEntries;
 
     private static final Recycler<NioSocketChannelOutboundBuffer> RECYCLER =
             new Recycler<NioSocketChannelOutboundBuffer>() {
@@ -80,33 +85,59 @@ public final class NioSocketChannelOutboundBuffer extends ChannelOutboundBuffer
      * {@link #nioBufferSize()} will return the number of NIO buffers in the returned array and the total number
      * of readable bytes of the NIO buffers respectively.
      * <p>
+     * Only the messages which were flushed since the last call are scanned, as the NIO buffers of the other
+     * messages are kept until they are removed.  After a gathering write of the returned buffers,
+     * {@link #removeBytes(long)} should be called to remove the written messages.
+     * </p>
+     * <p>
      * Note that the returned array is reused and thus should not escape
      * {@link io.netty.channel.AbstractChannel#doWrite(ChannelOutboundBuffer)}.
      * Refer to {@link io.netty.channel.socket.nio.NioSocketChannel#doWrite(ChannelOutboundBuffer)} for an example.
      * </p>
      */
     public ByteBuffer[] nioBuffers() {
-        long nioBufferSize = 0;
-        int nioBufferCount = 0;
         final Entry[] buffer = entries();
         final int mask = buffer.length - 1;
+        final int flushed = flushed();
         ByteBuffer[] nioBuffers = this.nioBuffers;
+
+        if (nioScannedEntries != 0) {
+            // The first message may have been written partially by a non-gathering write, which does not update its
+            // NIO buffers.
+            NioEntry first = (NioEntry) buffer[flushed];
+            if (!first.isCancelled() && ((ByteBuf) first.msg()).readerIndex() != first.nioReaderIndex) {
+                resetNioBuffers();
+            }
+        }
+
+        int nioBufferCount = this.nioBufferCount;
+        long nioBufferSize = this.nioBufferSize;
+        if (nioBufferOffset != 0) {
+            // Move the NIO buffers of the remaining messages to the start of the array.
+            System.arraycopy(nioBuffers, nioBufferOffset, nioBuffers, 0, nioBufferCount);
+            Arrays.fill(nioBuffers, nioBufferCount, nioBufferOffset + nioBufferCount, null);
+            nioBufferOffset = 0;
+        }
+
         Object m;
         int unflushed = unflushed();
-        int i = flushed();
+        int i = flushed + nioScannedEntries & mask;
         while (i != unflushed && (m = buffer[i].msg()) != null) {
             if (!(m instanceof ByteBuf)) {
-                this.nioBufferCount = 0;
-                this.nioBufferSize = 0;
+                this.nioBufferCount = nioBufferCount;
+                this.nioBufferSize = nioBufferSize;
                 return null;
             }
 
             NioEntry entry = (NioEntry) buffer[i];
+            int entryNioBufferCount = 0;
+            int readableBytes = 0;
 
             if (!entry.isCancelled()) {
                 ByteBuf buf = (ByteBuf) m;
                 final int readerIndex = buf.readerIndex();
-                final int readableBytes = buf.writerIndex() - readerIndex;
+                readableBytes = buf.writerIndex() - readerIndex;
+                entry.nioReaderIndex = readerIndex;
 
                 if (readableBytes > 0) {
                     nioBufferSize += readableBytes;
@@ -120,6 +151,7 @@ public final class NioSocketChannelOutboundBuffer extends ChannelOutboundBuffer
                         this.nioBuffers = nioBuffers =
                                 expandNioBufferArray(nioBuffers, neededSpace, nioBufferCount);
                     }
+                    int oldNioBufferCount = nioBufferCount;
                     if (count == 1) {
                         ByteBuffer nioBuf = entry.buf;
                         if (nioBuf == null) {
@@ -137,9 +169,14 @@ public final class NioSocketChannelOutboundBuffer extends ChannelOutboundBuffer
                         }
                         nioBufferCount = fillBufferArray(nioBufs, nioBuffers, nioBufferCount);
                     }
+                    entryNioBufferCount = nioBufferCount - oldNioBufferCount;
                 }
             }
 
+            entry.nioBufferCount = entryNioBufferCount;
+            entry.nioBufferSize = readableBytes;
+            nioScannedEntries ++;
+
             i = i + 1 & mask;
         }
         this.nioBufferCount = nioBufferCount;
@@ -148,6 +185,80 @@ public final class NioSocketChannelOutboundBuffer extends ChannelOutboundBuffer
         return nioBuffers;
     }
 
+    /**
+     * Removes the messages which were written completely by a gathering write of {@code writtenBytes} bytes of the
+     * buffers returned by {@link #nioBuffers()}, and updates the reader index of the message which was written
+     * partially.
+     */
+    public void removeBytes(long writtenBytes) {
+        for (;;) {
+            Object msg = current();
+            if (!(msg instanceof ByteBuf)) {
+                assert writtenBytes == 0;
+                break;
+            }
+
+            final ByteBuf buf = (ByteBuf) msg;
+            final int readerIndex = buf.readerIndex();
+            final int readableBytes = buf.writerIndex() - readerIndex;
+
+            if (readableBytes <= writtenBytes) {
+                if (writtenBytes != 0) {
+                    progress(readableBytes);
+                    writtenBytes -= readableBytes;
+                }
+                remove();
+            } else { // readableBytes > writtenBytes
+                if (writtenBytes != 0) {
+                    buf.readerIndex(readerIndex + (int) writtenBytes);
+                    progress(writtenBytes);
+
+                    // The NIO buffers of the message were advanced by the write already.
+                    NioEntry entry = (NioEntry) entries()[flushed()];
+                    if (entry.nioBufferCount >= 0) {
+                        entry.nioReaderIndex += (int) writtenBytes;
+                        entry.nioBufferSize -= (int) writtenBytes;
+                        nioBufferSize -= writtenBytes;
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    @Override
+    protected void beforeRemove(Entry e) {
+        NioEntry entry = (NioEntry) e;
+        if (entry.nioBufferCount >= 0) {
+            // The entry is the first one whose NIO buffers are kept.
+            nioBufferOffset += entry.nioBufferCount;
+            nioBufferCount -= entry.nioBufferCount;
+            nioBufferSize -= entry.nioBufferSize;
+            nioScannedEntries --;
+        }
+    }
+
+    private void resetNioBuffers() {
+        final Entry[] buffer = entries();
+        final int mask = buffer.length - 1;
+        int i = flushed();
+        for (int j = 0; j < nioScannedEntries; j ++) {
+            NioEntry entry = (NioEntry) buffer[i];
+            entry.nioBufferCount = -1;
+            if (j == 0) {
+                // Drop the NIO buffers of the partially written message, as they do not reflect the write.
+                entry.buf = null;
+                entry.buffers = null;
+            }
+            i = i + 1 & mask;
+        }
+        Arrays.fill(nioBuffers, nioBufferOffset, nioBufferOffset + nioBufferCount, null);
+        nioBufferOffset = 0;
+        nioBufferCount = 0;
+        nioBufferSize = 0;
+        nioScannedEntries = 0;
+    }
+
     private static int fillBufferArray(ByteBuffer[] nioBufs, ByteBuffer[] nioBuffers, int nioBufferCount) {
         for (ByteBuffer nioBuf: nioBufs) {
             if (nioBuf == null) {
@@ -193,6 +304,11 @@ public final class NioSocketChannelOutboundBuffer extends ChannelOutboundBuffer
 
     @Override
     public void recycle() {
+        nioBufferOffset = 0;
+        nioBufferCount = 0;
+        nioBufferSize = 0;
+        nioScannedEntries = 0;
+
         // take care of recycle the ByteBuffer[] structure.
         if (nioBuffers.length > INITIAL_CAPACITY) {
             nioBuffers = new ByteBuffer[INITIAL_CAPACITY];
@@ -214,11 +330,20 @@ public final class NioSocketChannelOutboundBuffer extends ChannelOutboundBuffer
         ByteBuffer buf;
         int count = -1;
 
+        // The number of NIO buffers and bytes this entry added to nioBuffers, or -1 if it was not added yet.
+        int nioBufferCount = -1;
+        int nioBufferSize;
+        // the reader index of the message the NIO buffers reflect
+        int nioReaderIndex;
+
         @Override
         public void clear() {
             buffers = null;
             buf = null;
             count = -1;
+            nioBufferCount = -1;
+            nioBufferSize = 0;
+            nioReaderIndex = 0;
             super.clear();
         }
 
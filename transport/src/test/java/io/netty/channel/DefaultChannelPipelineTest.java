@@ -21,6 +21,8 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandler.Skip;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.local.LocalAddress;
 import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalServerChannel;
@@ -548,6 +550,57 @@ public class DefaultChannelPipelineTest {
         assertNull(pipeline.last());
     }
 
+    @Test
+    public void testSkipPerEvent() throws Exception {
+        final Queue<String> events = new ArrayDeque<String>();
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                        events.add("channelRead");
+                        ctx.fireChannelRead(msg);
+                    }
+
+                    @Skip
+                    @Override
+                    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+                        // Must not be invoked, although the handler handles other inbound events.
+                        events.add("skipped");
+                        ctx.fireChannelReadComplete();
+                    }
+
+                    @Skip
+                    @Override
+                    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+                        events.add("skipped");
+                        ctx.write(msg, promise);
+                    }
+
+                    @Override
+                    public void flush(ChannelHandlerContext ctx) throws Exception {
+                        events.add("flush");
+                        ctx.flush();
+                    }
+                },
+                new ChannelHandlerAdapter() {
+                    @Override
+                    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+                        events.add("channelReadComplete");
+                        ctx.writeAndFlush("response");
+                    }
+                });
+
+        channel.writeInbound("request");
+        assertEquals("channelRead", events.poll());
+        assertEquals("channelReadComplete", events.poll());
+        assertEquals("flush", events.poll());
+        assertNull(events.poll());
+
+        assertTrue(channel.finish());
+        assertEquals("request", channel.readInbound());
+        assertEquals("response", channel.readOutbound());
+    }
+
     private static int next(DefaultChannelHandlerContext ctx) {
         DefaultChannelHandlerContext next = ctx.next;
         if (next == null) {
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.embedded;
+
+import io.netty.util.concurrent.ScheduledFuture;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EmbeddedChannelTest {
+
+    @Test(timeout = 10000)
+    public void testScheduling() throws Exception {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        final CountDownLatch latch = new CountDownLatch(2);
+        ScheduledFuture<?> future = ch.eventLoop().schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 1, TimeUnit.SECONDS);
+        ch.eventLoop().schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 1, TimeUnit.SECONDS);
+
+        long next = ch.runScheduledPendingTasks();
+        assertTrue(next > 0);
+        assertFalse(future.isDone());
+        // Sleep for the nanoseconds but also give extra 50ms as the clock may not be very precise and so fail the
+        // test otherwise.
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(next) + 50);
+        assertEquals(-1, ch.runScheduledPendingTasks());
+        assertTrue(future.isSuccess());
+        latch.await();
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testScheduledTasksRunByRunPendingTasks() {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ScheduledFuture<?> future = ch.eventLoop().schedule(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }, 0, TimeUnit.NANOSECONDS);
+        ch.runPendingTasks();
+        assertTrue(future.isSuccess());
+        assertEquals(-1, ch.runScheduledPendingTasks());
+        assertFalse(ch.finish());
+    }
+
+    @Test
+    public void testScheduledCancelledOnFinish() {
+        EmbeddedChannel ch = new EmbeddedChannel();
+        ScheduledFuture<?> future = ch.eventLoop().schedule(new Runnable() {
+            @Override
+            public void run() {
+                fail();
+            }
+        }, 1, TimeUnit.DAYS);
+        assertFalse(ch.finish());
+        assertTrue(future.isCancelled());
+        assertEquals(-1, ch.runScheduledPendingTasks());
+    }
+}
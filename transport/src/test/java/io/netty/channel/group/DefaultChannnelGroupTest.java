@@ -16,15 +16,27 @@
 package io.netty.channel.group;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
 public class DefaultChannnelGroupTest {
 
     // Test for #1183
@@ -57,4 +69,118 @@ public class DefaultChannnelGroupTest {
         bossGroup.terminationFuture().sync();
         workerGroup.terminationFuture().sync();
     }
+
+    @Test
+    public void testBroadcast() {
+        ChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        EmbeddedChannel ch1 = new EmbeddedChannel();
+        EmbeddedChannel ch2 = new EmbeddedChannel();
+        EmbeddedChannel ch3 = new EmbeddedChannel();
+        group.add(ch1);
+        group.add(ch2);
+        group.add(ch3);
+
+        ByteBuf message = Unpooled.copiedBuffer("message", CharsetUtil.US_ASCII);
+        ChannelGroupFuture future = group.broadcast(message, ChannelMatchers.isNot(ch3));
+        assertTrue(future.isSuccess());
+        assertFalse(future.iterator().hasNext());
+        assertNull(future.find(ch1));
+        assertEquals(2, message.refCnt());
+
+        for (EmbeddedChannel ch: new EmbeddedChannel[] { ch1, ch2 }) {
+            ByteBuf buf = ch.readOutbound();
+            assertEquals("message", buf.toString(CharsetUtil.US_ASCII));
+            assertNull(ch.readOutbound());
+            buf.release();
+        }
+        assertNull(ch3.readOutbound());
+        assertEquals(0, message.refCnt());
+    }
+
+    @Test
+    public void testBroadcastEmptyGroup() {
+        ChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        ByteBuf message = Unpooled.copiedBuffer("message", CharsetUtil.US_ASCII);
+        assertTrue(group.broadcast(message).isSuccess());
+        assertEquals(0, message.refCnt());
+    }
+
+    @Test
+    public void testBroadcastFailure() {
+        ChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        final Exception cause = new Exception();
+        EmbeddedChannel ch1 = new EmbeddedChannel();
+        EmbeddedChannel ch2 = new EmbeddedChannel(new ChannelHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ReferenceCountUtil.release(msg);
+                promise.setFailure(cause);
+            }
+        });
+        group.add(ch1);
+        group.add(ch2);
+
+        ByteBuf message = Unpooled.copiedBuffer("message", CharsetUtil.US_ASCII);
+        ChannelGroupFuture future = group.broadcast(message);
+        assertFalse(future.isSuccess());
+        assertTrue(future.isPartialFailure());
+        assertTrue(future.isPartialSuccess());
+        assertNull(future.find(ch1));
+        assertSame(cause, future.find(ch2).cause());
+        assertSame(ch2, future.cause().iterator().next().getKey());
+
+        ByteBuf buf = ch1.readOutbound();
+        buf.release();
+        assertEquals(0, message.refCnt());
+        assertNull(ch2.readOutbound());
+    }
+
+    @Test
+    public void testBroadcastUnregisteredChannel() {
+        ChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        EmbeddedChannel ch1 = new EmbeddedChannel();
+        NioSocketChannel ch2 = new NioSocketChannel();
+        try {
+            group.add(ch1);
+            group.add(ch2);
+
+            ByteBuf message = Unpooled.copiedBuffer("message", CharsetUtil.US_ASCII);
+            ChannelGroupFuture future = group.broadcast(message);
+            assertFalse(future.isSuccess());
+            assertTrue(future.isPartialSuccess());
+            assertNull(future.find(ch1));
+            assertTrue(future.find(ch2).cause() instanceof IllegalStateException);
+
+            ByteBuf buf = ch1.readOutbound();
+            buf.release();
+            assertEquals(0, message.refCnt());
+        } finally {
+            ch2.unsafe().closeForcibly();
+        }
+    }
+
+    @Test
+    public void testNewFuture() {
+        ChannelGroup group = new DefaultChannelGroup(ImmediateEventExecutor.INSTANCE);
+        EmbeddedChannel ch1 = new EmbeddedChannel();
+        EmbeddedChannel ch2 = new EmbeddedChannel();
+        group.add(ch1);
+        group.add(ch2);
+
+        ChannelPromise p1 = ch1.newPromise();
+        ChannelPromise p2 = ch2.newPromise();
+        ChannelGroupFuture future = ChannelGroupFutures.newFuture(
+                group, Arrays.<ChannelFuture>asList(p1, p2), ImmediateEventExecutor.INSTANCE);
+        assertSame(group, future.group());
+        assertSame(p1, future.find(ch1));
+        assertFalse(future.isDone());
+
+        p1.setSuccess();
+        assertFalse(future.isDone());
+        Exception cause = new Exception();
+        p2.setFailure(cause);
+        assertTrue(future.isDone());
+        assertTrue(future.isPartialSuccess());
+        assertSame(cause, future.cause().iterator().next().getValue());
+    }
 }
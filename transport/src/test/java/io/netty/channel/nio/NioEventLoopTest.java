@@ -15,10 +15,25 @@
  */
 package io.netty.channel.nio;
 
+import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.AbstractEventLoopTest;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopMetrics;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.NetUtil;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
 
 public class NioEventLoopTest extends AbstractEventLoopTest {
 
@@ -31,4 +46,115 @@ public class NioEventLoopTest extends AbstractEventLoopTest {
     protected Class<? extends ServerSocketChannel> newChannel() {
         return NioServerSocketChannel.class;
     }
+
+    @Test
+    public void testMetrics() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            NioEventLoop loop = (NioEventLoop) group.next();
+            EventLoopMetrics metrics = loop.metrics();
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch latch = new CountDownLatch(1);
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        // Ignore
+                    }
+                }
+            });
+            started.await();
+
+            Runnable noop = new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            };
+            loop.execute(noop);
+            // The task which samples the wait time of the tasks is never counted.
+            assertEquals(1, metrics.pendingTasks());
+            latch.countDown();
+            loop.submit(noop).sync();
+
+            assertTrue(metrics.wakeups() > 0);
+            assertFalse(loop.isAdaptiveIoRatio());
+            assertEquals(0, metrics.pendingTasks());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testAdaptiveIoRatioDecreasesWhenTasksWait() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            NioEventLoop loop = (NioEventLoop) group.next();
+            loop.setAdaptiveIoRatio(1, 1, TimeUnit.MILLISECONDS);
+            assertTrue(loop.isAdaptiveIoRatio());
+
+            EventLoopMetrics metrics = loop.metrics();
+            while (metrics.ioRatio() == 0 || metrics.ioRatio() >= 50) {
+                for (int i = 0; i < 8; i ++) {
+                    loop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                Thread.sleep(2);
+                            } catch (InterruptedException e) {
+                                // Ignore
+                            }
+                        }
+                    });
+                }
+                Thread.sleep(50);
+            }
+            assertTrue(metrics.taskTimeNanos() > 0);
+
+            loop.setAdaptiveIoRatio(0, 0, TimeUnit.MILLISECONDS);
+            assertFalse(loop.isAdaptiveIoRatio());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testAdaptiveIoRatioIncreasesWhenIoIsPending() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        final List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            NioEventLoop loop = (NioEventLoop) group.next();
+            // Tasks never wait too long, but always run longer than I/O may wait.
+            loop.setAdaptiveIoRatio(TimeUnit.HOURS.toNanos(1), 1, TimeUnit.NANOSECONDS);
+
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.group(group).channel(NioServerSocketChannel.class).childHandler(new ChannelHandlerAdapter());
+            Channel sc = sb.bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).sync().channel();
+            final InetSocketAddress address = (InetSocketAddress) sc.localAddress();
+
+            EventLoopMetrics metrics = loop.metrics();
+            while (metrics.ioRatio() <= 50) {
+                // Make a connection ready to be accepted while the task runs.
+                loop.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            sockets.add(new Socket(address.getAddress(), address.getPort()));
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }).sync();
+            }
+            sc.close().sync();
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+            for (Socket s: sockets) {
+                s.close();
+            }
+        }
+    }
 }
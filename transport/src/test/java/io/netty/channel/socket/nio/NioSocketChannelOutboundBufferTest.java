@@ -135,6 +135,80 @@ public class NioSocketChannelOutboundBufferTest {
         buf.release();
     }
 
+    @Test
+    public void testNioBuffersIncremental() {
+        AbstractChannel channel = new EmbeddedChannel();
+        NioSocketChannelOutboundBuffer buffer = NioSocketChannelOutboundBuffer.newInstance(channel);
+
+        ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+        buffer.addMessage(buf.copy(), channel.voidPromise());
+        buffer.addMessage(buf.copy(), channel.voidPromise());
+        buffer.addFlush();
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(8, buffer.nioBufferSize());
+        ByteBuffer first = buffers[0];
+
+        buffer.addMessage(buf.copy(), channel.voidPromise());
+        buffer.addFlush();
+        buffers = buffer.nioBuffers();
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals(12, buffer.nioBufferSize());
+        assertSame(first, buffers[0]);
+        assertNull(buffers[3]);
+
+        // The buffers of the removed message must be removed from the array as well.
+        buffer.remove();
+        buffers = buffer.nioBuffers();
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(8, buffer.nioBufferSize());
+        assertNotSame(first, buffers[0]);
+        assertNull(buffers[2]);
+        release(buffer);
+        buf.release();
+    }
+
+    @Test
+    public void testRemoveBytes() {
+        AbstractChannel channel = new EmbeddedChannel();
+        NioSocketChannelOutboundBuffer buffer = NioSocketChannelOutboundBuffer.newInstance(channel);
+
+        ByteBuf buf = directBuffer().writeBytes("buf1".getBytes(CharsetUtil.US_ASCII));
+        for (int i = 0; i < 3; i++) {
+            buffer.addMessage(buf.copy(), channel.voidPromise());
+        }
+        buffer.addFlush();
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(3, buffer.nioBufferCount());
+
+        // Simulate a gathering write of 6 bytes.
+        buffers[0].position(buffers[0].limit());
+        buffers[1].position(buffers[1].position() + 2);
+        buffer.removeBytes(6);
+        assertEquals(2, buffer.size());
+        assertEquals(2, ((ByteBuf) buffer.current()).readerIndex());
+
+        buffers = buffer.nioBuffers();
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(6, buffer.nioBufferSize());
+        assertEquals(2, buffers[0].remaining());
+        assertEquals(4, buffers[1].remaining());
+        assertNull(buffers[2]);
+
+        // A partial write of the first message which bypassed the NIO buffers must not be written again.
+        ((ByteBuf) buffer.current()).skipBytes(1);
+        buffers = buffer.nioBuffers();
+        assertEquals(2, buffer.nioBufferCount());
+        assertEquals(5, buffer.nioBufferSize());
+        assertEquals(1, buffers[0].remaining());
+
+        buffer.removeBytes(5);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.nioBufferCount());
+        assertEquals(0, buffer.nioBufferSize());
+        buf.release();
+    }
+
     private static void release(ChannelOutboundBuffer buffer) {
         for (;;) {
             if (!buffer.remove()) {